@@ -3,14 +3,27 @@ package at.porscheinformatik.antimapper;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements GroupMerger<DTO, Entity>
 {
 
     private final Map<GroupKey, ? extends Iterable<? extends DTO>> dtos;
     private final Object[] hints;
+    private final HintContext context;
+
+    // resolved lazily, the transformer hints are not available in the constructor
+    private HintFlags flags = null;
 
     protected AbstractGroupMerger(Map<GroupKey, ? extends Iterable<? extends DTO>> dtos, Object... hints)
     {
@@ -18,6 +31,8 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
 
         this.dtos = dtos;
         this.hints = hints;
+
+        context = HintContext.of(hints);
     }
 
     protected abstract boolean isUniqueKeyMatchingNullable(DTO dto, Entity entity, Object[] hints);
@@ -28,22 +43,131 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
 
     protected abstract Object[] getTransformerHints();
 
+    /**
+     * Returns the function extracting the unique keys of DTOs and entities, if available.
+     *
+     * @return the function, null if not available
+     */
+    protected UniqueKeyFunction<DTO, Entity> getUniqueKeyFunction()
+    {
+        return null;
+    }
+
+    /**
+     * Returns the predicate, that tests if an entity has been deleted, if available. Deleted entities are kept apart
+     * when merging into mixed collections.
+     *
+     * @return the predicate, null if not available
+     */
+    protected Predicate<Entity> getDeletedPredicate()
+    {
+        return null;
+    }
+
+    /**
+     * Merges the DTO with the hints of the context. The internal merger passes the context to the merger, instead of
+     * joining the hints.
+     *
+     * @param dto the DTO, may be null
+     * @param entity the entity, may be null
+     * @param context the context of the hints of this merger and the group
+     * @return the entity
+     */
+    Entity mergeWithContext(DTO dto, Entity entity, HintContext context)
+    {
+        return merge(dto, entity, context.toArray());
+    }
+
+    private Stream<HintedValue<DTO>> flatten(Map<GroupKey, ? extends Iterable<? extends DTO>> dtos)
+    {
+        // the group key is added to the context once per group
+        return HintedValue
+            .flatten(dtos.entrySet().stream(), Entry::getKey, entry -> MapperUtils.streamOrEmpty(entry.getValue()),
+                context);
+    }
+
+    private MatchFunction<HintedValue<DTO>, Entity> createMatchFunction()
+    {
+        MatchFunction<HintedValue<DTO>, Entity> matchFunction =
+            (dto, entity) -> isUniqueKeyMatchingNullable(HintedValue.valueOf(dto), entity,
+                dto != null ? dto.getHints() : hints);
+        UniqueKeyFunction<DTO, Entity> uniqueKeyFunction = getUniqueKeyFunction();
+
+        if (uniqueKeyFunction == null)
+        {
+            return matchFunction;
+        }
+
+        return KeyMatchFunction.of(matchFunction, dto -> {
+            if (dto.getValue() == null)
+            {
+                return MapperUtils.NO_KEY;
+            }
+
+            return uniqueKeyFunction.uniqueKeyOfDTO(dto.getValue(), dto.getHints());
+        }, entity -> uniqueKeyFunction.uniqueKeyOfEntity(entity, hints));
+    }
+
+    private MatchFunction<DTO, Entity> createMatchFunction(Object[] groupHints)
+    {
+        MatchFunction<DTO, Entity> matchFunction =
+            (dto, entity) -> isUniqueKeyMatchingNullable(dto, entity, groupHints);
+        UniqueKeyFunction<DTO, Entity> uniqueKeyFunction = getUniqueKeyFunction();
+
+        if (uniqueKeyFunction == null)
+        {
+            return matchFunction;
+        }
+
+        return KeyMatchFunction.of(matchFunction, dto -> {
+            if (dto == null)
+            {
+                return MapperUtils.NO_KEY;
+            }
+
+            return uniqueKeyFunction.uniqueKeyOfDTO(dto, groupHints);
+        }, entity -> uniqueKeyFunction.uniqueKeyOfEntity(entity, hints));
+    }
+
     protected boolean containsHint(Object object)
     {
+        if (object instanceof Hint)
+        {
+            return getFlags().contains((Hint) object);
+        }
+
         return Hints.containsHint(hints, object) || Hints.containsHint(getTransformerHints(), object);
     }
 
+    /**
+     * Returns the flags of the hints, that are resolved once for all operations of this merger.
+     *
+     * @return the flags
+     */
+    private HintFlags getFlags()
+    {
+        HintFlags currentFlags = flags;
+
+        if (currentFlags == null)
+        {
+            currentFlags = HintFlags.of(getTransformerHints(), hints);
+            flags = currentFlags;
+        }
+
+        return currentFlags;
+    }
+
     @Override
     public <EntityCollection extends Collection<Entity>> EntityCollection intoMixedCollection(EntityCollection entities,
         Supplier<EntityCollection> entityCollectionFactory)
     {
         Map<GroupKey, ? extends Iterable<? extends DTO>> dtos = this.dtos;
 
-        boolean keepMissing = containsHint(Hint.KEEP_MISSING);
+        boolean keepMissing = getFlags().isKeepMissing();
 
         if (dtos == null)
         {
-            boolean orEmpty = containsHint(Hint.OR_EMPTY);
+            boolean orEmpty = getFlags().isOrEmpty();
 
             if (entities == null && !orEmpty && !keepMissing)
             {
@@ -55,7 +179,7 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
 
         try
         {
-            boolean unmodifiable = containsHint(Hint.UNMODIFIABLE);
+            boolean unmodifiable = getFlags().isUnmodifiable();
 
             if (entities == null)
             {
@@ -69,21 +193,14 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
                 entities.addAll(originalEntity);
             }
 
-            Collection<Pair<?, ? extends DTO>> pairs = new ArrayList<>();
-
-            dtos
-                .entrySet()
-                .forEach(entry -> entry.getValue().forEach(item -> pairs.add(Pair.of(entry.getKey(), item))));
-
-            boolean keepNull = containsHint(Hint.KEEP_NULL);
+            boolean keepNull = getFlags().isKeepNull();
 
             entities = MapperUtils
-                .mapMixed(pairs.stream(), entities,
-                    (pair, entity) -> isUniqueKeyMatchingNullable(pair != null ? pair.getRight() : null, entity,
-                        pair != null ? Hints.join(hints, pair.getLeft()) : hints),
-                    (pair, entity) -> merge(pair != null ? pair.getRight() : null, entity,
-                        pair != null ? Hints.join(hints, pair.getLeft()) : hints),
-                    keepMissing, keepNull ? null : dto -> dto != null, list -> afterMergeIntoCollection(list, hints));
+                .mapMixed(flatten(dtos), entities, createMatchFunction(),
+                    (dto, entity) -> mergeWithContext(HintedValue.valueOf(dto), entity,
+                        dto != null ? dto.getContext() : context),
+                    keepMissing, keepNull ? null : dto -> dto != null, list -> afterMergeIntoCollection(list, hints),
+                    getDeletedPredicate());
 
             if (unmodifiable)
             {
@@ -105,11 +222,11 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
         EntityCollection entities, Supplier<EntityCollection> entityCollectionFactory)
     {
         Map<GroupKey, ? extends Iterable<? extends DTO>> dtos = this.dtos;
-        boolean keepMissing = containsHint(Hint.KEEP_MISSING);
+        boolean keepMissing = getFlags().isKeepMissing();
 
         if (dtos == null)
         {
-            boolean orEmpty = containsHint(Hint.OR_EMPTY);
+            boolean orEmpty = getFlags().isOrEmpty();
 
             if (entities == null && !orEmpty && !keepMissing)
             {
@@ -121,7 +238,7 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
 
         try
         {
-            boolean unmodifiable = containsHint(Hint.UNMODIFIABLE);
+            boolean unmodifiable = getFlags().isUnmodifiable();
 
             if (entities == null)
             {
@@ -135,22 +252,74 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
                 entities.addAll(originalEntity);
             }
 
-            Collection<Pair<?, ? extends DTO>> pairs = new ArrayList<>();
+            boolean keepNull = getFlags().isKeepNull();
 
-            dtos
-                .entrySet()
-                .forEach(entry -> entry.getValue().forEach(item -> pairs.add(Pair.of(entry.getKey(), item))));
+            entities = MapperUtils
+                .mapOrdered(flatten(dtos).collect(Collectors.toList()), entities, createMatchFunction(),
+                    (dto, entity) -> mergeWithContext(HintedValue.valueOf(dto), entity,
+                        dto != null ? dto.getContext() : context),
+                    keepMissing, keepNull ? null : entity -> entity != null,
+                    list -> afterMergeIntoCollection(list, hints),
+                    getFlags().getOrderedMergeOptions());
 
-            boolean keepNull = containsHint(Hint.KEEP_NULL);
+            if (unmodifiable)
+            {
+                entities = MapperUtils.toUnmodifiableCollection(entities);
+            }
+
+            return entities;
+        }
+        catch (Exception e)
+        {
+            throw new MapperException("Failed to merge grouped DTOs into an ordered collection: %s => %s", e,
+                MapperUtils.abbreviate(String.valueOf(dtos), 4096),
+                MapperUtils.abbreviate(String.valueOf(entities), 4096));
+        }
+    }
+
+    @Override
+    public <EntityList extends List<Entity>> EntityList intoPositionedList(EntityList entities,
+        Supplier<EntityList> entityListFactory, ToIntFunction<? super Entity> positionFunction)
+    {
+        Map<GroupKey, ? extends Iterable<? extends DTO>> dtos = this.dtos;
+        boolean keepMissing = getFlags().isKeepMissing();
+
+        if (dtos == null)
+        {
+            boolean orEmpty = getFlags().isOrEmpty();
+
+            if (entities == null && !orEmpty && !keepMissing)
+            {
+                return null;
+            }
+
+            dtos = Collections.emptyMap();
+        }
+
+        try
+        {
+            boolean unmodifiable = getFlags().isUnmodifiable();
+
+            if (entities == null)
+            {
+                entities = entityListFactory.get();
+            }
+            else if (unmodifiable)
+            {
+                EntityList originalEntity = entities;
+
+                entities = entityListFactory.get();
+                entities.addAll(originalEntity);
+            }
+
+            boolean keepNull = getFlags().isKeepNull();
 
             entities = MapperUtils
-                .mapOrdered(pairs, entities,
-                    (pair, entity) -> isUniqueKeyMatchingNullable(pair != null ? pair.getRight() : null, entity,
-                        pair != null ? Hints.join(hints, pair.getLeft()) : hints),
-                    (pair, entity) -> merge(pair != null ? pair.getRight() : null, entity,
-                        pair != null ? Hints.join(hints, pair.getLeft()) : hints),
+                .mapByPosition(flatten(dtos), entities, createMatchFunction(),
+                    (dto, entity) -> mergeWithContext(HintedValue.valueOf(dto), entity,
+                        dto != null ? dto.getContext() : context),
                     keepMissing, keepNull ? null : entity -> entity != null,
-                    list -> afterMergeIntoCollection(list, hints));
+                    list -> afterMergeIntoCollection(list, hints), positionFunction);
 
             if (unmodifiable)
             {
@@ -161,10 +330,233 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
         }
         catch (Exception e)
         {
-            throw new MapperException("Failed to merge grouped DTOs into an ordered collection: %s => %s", e,
+            throw new MapperException("Failed to merge grouped DTOs into a positioned list: %s => %s", e,
                 MapperUtils.abbreviate(String.valueOf(dtos), 4096),
                 MapperUtils.abbreviate(String.valueOf(entities), 4096));
         }
     }
 
+    @Override
+    public <Key, EntityMap extends Map<Key, Entity>> EntityMap intoMap(EntityMap entities,
+        Supplier<EntityMap> entityMapFactory, Function<? super Entity, ? extends Key> keyFunction)
+    {
+        Map<GroupKey, ? extends Iterable<? extends DTO>> dtos = this.dtos;
+        boolean keepMissing = getFlags().isKeepMissing();
+
+        if (dtos == null)
+        {
+            boolean orEmpty = getFlags().isOrEmpty();
+
+            if (entities == null && !orEmpty && !keepMissing)
+            {
+                return null;
+            }
+
+            dtos = Collections.emptyMap();
+        }
+
+        try
+        {
+            boolean unmodifiable = getFlags().isUnmodifiable();
+
+            if (entities == null)
+            {
+                entities = entityMapFactory.get();
+            }
+            else if (unmodifiable)
+            {
+                EntityMap originalEntity = entities;
+
+                entities = entityMapFactory.get();
+                entities.putAll(originalEntity);
+            }
+
+            // entities, that merge to null, have no key and are always ignored
+            entities = MapperUtils
+                .mapIntoMap(flatten(dtos), entities, keyFunction, createMatchFunction(),
+                    (dto, entity) -> mergeWithContext(HintedValue.valueOf(dto), entity,
+                        dto != null ? dto.getContext() : context),
+                    keepMissing, null, map -> afterMergeIntoCollection(map.values(), hints));
+
+            if (unmodifiable)
+            {
+                entities = MapperUtils.toUnmodifiableMap(entities);
+            }
+
+            return entities;
+        }
+        catch (Exception e)
+        {
+            throw new MapperException("Failed to merge grouped DTOs into a map: %s => %s", e,
+                MapperUtils.abbreviate(String.valueOf(dtos), 4096),
+                MapperUtils.abbreviate(String.valueOf(entities), 4096));
+        }
+    }
+
+    @Override
+    public <TargetGroupKey, EntityCollection extends Collection<Entity>, EntityMap extends Map<TargetGroupKey, EntityCollection>> EntityMap intoGroupedMixedCollections(
+        EntityMap entities, Supplier<EntityMap> entityMapFactory, Supplier<EntityCollection> entityCollectionFactory)
+    {
+        return intoGroupedCollections(entities, entityMapFactory, entityCollectionFactory, false);
+    }
+
+    @Override
+    public <TargetGroupKey, EntityCollection extends Collection<Entity>, EntityMap extends Map<TargetGroupKey, EntityCollection>> EntityMap intoGroupedOrderedCollections(
+        EntityMap entities, Supplier<EntityMap> entityMapFactory, Supplier<EntityCollection> entityCollectionFactory)
+    {
+        return intoGroupedCollections(entities, entityMapFactory, entityCollectionFactory, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <TargetGroupKey, EntityCollection extends Collection<Entity>, EntityMap extends Map<TargetGroupKey, EntityCollection>> EntityMap intoGroupedCollections(
+        EntityMap entities, Supplier<EntityMap> entityMapFactory, Supplier<EntityCollection> entityCollectionFactory,
+        boolean ordered)
+    {
+        Map<GroupKey, ? extends Iterable<? extends DTO>> dtos = this.dtos;
+        boolean keepMissing = getFlags().isKeepMissing();
+
+        if (dtos == null)
+        {
+            boolean orEmpty = getFlags().isOrEmpty();
+
+            if (entities == null && !orEmpty && !keepMissing)
+            {
+                return null;
+            }
+
+            dtos = Collections.emptyMap();
+        }
+
+        try
+        {
+            boolean unmodifiable = getFlags().isUnmodifiable();
+
+            if (entities == null)
+            {
+                entities = entityMapFactory.get();
+            }
+            else if (unmodifiable)
+            {
+                EntityMap originalEntities = entities;
+
+                entities = entityMapFactory.get();
+
+                for (Entry<TargetGroupKey, EntityCollection> entry : originalEntities.entrySet())
+                {
+                    EntityCollection groupEntities = entityCollectionFactory.get();
+
+                    if (entry.getValue() != null)
+                    {
+                        groupEntities.addAll(entry.getValue());
+                    }
+
+                    entities.put(entry.getKey(), groupEntities);
+                }
+            }
+
+            boolean keepNull = getFlags().isKeepNull();
+            Predicate<Entity> filter = keepNull ? null : entity -> entity != null;
+            OrderedMergeOptions options = ordered ? getFlags().getOrderedMergeOptions() : null;
+
+            Set<TargetGroupKey> relocatedGroupKeys = Collections.emptySet();
+            UniqueKeyFunction<DTO, Entity> uniqueKeyFunction = getUniqueKeyFunction();
+
+            if (uniqueKeyFunction != null && !keepMissing)
+            {
+                // the group key is added to the context once per group, not for each DTO
+                Map<TargetGroupKey, Object[]> groupHints = new HashMap<>();
+
+                // entities, whose DTOs have been moved to another group, are moved along with them
+                relocatedGroupKeys = MapperUtils
+                    .relocateMovedValues((Map<TargetGroupKey, ? extends Iterable<? extends DTO>>) (Map<?, ?>) dtos,
+                        entities,
+                        (groupKey, dto) -> uniqueKeyFunction
+                            .uniqueKeyOfDTO(dto,
+                                groupHints.computeIfAbsent(groupKey, key -> context.with(key).toArray())),
+                        entity -> uniqueKeyFunction.uniqueKeyOfEntity(entity, hints), entityCollectionFactory);
+            }
+
+            // each group is merged on its own, the groups without DTOs get merged with no DTOs
+            List<TargetGroupKey> missingGroupKeys = new ArrayList<>();
+
+            if (!keepMissing)
+            {
+                for (TargetGroupKey groupKey : entities.keySet())
+                {
+                    if (!dtos.containsKey(groupKey))
+                    {
+                        missingGroupKeys.add(groupKey);
+                    }
+                }
+            }
+
+            for (Entry<GroupKey, ? extends Iterable<? extends DTO>> entry : dtos.entrySet())
+            {
+                TargetGroupKey groupKey = (TargetGroupKey) entry.getKey();
+
+                // relocated entities are appended, the move detection keeps them from being merged as removed entities
+                mergeGroup(entities, groupKey, entry.getValue(), entityCollectionFactory, keepMissing, filter,
+                    options != null && relocatedGroupKeys.contains(groupKey) ? options.withMoveDetection(true)
+                        : options);
+            }
+
+            for (TargetGroupKey groupKey : missingGroupKeys)
+            {
+                mergeGroup(entities, groupKey, Collections.emptyList(), entityCollectionFactory, keepMissing, filter,
+                    options);
+            }
+
+            if (unmodifiable)
+            {
+                entities.replaceAll((groupKey, groupEntities) -> MapperUtils.toUnmodifiableCollection(groupEntities));
+                entities = MapperUtils.toUnmodifiableMap(entities);
+            }
+
+            return entities;
+        }
+        catch (Exception e)
+        {
+            throw new MapperException("Failed to merge grouped DTOs into grouped %s collections: %s => %s", e,
+                ordered ? "ordered" : "mixed", MapperUtils.abbreviate(String.valueOf(dtos), 4096),
+                MapperUtils.abbreviate(String.valueOf(entities), 4096));
+        }
+    }
+
+    private <TargetGroupKey, EntityCollection extends Collection<Entity>> void mergeGroup(
+        Map<TargetGroupKey, EntityCollection> entities, TargetGroupKey groupKey, Iterable<? extends DTO> groupDtos,
+        Supplier<EntityCollection> entityCollectionFactory, boolean keepMissing, Predicate<Entity> filter,
+        OrderedMergeOptions options)
+    {
+        HintContext groupContext = context.with(groupKey);
+        Object[] groupHints = groupContext.toArray();
+        EntityCollection groupEntities = entities.get(groupKey);
+        EntityCollection mergedEntities = groupEntities != null ? groupEntities : entityCollectionFactory.get();
+
+        if (options != null)
+        {
+            MapperUtils
+                .mapOrdered(groupDtos != null ? groupDtos : Collections.emptyList(), mergedEntities,
+                    createMatchFunction(groupHints), (dto, entity) -> mergeWithContext(dto, entity, groupContext),
+                    keepMissing, filter, list -> afterMergeIntoCollection(list, groupHints), options);
+        }
+        else
+        {
+            MapperUtils
+                .mapMixed(groupDtos != null ? groupDtos : Collections.emptyList(), mergedEntities,
+                    createMatchFunction(groupHints), (dto, entity) -> mergeWithContext(dto, entity, groupContext),
+                    keepMissing, filter, collection -> afterMergeIntoCollection(collection, groupHints),
+                    getDeletedPredicate());
+        }
+
+        if (mergedEntities.isEmpty())
+        {
+            entities.remove(groupKey);
+        }
+        else if (mergedEntities != groupEntities)
+        {
+            // only new groups get put, existing groups have been merged in place
+            entities.put(groupKey, mergedEntities);
+        }
+    }
+
 }
@@ -21,6 +21,9 @@ public abstract class AbstractGroupTransformer<DTO, GroupKey, Entity> implements
     private final Map<GroupKey, ? extends Iterable<? extends Entity>> entities;
     private final Object[] hints;
 
+    // resolved lazily, the transformer hints are not available in the constructor
+    private HintFlags flags = null;
+
     protected AbstractGroupTransformer(Map<GroupKey, ? extends Iterable<? extends Entity>> entities, Object... hints)
     {
         super();
@@ -36,9 +39,32 @@ public abstract class AbstractGroupTransformer<DTO, GroupKey, Entity> implements
 
     protected boolean containsHint(Object object)
     {
+        if (object instanceof Hint)
+        {
+            return getFlags().contains((Hint) object);
+        }
+
         return Hints.containsHint(hints, object) || Hints.containsHint(getTransformerHints(), object);
     }
 
+    /**
+     * Returns the flags of the hints, that are resolved once for all operations of this transformer.
+     *
+     * @return the flags
+     */
+    private HintFlags getFlags()
+    {
+        HintFlags currentFlags = flags;
+
+        if (currentFlags == null)
+        {
+            currentFlags = HintFlags.of(getTransformerHints(), hints);
+            flags = currentFlags;
+        }
+
+        return currentFlags;
+    }
+
     @Override
     public <DTOCollection extends Collection<DTO>, DTOMap extends Map<GroupKey, DTOCollection>> Map<GroupKey, DTOCollection> toGroupedMap(
         Supplier<DTOMap> mapFactory, Supplier<DTOCollection> collectionFactory)
@@ -47,7 +73,7 @@ public abstract class AbstractGroupTransformer<DTO, GroupKey, Entity> implements
 
         if (entities == null)
         {
-            if (!containsHint(Hint.OR_EMPTY))
+            if (!getFlags().isOrEmpty())
             {
                 return null;
             }
@@ -65,7 +91,7 @@ public abstract class AbstractGroupTransformer<DTO, GroupKey, Entity> implements
                     transformAll(entry.getValue(), collectionFactory, Hints.join(hints, entry.getKey())));
             }
 
-            if (containsHint(Hint.UNMODIFIABLE))
+            if (getFlags().isUnmodifiable())
             {
                 dtos = MapperUtils.toUnmodifiableMap(dtos);
             }
@@ -10,20 +10,39 @@ package at.porscheinformatik.antimapper;
 public abstract class AbstractMapper<DTO, Entity> extends AbstractMerger<DTO, Entity> implements Mapper<DTO, Entity>
 {
 
+    private final HintContext defaultContext;
+
     protected AbstractMapper()
     {
         super();
+
+        defaultContext = HintContext.EMPTY;
     }
 
     protected AbstractMapper(Object... defaultHints)
     {
         super(defaultHints);
+
+        defaultContext = HintContext.of(this.defaultHints);
     }
 
     @Override
     public final DTO transform(Entity entity, Object... hints)
     {
-        hints = Hints.join(defaultHints, hints);
+        return transformWithContext(entity, HintContext.of(hints));
+    }
+
+    /**
+     * Transforms the entity with the hints of the context. The default hints are added to the context, the hints are
+     * materialized only when calling the methods of this transformer.
+     *
+     * @param entity the entity, may be null
+     * @param context the context, without the default hints
+     * @return the DTO
+     */
+    DTO transformWithContext(Entity entity, HintContext context)
+    {
+        Object[] hints = defaultContext.with(context).toArray();
 
         if (entity == null)
         {
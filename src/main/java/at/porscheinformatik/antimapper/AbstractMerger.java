@@ -10,13 +10,39 @@ package at.porscheinformatik.antimapper;
 public abstract class AbstractMerger<DTO, Entity> implements Merger<DTO, Entity>
 {
 
+    /**
+     * Merges the DTO with the hints of the context. Passes the context to an {@link AbstractMerger}, materializes the
+     * hints for any other merger.
+     *
+     * @param <DTO> the dto type
+     * @param <Entity> the entity type
+     * @param merger the merger
+     * @param dto the dto, may be null
+     * @param entity the entity, may be null
+     * @param context the context, without the default hints of the merger
+     * @return the entity
+     */
+    static <DTO, Entity> Entity mergeWithContext(Merger<DTO, Entity> merger, DTO dto, Entity entity,
+        HintContext context)
+    {
+        if (merger instanceof AbstractMerger<?, ?>)
+        {
+            return ((AbstractMerger<DTO, Entity>) merger).mergeWithContext(dto, entity, context);
+        }
+
+        return merger.merge(dto, entity, context.toArray());
+    }
+
     protected final Object[] defaultHints;
 
+    private final HintContext defaultContext;
+
     protected AbstractMerger()
     {
         super();
 
         defaultHints = null;
+        defaultContext = HintContext.EMPTY;
     }
 
     protected AbstractMerger(Object... defaultHints)
@@ -24,6 +50,8 @@ public abstract class AbstractMerger<DTO, Entity> implements Merger<DTO, Entity>
         super();
 
         this.defaultHints = defaultHints != null && defaultHints.length > 0 ? defaultHints : null;
+
+        defaultContext = HintContext.of(this.defaultHints);
     }
 
     @Override
@@ -35,7 +63,21 @@ public abstract class AbstractMerger<DTO, Entity> implements Merger<DTO, Entity>
     @Override
     public final Entity merge(DTO dto, Entity entity, Object... hints)
     {
-        hints = Hints.join(defaultHints, hints);
+        return mergeWithContext(dto, entity, HintContext.of(hints));
+    }
+
+    /**
+     * Merges the DTO with the hints of the context. The default hints and the entity are added to the context, the
+     * hints are materialized only when calling the methods of this merger.
+     *
+     * @param dto the dto, may be null
+     * @param entity the entity, may be null
+     * @param context the context, without the default hints
+     * @return the entity
+     */
+    Entity mergeWithContext(DTO dto, Entity entity, HintContext context)
+    {
+        context = defaultContext.with(context);
 
         if (dto == null)
         {
@@ -44,17 +86,15 @@ public abstract class AbstractMerger<DTO, Entity> implements Merger<DTO, Entity>
                 return null;
             }
 
-            return mergeNull(entity, hints);
+            return mergeNull(entity, context.toArray());
         }
 
-        if ((entity == null) || (!isUniqueKeyMatching(dto, entity, hints)))
+        if ((entity == null) || (!isUniqueKeyMatching(dto, entity, context.toArray())))
         {
-            entity = create(dto, hints);
+            entity = create(dto, context.toArray());
         }
 
-        hints = Hints.join(hints, entity);
-
-        return mergeNonNull(dto, entity, hints);
+        return mergeNonNull(dto, entity, context.with(entity).toArray());
     }
 
     /**
@@ -34,7 +34,7 @@ public abstract class AbstractPairTransformer<DTO, LeftEntity, RightEntity>
 
         if (stream == null)
         {
-            if (!containsHint(Hint.OR_EMPTY))
+            if (!getFlags().isOrEmpty())
             {
                 return null;
             }
@@ -42,14 +42,14 @@ public abstract class AbstractPairTransformer<DTO, LeftEntity, RightEntity>
             stream = Stream.empty();
         }
 
-        boolean keepNull = containsHint(Hint.KEEP_NULL);
+        boolean keepNull = getFlags().isKeepNull();
 
         try
         {
             DTOMap dtos = mapFactory.get();
 
             stream.forEach(entityContainer -> {
-                DTO dto = transform(entityContainer, hints);
+                DTO dto = transformWithContext(entityContainer, context);
 
                 if (dto == null && !keepNull)
                 {
@@ -69,7 +69,7 @@ public abstract class AbstractPairTransformer<DTO, LeftEntity, RightEntity>
                 dtoCollection.add(dto);
             });
 
-            if (!containsHint(Hint.UNMODIFIABLE))
+            if (!getFlags().isUnmodifiable())
             {
                 return dtos;
             }
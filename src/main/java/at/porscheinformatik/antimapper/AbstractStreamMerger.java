@@ -1,7 +1,13 @@
 package at.porscheinformatik.antimapper;
 
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Stream;
 
 public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements StreamMerger<DTO, Entity>
@@ -9,6 +15,10 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
 
     private final Supplier<Stream<? extends DTOContainer>> streamSupplier;
     private final Object[] hints;
+    private final HintContext context;
+
+    // resolved lazily, the transformer hints are not available in the constructor
+    private HintFlags flags = null;
 
     protected AbstractStreamMerger(Supplier<Stream<? extends DTOContainer>> streamSupplier, Object... hints)
     {
@@ -16,6 +26,8 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
 
         this.streamSupplier = streamSupplier;
         this.hints = hints;
+
+        context = HintContext.of(hints);
     }
 
     protected abstract boolean isUniqueKeyMatchingNullable(DTOContainer dtoContainer, Entity entity, Object[] hints);
@@ -26,21 +38,109 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
 
     protected abstract Object[] getTransformerHints();
 
+    /**
+     * Returns the function extracting the unique keys of DTO containers and entities, if available.
+     *
+     * @return the function, null if not available
+     */
+    protected UniqueKeyFunction<DTOContainer, Entity> getUniqueKeyFunction()
+    {
+        return null;
+    }
+
+    /**
+     * Returns the predicate, that tests if an entity has been deleted, if available. Deleted entities are kept apart
+     * when merging into mixed collections.
+     *
+     * @return the predicate, null if not available
+     */
+    protected Predicate<Entity> getDeletedPredicate()
+    {
+        return null;
+    }
+
+    /**
+     * Tests the DTO container and the entity with the hints of the context. The internal mergers add the hints of the
+     * container to the context and pass it to the merger, instead of joining the hints.
+     *
+     * @param dtoContainer the DTO container, may be null
+     * @param entity the entity, may be null
+     * @param context the context of the hints of this merger
+     * @return true if matching
+     */
+    boolean isUniqueKeyMatchingWithContext(DTOContainer dtoContainer, Entity entity, HintContext context)
+    {
+        return isUniqueKeyMatchingNullable(dtoContainer, entity, context.toArray());
+    }
+
+    /**
+     * Merges the DTO container with the hints of the context. The internal mergers add the hints of the container to
+     * the context and pass it to the merger, instead of joining the hints.
+     *
+     * @param dtoContainer the DTO container, may be null
+     * @param entity the entity, may be null
+     * @param context the context of the hints of this merger
+     * @return the entity
+     */
+    Entity mergeWithContext(DTOContainer dtoContainer, Entity entity, HintContext context)
+    {
+        return merge(dtoContainer, entity, context.toArray());
+    }
+
+    private MatchFunction<DTOContainer, Entity> createMatchFunction()
+    {
+        MatchFunction<DTOContainer, Entity> matchFunction =
+            (dtoContainer, entity) -> isUniqueKeyMatchingWithContext(dtoContainer, entity, context);
+        UniqueKeyFunction<DTOContainer, Entity> uniqueKeyFunction = getUniqueKeyFunction();
+
+        if (uniqueKeyFunction == null)
+        {
+            return matchFunction;
+        }
+
+        return KeyMatchFunction
+            .of(matchFunction, dtoContainer -> uniqueKeyFunction.uniqueKeyOfDTO(dtoContainer, hints),
+                entity -> uniqueKeyFunction.uniqueKeyOfEntity(entity, hints));
+    }
+
     protected boolean containsHint(Object object)
     {
+        if (object instanceof Hint)
+        {
+            return getFlags().contains((Hint) object);
+        }
+
         return Hints.containsHint(hints, object) || Hints.containsHint(getTransformerHints(), object);
     }
 
+    /**
+     * Returns the flags of the hints, that are resolved once for all operations of this merger.
+     *
+     * @return the flags
+     */
+    private HintFlags getFlags()
+    {
+        HintFlags currentFlags = flags;
+
+        if (currentFlags == null)
+        {
+            currentFlags = HintFlags.of(getTransformerHints(), hints);
+            flags = currentFlags;
+        }
+
+        return currentFlags;
+    }
+
     @Override
     public <EntityCollection extends Collection<Entity>> EntityCollection intoMixedCollection(EntityCollection entities,
         Supplier<EntityCollection> entityCollectionFactory)
     {
         Stream<? extends DTOContainer> dtoContainers = streamSupplier.get();
-        boolean keepMissing = containsHint(Hint.KEEP_MISSING);
+        boolean keepMissing = getFlags().isKeepMissing();
 
         if (dtoContainers == null)
         {
-            boolean orEmpty = containsHint(Hint.OR_EMPTY);
+            boolean orEmpty = getFlags().isOrEmpty();
 
             if (entities == null && !orEmpty && !keepMissing)
             {
@@ -52,7 +152,7 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
 
         try
         {
-            boolean unmodifiable = containsHint(Hint.UNMODIFIABLE);
+            boolean unmodifiable = getFlags().isUnmodifiable();
 
             if (entities == null)
             {
@@ -66,13 +166,13 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
                 entities.addAll(originalEntity);
             }
 
-            boolean keepNull = containsHint(Hint.KEEP_NULL);
+            boolean keepNull = getFlags().isKeepNull();
 
             entities = MapperUtils
-                .mapMixed(dtoContainers, entities,
-                    (dtoContainer, entity) -> isUniqueKeyMatchingNullable(dtoContainer, entity, hints),
-                    (dtoContainer, entity) -> merge(dtoContainer, entity, hints), keepMissing,
-                    keepNull ? null : dto -> dto != null, list -> afterMergeIntoCollection(list, hints));
+                .mapMixed(dtoContainers, entities, createMatchFunction(),
+                    (dtoContainer, entity) -> mergeWithContext(dtoContainer, entity, context), keepMissing,
+                    keepNull ? null : dto -> dto != null, list -> afterMergeIntoCollection(list, hints),
+                    getDeletedPredicate());
 
             if (unmodifiable)
             {
@@ -94,11 +194,11 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
         EntityCollection entities, Supplier<EntityCollection> entityCollectionFactory)
     {
         Stream<? extends DTOContainer> dtoContainers = streamSupplier.get();
-        boolean keepMissing = containsHint(Hint.KEEP_MISSING);
+        boolean keepMissing = getFlags().isKeepMissing();
 
         if (dtoContainers == null)
         {
-            boolean orEmpty = containsHint(Hint.OR_EMPTY);
+            boolean orEmpty = getFlags().isOrEmpty();
 
             if (entities == null && !orEmpty && !keepMissing)
             {
@@ -110,7 +210,7 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
 
         try
         {
-            boolean unmodifiable = containsHint(Hint.UNMODIFIABLE);
+            boolean unmodifiable = getFlags().isUnmodifiable();
 
             if (entities == null)
             {
@@ -124,12 +224,13 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
                 entities.addAll(originalEntity);
             }
 
-            boolean keepNull = containsHint(Hint.KEEP_NULL);
+            boolean keepNull = getFlags().isKeepNull();
 
             entities = MapperUtils
-                .mapOrdered(dtoContainers, entities, (dto, entity) -> isUniqueKeyMatchingNullable(dto, entity, hints),
-                    (dtoContainer, entity) -> merge(dtoContainer, entity, hints), keepMissing,
-                    keepNull ? null : entity -> entity != null, list -> afterMergeIntoCollection(list, hints));
+                .mapOrdered(dtoContainers, entities, createMatchFunction(),
+                    (dtoContainer, entity) -> mergeWithContext(dtoContainer, entity, context), keepMissing,
+                    keepNull ? null : entity -> entity != null, list -> afterMergeIntoCollection(list, hints),
+                    getFlags().getOrderedMergeOptions());
 
             if (unmodifiable)
             {
@@ -146,4 +247,186 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
         }
     }
 
+    @Override
+    public <EntityList extends List<Entity>> EntityList intoPositionedList(EntityList entities,
+        Supplier<EntityList> entityListFactory, ToIntFunction<? super Entity> positionFunction)
+    {
+        Stream<? extends DTOContainer> dtoContainers = streamSupplier.get();
+        boolean keepMissing = getFlags().isKeepMissing();
+
+        if (dtoContainers == null)
+        {
+            boolean orEmpty = getFlags().isOrEmpty();
+
+            if (entities == null && !orEmpty && !keepMissing)
+            {
+                return null;
+            }
+
+            dtoContainers = Stream.empty();
+        }
+
+        try
+        {
+            boolean unmodifiable = getFlags().isUnmodifiable();
+
+            if (entities == null)
+            {
+                entities = entityListFactory.get();
+            }
+            else if (unmodifiable)
+            {
+                EntityList originalEntity = entities;
+
+                entities = entityListFactory.get();
+                entities.addAll(originalEntity);
+            }
+
+            boolean keepNull = getFlags().isKeepNull();
+
+            entities = MapperUtils
+                .mapByPosition(dtoContainers, entities, createMatchFunction(),
+                    (dtoContainer, entity) -> mergeWithContext(dtoContainer, entity, context), keepMissing,
+                    keepNull ? null : entity -> entity != null, list -> afterMergeIntoCollection(list, hints),
+                    positionFunction);
+
+            if (unmodifiable)
+            {
+                entities = MapperUtils.toUnmodifiableCollection(entities);
+            }
+
+            return entities;
+        }
+        catch (Exception e)
+        {
+            throw new MapperException("Failed to merge DTOs into a positioned list: %s => %s", e,
+                MapperUtils.abbreviate(String.valueOf(dtoContainers), 4096),
+                MapperUtils.abbreviate(String.valueOf(entities), 4096));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <Key, EntityList extends List<Entity>> EntityList intoSortedList(EntityList entities,
+        Supplier<EntityList> entityListFactory, Comparator<? super Key> keyComparator)
+    {
+        UniqueKeyFunction<DTOContainer, Entity> uniqueKeyFunction = getUniqueKeyFunction();
+
+        if (uniqueKeyFunction == null)
+        {
+            throw new IllegalStateException("Sorted merges need a UniqueKeyFunction");
+        }
+
+        Stream<? extends DTOContainer> dtoContainers = streamSupplier.get();
+        boolean keepMissing = getFlags().isKeepMissing();
+
+        if (dtoContainers == null)
+        {
+            boolean orEmpty = getFlags().isOrEmpty();
+
+            if (entities == null && !orEmpty && !keepMissing)
+            {
+                return null;
+            }
+
+            dtoContainers = Stream.empty();
+        }
+
+        try
+        {
+            boolean unmodifiable = getFlags().isUnmodifiable();
+
+            if (entities == null)
+            {
+                entities = entityListFactory.get();
+            }
+            else if (unmodifiable)
+            {
+                EntityList originalEntity = entities;
+
+                entities = entityListFactory.get();
+                entities.addAll(originalEntity);
+            }
+
+            boolean keepNull = getFlags().isKeepNull();
+
+            entities = MapperUtils
+                .mapSorted(dtoContainers, entities,
+                    dtoContainer -> (Key) uniqueKeyFunction.uniqueKeyOfDTO(dtoContainer, hints),
+                    entity -> (Key) uniqueKeyFunction.uniqueKeyOfEntity(entity, hints), keyComparator,
+                    (dtoContainer, entity) -> mergeWithContext(dtoContainer, entity, context), keepMissing,
+                    keepNull ? null : entity -> entity != null, list -> afterMergeIntoCollection(list, hints),
+                    getFlags().getOrderedMergeOptions());
+
+            if (unmodifiable)
+            {
+                entities = MapperUtils.toUnmodifiableCollection(entities);
+            }
+
+            return entities;
+        }
+        catch (Exception e)
+        {
+            throw new MapperException("Failed to merge DTOs into a sorted list: %s => %s", e,
+                MapperUtils.abbreviate(String.valueOf(dtoContainers), 4096),
+                MapperUtils.abbreviate(String.valueOf(entities), 4096));
+        }
+    }
+
+    @Override
+    public <Key, EntityMap extends Map<Key, Entity>> EntityMap intoMap(EntityMap entities,
+        Supplier<EntityMap> entityMapFactory, Function<? super Entity, ? extends Key> keyFunction)
+    {
+        Stream<? extends DTOContainer> dtoContainers = streamSupplier.get();
+        boolean keepMissing = getFlags().isKeepMissing();
+
+        if (dtoContainers == null)
+        {
+            boolean orEmpty = getFlags().isOrEmpty();
+
+            if (entities == null && !orEmpty && !keepMissing)
+            {
+                return null;
+            }
+
+            dtoContainers = Stream.empty();
+        }
+
+        try
+        {
+            boolean unmodifiable = getFlags().isUnmodifiable();
+
+            if (entities == null)
+            {
+                entities = entityMapFactory.get();
+            }
+            else if (unmodifiable)
+            {
+                EntityMap originalEntity = entities;
+
+                entities = entityMapFactory.get();
+                entities.putAll(originalEntity);
+            }
+
+            // entities, that merge to null, have no key and are always ignored
+            entities = MapperUtils
+                .mapIntoMap(dtoContainers, entities, keyFunction, createMatchFunction(),
+                    (dtoContainer, entity) -> mergeWithContext(dtoContainer, entity, context), keepMissing, null,
+                    map -> afterMergeIntoCollection(map.values(), hints));
+
+            if (unmodifiable)
+            {
+                entities = MapperUtils.toUnmodifiableMap(entities);
+            }
+
+            return entities;
+        }
+        catch (Exception e)
+        {
+            throw new MapperException("Failed to merge DTOs into a map: %s => %s", e,
+                MapperUtils.abbreviate(String.valueOf(dtoContainers), 4096),
+                MapperUtils.abbreviate(String.valueOf(entities), 4096));
+        }
+    }
+
 }
@@ -2,8 +2,11 @@ package at.porscheinformatik.antimapper;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -23,12 +26,19 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
     protected final Supplier<Stream<? extends EntityContainer>> streamSupplier;
     protected final Object[] hints;
 
+    final HintContext context;
+
+    // resolved lazily, the transformer hints are not available in the constructor
+    private HintFlags flags = null;
+
     protected AbstractStreamTransformer(Supplier<Stream<? extends EntityContainer>> streamSupplier, Object... hints)
     {
         super();
 
         this.streamSupplier = streamSupplier;
         this.hints = hints;
+
+        context = HintContext.of(hints);
     }
 
     protected abstract DTO transform(EntityContainer container, Object[] hints);
@@ -37,63 +47,116 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
 
     protected abstract Object[] getTransformerHints();
 
+    /**
+     * Transforms the container with the hints of the context. The internal transformers add the hints of the
+     * container to the context and pass it to the transformer, instead of joining the hints.
+     *
+     * @param container the container
+     * @param context the context of the hints of this transformer
+     * @return the DTO
+     */
+    DTO transformWithContext(EntityContainer container, HintContext context)
+    {
+        return transform(container, context.toArray());
+    }
+
     protected boolean containsHint(Object object)
     {
+        if (object instanceof Hint)
+        {
+            return getFlags().contains((Hint) object);
+        }
+
         return Hints.containsHint(hints, object) || Hints.containsHint(getTransformerHints(), object);
     }
 
-    @Override
-    public Stream<DTO> toStream()
+    /**
+     * Returns the flags of the hints, that are resolved once for all operations of this transformer.
+     *
+     * @return the flags
+     */
+    HintFlags getFlags()
+    {
+        HintFlags currentFlags = flags;
+
+        if (currentFlags == null)
+        {
+            currentFlags = HintFlags.of(getTransformerHints(), hints);
+            flags = currentFlags;
+        }
+
+        return currentFlags;
+    }
+
+    /**
+     * Transforms the containers of the stream lazily.
+     *
+     * @return the DTOs, null if the stream is null
+     */
+    Stream<DTO> transformAll()
+    {
+        Stream<? extends EntityContainer> stream = streamSupplier.get();
+
+        return stream != null ? stream.map(container -> transformWithContext(container, context)) : null;
+    }
+
+    /**
+     * Calls the consumer for each container of the stream with the context for transforming it.
+     *
+     * @param consumer the consumer
+     * @return false if the stream is null
+     */
+    boolean forEach(BiConsumer<? super EntityContainer, HintContext> consumer)
     {
         Stream<? extends EntityContainer> stream = streamSupplier.get();
 
         if (stream == null)
         {
-            if (containsHint(Hint.OR_EMPTY))
-            {
-                return Stream.empty();
-            }
-
-            return null;
+            return false;
         }
 
-        try
-        {
-            Stream<DTO> result = stream.map(dto -> transform(dto, hints));
+        stream.forEach(container -> consumer.accept(container, context));
+
+        return true;
+    }
 
-            if (!containsHint(Hint.KEEP_NULL))
+    @Override
+    public Stream<DTO> toStream()
+    {
+        Stream<DTO> result = transformAll();
+
+        if (result == null)
+        {
+            if (getFlags().isOrEmpty())
             {
-                result = result.filter(dto -> dto != null);
+                return Stream.empty();
             }
 
-            return result;
+            return null;
         }
-        catch (Exception e)
+
+        if (!getFlags().isKeepNull())
         {
-            throw new MapperException("Failed to transform entities in stream: %s", e,
-                MapperUtils.abbreviate(String.valueOf(stream), 4096));
+            result = result.filter(dto -> dto != null);
         }
+
+        return result;
     }
 
     @Override
     public <DTOCollection extends Collection<DTO>> DTOCollection toCollection(
         Supplier<DTOCollection> dtoCollectionFactory)
     {
-        Stream<? extends EntityContainer> stream = streamSupplier.get();
+        Stream<DTO> stream = toStream();
 
         if (stream == null)
         {
-            if (!containsHint(Hint.OR_EMPTY))
-            {
-                return null;
-            }
-
-            stream = Stream.empty();
+            return null;
         }
 
-        DTOCollection dtos = toStream().collect(Collectors.toCollection(dtoCollectionFactory));
+        DTOCollection dtos = stream.collect(Collectors.toCollection(dtoCollectionFactory));
 
-        if (containsHint(Hint.UNMODIFIABLE))
+        if (getFlags().isUnmodifiable())
         {
             dtos = MapperUtils.toUnmodifiableCollection(dtos);
         }
@@ -106,32 +169,19 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
     public <Key, DTOMap extends Map<Key, DTO>> DTOMap toMap(Supplier<DTOMap> mapFactory,
         Function<Entity, Key> keyFunction)
     {
-        Stream<? extends EntityContainer> stream = streamSupplier.get();
-
-        if (stream == null)
-        {
-            if (!containsHint(Hint.OR_EMPTY))
-            {
-                return null;
-            }
-
-            stream = Stream.empty();
-        }
-
-        boolean keepNull = containsHint(Hint.KEEP_NULL);
+        boolean keepNull = getFlags().isKeepNull();
+        DTOMap dtos = mapFactory.get();
 
         try
         {
-            DTOMap dtos = mapFactory.get();
-
-            stream.forEach(entity -> {
+            boolean present = forEach((entity, entityContext) -> {
                 if (entity == null)
                 {
                     return;
                 }
 
                 Key key = toKey(keyFunction, entity);
-                DTO dto = transform(entity, hints);
+                DTO dto = transformWithContext(entity, entityContext);
 
                 if (dto != null || keepNull)
                 {
@@ -139,18 +189,23 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
                 }
             });
 
-            if (containsHint(Hint.UNMODIFIABLE))
+            if (!present && !getFlags().isOrEmpty())
             {
-                return MapperUtils.toUnmodifiableMap(dtos);
+                return null;
             }
-
-            return dtos;
         }
         catch (Exception e)
         {
             throw new MapperException("Failed to transform entities to a map: %s", e,
-                MapperUtils.abbreviate(String.valueOf(stream), 4096));
+                MapperUtils.abbreviate(String.valueOf(dtos), 4096));
+        }
+
+        if (getFlags().isUnmodifiable())
+        {
+            return MapperUtils.toUnmodifiableMap(dtos);
         }
+
+        return dtos;
     }
 
     @Override
@@ -158,44 +213,58 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
         Supplier<DTOMap> mapFactory, Function<Entity, GroupKey> groupKeyFunction,
         Supplier<DTOCollection> collectionFactory)
     {
-        Stream<? extends EntityContainer> stream = streamSupplier.get();
+        boolean keepNull = getFlags().isKeepNull();
+        // this implementation is null-able, in contrast to the groupingBy collector
+        Map<GroupKey, List<DTO>> groups = new HashMap<>();
 
-        if (stream == null)
+        try
         {
-            if (!containsHint(Hint.OR_EMPTY))
+            boolean present = forEach((entity, entityContext) -> {
+                GroupKey key = toKey(groupKeyFunction, entity);
+                List<DTO> group = groups.get(key);
+
+                if (group == null)
+                {
+                    group = new ArrayList<>();
+
+                    groups.put(key, group);
+                }
+
+                group.add(transformWithContext(entity, entityContext));
+            });
+
+            if (!present && !getFlags().isOrEmpty())
             {
                 return null;
             }
-
-            stream = Stream.empty();
+        }
+        catch (Exception e)
+        {
+            throw new MapperException("Failed to transform entities to a grouped map: %s", e,
+                MapperUtils.abbreviate(String.valueOf(groups), 4096));
         }
 
-        try
+        boolean unmodifiable = getFlags().isUnmodifiable();
+        Map<GroupKey, DTOCollection> dtos = mapFactory.get();
+
+        for (Entry<GroupKey, List<DTO>> group : groups.entrySet())
         {
-            Map<GroupKey, DTOCollection> dtos = MapperUtils
-                .mapMixedGroups(stream, mapFactory.get(), entity -> toKey(groupKeyFunction, entity), collectionFactory,
-                    (entity, dto) -> false, (entity, dto) -> transform(entity, hints), false,
-                    containsHint(Hint.KEEP_NULL) ? null : dto -> dto != null, map -> {
-                        if (containsHint(Hint.UNMODIFIABLE))
-                        {
-                            List<GroupKey> keys = new ArrayList<>(map.keySet());
-
-                            keys.forEach(key -> map.put(key, MapperUtils.toUnmodifiableCollection(map.get(key))));
-                        }
-                    });
-
-            if (containsHint(Hint.UNMODIFIABLE))
+            DTOCollection collection = collectionFactory.get();
+
+            group.getValue().stream().filter(dto -> dto != null || keepNull).forEach(collection::add);
+
+            if (!collection.isEmpty())
             {
-                dtos = MapperUtils.toUnmodifiableMap(dtos);
+                dtos.put(group.getKey(), unmodifiable ? MapperUtils.toUnmodifiableCollection(collection) : collection);
             }
-
-            return dtos;
         }
-        catch (Exception e)
+
+        if (unmodifiable)
         {
-            throw new MapperException("Failed to transform entities to a grouped map: %s", e,
-                MapperUtils.abbreviate(String.valueOf(stream), 4096));
+            dtos = MapperUtils.toUnmodifiableMap(dtos);
         }
+
+        return dtos;
     }
 
 }
@@ -10,13 +10,43 @@ package at.porscheinformatik.antimapper;
 public abstract class AbstractTransformer<DTO, Entity> implements Transformer<DTO, Entity>
 {
 
+    /**
+     * Transforms the entity with the hints of the context. Passes the context to an {@link AbstractTransformer} or an
+     * {@link AbstractMapper}, materializes the hints for any other transformer.
+     *
+     * @param <DTO> the type of the DTO
+     * @param <Entity> the type of the entity
+     * @param transformer the transformer
+     * @param entity the entity, may be null
+     * @param context the context, without the default hints of the transformer
+     * @return the DTO
+     */
+    static <DTO, Entity> DTO transformWithContext(Transformer<DTO, Entity> transformer, Entity entity,
+        HintContext context)
+    {
+        if (transformer instanceof AbstractTransformer<?, ?>)
+        {
+            return ((AbstractTransformer<DTO, Entity>) transformer).transformWithContext(entity, context);
+        }
+
+        if (transformer instanceof AbstractMapper<?, ?>)
+        {
+            return ((AbstractMapper<DTO, Entity>) transformer).transformWithContext(entity, context);
+        }
+
+        return transformer.transform(entity, context.toArray());
+    }
+
     private final Object[] defaultHints;
 
+    private final HintContext defaultContext;
+
     protected AbstractTransformer()
     {
         super();
 
         defaultHints = null;
+        defaultContext = HintContext.EMPTY;
     }
 
     protected AbstractTransformer(Object... defaultHints)
@@ -24,6 +54,8 @@ public abstract class AbstractTransformer<DTO, Entity> implements Transformer<DT
         super();
 
         this.defaultHints = defaultHints != null && defaultHints.length > 0 ? defaultHints : null;
+
+        defaultContext = HintContext.of(this.defaultHints);
     }
 
     @Override
@@ -35,7 +67,20 @@ public abstract class AbstractTransformer<DTO, Entity> implements Transformer<DT
     @Override
     public final DTO transform(Entity entity, Object... hints)
     {
-        hints = Hints.join(defaultHints, hints);
+        return transformWithContext(entity, HintContext.of(hints));
+    }
+
+    /**
+     * Transforms the entity with the hints of the context. The default hints are added to the context, the hints are
+     * materialized only when calling the methods of this transformer.
+     *
+     * @param entity the entity, may be null
+     * @param context the context, without the default hints
+     * @return the DTO
+     */
+    DTO transformWithContext(Entity entity, HintContext context)
+    {
+        Object[] hints = defaultContext.with(context).toArray();
 
         if (entity == null)
         {
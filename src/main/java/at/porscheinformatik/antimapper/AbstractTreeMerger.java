@@ -0,0 +1,149 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public abstract class AbstractTreeMerger<DTO, Entity> implements TreeMerger<DTO, Entity>
+{
+
+    private final Iterable<? extends DTO> dtos;
+    private final Function<? super DTO, ? extends Iterable<? extends DTO>> dtoChildrenFunction;
+    private final Object[] hints;
+
+    // resolved lazily, the transformer hints are not available in the constructor
+    private HintFlags flags = null;
+
+    protected AbstractTreeMerger(Iterable<? extends DTO> dtos,
+        Function<? super DTO, ? extends Iterable<? extends DTO>> dtoChildrenFunction, Object... hints)
+    {
+        super();
+
+        this.dtos = dtos;
+        this.dtoChildrenFunction = dtoChildrenFunction;
+        this.hints = hints;
+    }
+
+    protected abstract boolean isUniqueKeyMatchingNullable(DTO dto, Entity entity, Object[] hints);
+
+    protected abstract Entity merge(DTO dto, Entity entity, Object[] hints);
+
+    protected abstract void afterMergeIntoCollection(Collection<Entity> entities, Object[] hints);
+
+    protected abstract Object[] getTransformerHints();
+
+    /**
+     * Returns the function extracting the unique keys of DTOs and entities, if available. Without it, entities cannot
+     * be moved to another parent.
+     *
+     * @return the function, null if not available
+     */
+    protected UniqueKeyFunction<DTO, Entity> getUniqueKeyFunction()
+    {
+        return null;
+    }
+
+    private MatchFunction<DTO, Entity> createMatchFunction()
+    {
+        MatchFunction<DTO, Entity> matchFunction = (dto, entity) -> isUniqueKeyMatchingNullable(dto, entity, hints);
+        UniqueKeyFunction<DTO, Entity> uniqueKeyFunction = getUniqueKeyFunction();
+
+        if (uniqueKeyFunction == null)
+        {
+            return matchFunction;
+        }
+
+        return KeyMatchFunction
+            .of(matchFunction, dto -> uniqueKeyFunction.uniqueKeyOfDTO(dto, hints),
+                entity -> uniqueKeyFunction.uniqueKeyOfEntity(entity, hints));
+    }
+
+    protected boolean containsHint(Object object)
+    {
+        if (object instanceof Hint)
+        {
+            return getFlags().contains((Hint) object);
+        }
+
+        return Hints.containsHint(hints, object) || Hints.containsHint(getTransformerHints(), object);
+    }
+
+    /**
+     * Returns the flags of the hints, that are resolved once for all operations of this merger.
+     *
+     * @return the flags
+     */
+    private HintFlags getFlags()
+    {
+        HintFlags currentFlags = flags;
+
+        if (currentFlags == null)
+        {
+            currentFlags = HintFlags.of(getTransformerHints(), hints);
+            flags = currentFlags;
+        }
+
+        return currentFlags;
+    }
+
+    @Override
+    public <EntityCollection extends Collection<Entity>> EntityCollection intoCollection(EntityCollection entities,
+        Supplier<EntityCollection> entityCollectionFactory,
+        Function<? super Entity, ? extends Collection<Entity>> entityChildrenFunction)
+    {
+        Iterable<? extends DTO> dtos = this.dtos;
+        boolean keepMissing = getFlags().isKeepMissing();
+
+        if (dtos == null)
+        {
+            boolean orEmpty = getFlags().isOrEmpty();
+
+            if (entities == null && !orEmpty && !keepMissing)
+            {
+                return null;
+            }
+
+            dtos = Collections.emptyList();
+        }
+
+        try
+        {
+            boolean unmodifiable = getFlags().isUnmodifiable();
+
+            if (entities == null)
+            {
+                entities = entityCollectionFactory.get();
+            }
+            else if (unmodifiable)
+            {
+                EntityCollection originalEntity = entities;
+
+                entities = entityCollectionFactory.get();
+                entities.addAll(originalEntity);
+            }
+
+            boolean keepNull = getFlags().isKeepNull();
+
+            entities = MapperUtils
+                .mapTree(dtos, entities, dtoChildrenFunction, entityChildrenFunction, createMatchFunction(),
+                    (dto, entity) -> merge(dto, entity, hints), keepMissing,
+                    keepNull ? null : entity -> entity != null, list -> afterMergeIntoCollection(list, hints),
+                    getFlags().getOrderedMergeOptions());
+
+            if (unmodifiable)
+            {
+                entities = MapperUtils.toUnmodifiableCollection(entities);
+            }
+
+            return entities;
+        }
+        catch (Exception e)
+        {
+            throw new MapperException("Failed to merge DTOs into a tree: %s => %s", e,
+                MapperUtils.abbreviate(String.valueOf(dtos), 4096),
+                MapperUtils.abbreviate(String.valueOf(entities), 4096));
+        }
+    }
+
+}
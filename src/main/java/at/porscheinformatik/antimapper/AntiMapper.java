@@ -140,4 +140,16 @@ public class AntiMapper<DTO, Entity> extends AbstractMapper<DTO, Entity>
     {
         return uniqueKeyMatchingFunction.isUniqueKeyMatching(dto, entity, hints);
     }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public UniqueKeyFunction<DTO, Entity> getUniqueKeyFunction()
+    {
+        if (uniqueKeyMatchingFunction instanceof UniqueKeyFunction<?, ?>)
+        {
+            return (UniqueKeyFunction<DTO, Entity>) uniqueKeyMatchingFunction;
+        }
+
+        return null;
+    }
 }
@@ -0,0 +1,167 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link OrderedDiff} backed by the bit-parallel computation of the longest common subsequence described in "A
+ * bit-vector algorithm for computing Levenshtein and Damerau edit distances" by Heikki Hyyro (based on the algorithm of
+ * Allison and Dix). Reduces the values to their keys and processes 64 cells of the LCS table per machine word. Keeps
+ * one bit vector for each source value, thus it needs O(n*m/64) time and memory. Answers the same way as the
+ * {@link LCSTableDiff}, each answer in constant time.
+ *
+ * @author ham
+ */
+final class BitParallelDiff implements OrderedDiff
+{
+
+    private static final long[] NO_MATCHES = new long[0];
+
+    /**
+     * Computes the bit vectors for the lists.
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     * @param sourceList the source list, may be null
+     * @param targetList the target list, may not be null
+     * @param keyMatchFunction the function to extract the keys of the values
+     * @return the difference
+     */
+    static <SourceValue, TargetValue> BitParallelDiff create(List<? extends SourceValue> sourceList,
+        List<TargetValue> targetList, KeyMatchFunction<SourceValue, TargetValue> keyMatchFunction)
+    {
+        int sourceSize = (sourceList != null) ? sourceList.size() : 0;
+        int targetSize = targetList.size();
+        int wordCount = (targetSize + 63) >>> 6;
+        Map<Object, long[]> matchMasks = new HashMap<>();
+
+        // the bits are in reversed order of the target list, bit 0 is the last target value
+        for (int targetIndex = 0; targetIndex < targetSize; targetIndex++)
+        {
+            int bit = targetSize - 1 - targetIndex;
+
+            matchMasks
+                .computeIfAbsent(MapperUtils.targetKeyOf(keyMatchFunction, targetList.get(targetIndex)),
+                    key -> new long[wordCount])[bit >>> 6] |= 1L << bit;
+        }
+
+        // rows[i] describes the LCS table of the source values starting at i, a zero bit marks an increment
+        long[][] rows = new long[sourceSize + 1][];
+
+        rows[sourceSize] = new long[wordCount];
+        Arrays.fill(rows[sourceSize], -1L);
+
+        for (int sourceIndex = sourceSize - 1; sourceIndex >= 0; sourceIndex--)
+        {
+            long[] matchMask = matchMasks
+                .getOrDefault(MapperUtils.sourceKeyOf(keyMatchFunction, sourceList.get(sourceIndex)), NO_MATCHES);
+
+            rows[sourceIndex] = nextRow(rows[sourceIndex + 1], matchMask);
+        }
+
+        // prefixOnes[i][w] is the number of one bits in the words before w of rows[i], computed once per row
+        int[][] prefixOnes = new int[sourceSize + 1][];
+
+        for (int sourceIndex = sourceSize; sourceIndex >= 0; sourceIndex--)
+        {
+            prefixOnes[sourceIndex] = sourceIndex < sourceSize && rows[sourceIndex] == rows[sourceIndex + 1]
+                ? prefixOnes[sourceIndex + 1] : prefixOnes(rows[sourceIndex]);
+        }
+
+        return new BitParallelDiff(rows, prefixOnes, targetSize);
+    }
+
+    private static int[] prefixOnes(long[] row)
+    {
+        int[] result = new int[row.length + 1];
+
+        for (int i = 0; i < row.length; i++)
+        {
+            result[i + 1] = result[i] + Long.bitCount(row[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes (V + (V &amp; M)) | (V &amp; ~M) over all words, with the carry of the addition.
+     */
+    private static long[] nextRow(long[] row, long[] matchMask)
+    {
+        if (matchMask.length == 0)
+        {
+            return row;
+        }
+
+        long[] result = new long[row.length];
+        long carry = 0;
+
+        for (int i = 0; i < row.length; i++)
+        {
+            long value = row[i];
+            long matches = value & matchMask[i];
+            long sum = value + matches;
+            long nextCarry = Long.compareUnsigned(sum, value) < 0 ? 1 : 0;
+
+            sum += carry;
+
+            if (carry != 0 && sum == 0)
+            {
+                nextCarry = 1;
+            }
+
+            result[i] = sum | (value & ~matchMask[i]);
+            carry = nextCarry;
+        }
+
+        return result;
+    }
+
+    private final long[][] rows;
+    private final int[][] prefixOnes;
+    private final int targetSize;
+
+    private BitParallelDiff(long[][] rows, int[][] prefixOnes, int targetSize)
+    {
+        super();
+
+        this.rows = rows;
+        this.prefixOnes = prefixOnes;
+        this.targetSize = targetSize;
+    }
+
+    @Override
+    public boolean isAddition(int sourceIndex, int targetIndex)
+    {
+        int bit = targetSize - 1 - targetIndex;
+
+        // table[s][t] > table[s][t + 1], thus table[s + 1][t] = table[s][t]
+        if ((rows[sourceIndex][bit >>> 6] & (1L << bit)) == 0)
+        {
+            return true;
+        }
+
+        // table[s][t] == table[s][t + 1], add if table[s + 1][t] == table[s][t]
+        return zeros(sourceIndex + 1, bit + 1) == zeros(sourceIndex, bit + 1);
+    }
+
+    /**
+     * Returns the number of zero bits below the specified bit, which is the length of the longest common subsequence.
+     * Needs constant time, by using the precomputed number of one bits of the whole words.
+     */
+    private int zeros(int sourceIndex, int length)
+    {
+        int wordCount = length >>> 6;
+        int ones = prefixOnes[sourceIndex][wordCount];
+
+        if ((length & 63) != 0)
+        {
+            ones += Long.bitCount(rows[sourceIndex][wordCount] & ((1L << length) - 1));
+        }
+
+        return length - ones;
+    }
+
+}
@@ -0,0 +1,135 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The greedy diff algorithm described in "An O(ND) Difference Algorithm and Its Variations" by Eugene W. Myers, limited
+ * to a maximum number of edits. Only the diagonals within the limit are visited (like the band of the algorithm by
+ * Ukkonen), thus it needs O((n+m)*k) time and O(k*k) memory, where k is the maximum number of edits. Gives up, if the
+ * lists differ by more edits.
+ *
+ * @author ham
+ */
+final class BoundedDiff
+{
+
+    private BoundedDiff()
+    {
+        super();
+    }
+
+    /**
+     * Computes a longest common subsequence of the lists, if the lists differ by at most the specified number of edits
+     * (additions and removals).
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     * @param sourceList the source list, may be null
+     * @param targetList the target list, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param maxEditDistance the maximum number of edits
+     * @return the index of the matching target value for each source value, -1 if the source value is not part of the
+     *         subsequence, null if the lists differ by more edits
+     */
+    static <SourceValue, TargetValue> int[] match(List<? extends SourceValue> sourceList, List<TargetValue> targetList,
+        MatchFunction<SourceValue, TargetValue> matchFunction, int maxEditDistance)
+    {
+        int n = (sourceList != null) ? sourceList.size() : 0;
+        int m = targetList.size();
+
+        if (Math.abs(n - m) > maxEditDistance)
+        {
+            return null;
+        }
+
+        int maxD = Math.min(maxEditDistance, n + m);
+        int offset = maxD + 1;
+
+        // v[offset + k] holds the furthest x on diagonal k = x - y, trace holds v of each previous d
+        int[] v = new int[2 * maxD + 3];
+        List<int[]> trace = new ArrayList<>();
+
+        for (int d = 0; d <= maxD; d++)
+        {
+            for (int k = -d; k <= d; k += 2)
+            {
+                int x;
+
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]))
+                {
+                    x = v[offset + k + 1];
+                }
+                else
+                {
+                    x = v[offset + k - 1] + 1;
+                }
+
+                int y = x - k;
+
+                while (x < n && y < m && matchFunction.matches(sourceList.get(x), targetList.get(y)))
+                {
+                    x++;
+                    y++;
+                }
+
+                v[offset + k] = x;
+
+                if (x >= n && y >= m)
+                {
+                    return backtrack(trace, offset, n, d, x, y);
+                }
+            }
+
+            trace.add(v.clone());
+        }
+
+        return null;
+    }
+
+    private static int[] backtrack(List<int[]> trace, int offset, int n, int d, int x, int y)
+    {
+        int[] sourceToTarget = new int[n];
+
+        Arrays.fill(sourceToTarget, -1);
+
+        for (; d > 0; d--)
+        {
+            int[] previous = trace.get(d - 1);
+            int k = x - y;
+            int previousK;
+
+            if (k == -d || (k != d && previous[offset + k - 1] < previous[offset + k + 1]))
+            {
+                previousK = k + 1;
+            }
+            else
+            {
+                previousK = k - 1;
+            }
+
+            int previousX = previous[offset + previousK];
+            int previousY = previousX - previousK;
+
+            // the snake starts after the edit
+            int snakeX = previousK == k + 1 ? previousX : previousX + 1;
+
+            while (x > snakeX)
+            {
+                sourceToTarget[--x] = --y;
+            }
+
+            x = previousX;
+            y = previousY;
+        }
+
+        while (x > 0)
+        {
+            sourceToTarget[--x] = --y;
+        }
+
+        return sourceToTarget;
+    }
+
+}
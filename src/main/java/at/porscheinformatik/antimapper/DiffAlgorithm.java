@@ -0,0 +1,46 @@
+package at.porscheinformatik.antimapper;
+
+/**
+ * The algorithms for computing the difference between the source and the target list of an ordered merge (see
+ * {@link OrderedMergeOptions}).
+ *
+ * @author ham
+ */
+public enum DiffAlgorithm
+{
+    /**
+     * Uses the {@link #LCS_TABLE} for small lists and the {@link #LINEAR_SPACE} algorithm for large lists (see
+     * {@link OrderedMergeOptions#getLcsTableThreshold()}), even if the match function is a {@link KeyMatchFunction}.
+     * The {@link #PATIENCE} and the {@link #BIT_PARALLEL} algorithms must be selected explicitly.
+     */
+    AUTO,
+
+    /**
+     * Builds the full table of the longest common subsequence. Needs O(n*m) time and memory and calls the match
+     * function for each pair of source and target values.
+     */
+    LCS_TABLE,
+
+    /**
+     * Uses the linear space variant of the Myers algorithm. Needs O((n+m)*d) time and O(n+m) memory, where d is the
+     * number of differences. The result may differ from the {@link #LCS_TABLE}, if multiple longest common subsequences
+     * exist.
+     */
+    LINEAR_SPACE,
+
+    /**
+     * Uses the patience diff algorithm, if the match function is a {@link KeyMatchFunction}. Keys, that are unique in
+     * both lists, serve as anchors, only the values between the anchors are compared in detail. Needs nearly linear
+     * time if most keys are unique. The result may not be the longest common subsequence. Falls back to {@link #AUTO},
+     * if the match function does not provide keys.
+     */
+    PATIENCE,
+
+    /**
+     * Computes the same table as the {@link #LCS_TABLE}, but with 64 cells per machine word, if the match function is a
+     * {@link KeyMatchFunction}. Needs O(n*m/64) time and memory and calls the key functions only once for each value.
+     * The result is the same as with the {@link #LCS_TABLE}. Falls back to {@link #AUTO}, if the match function does
+     * not provide keys.
+     */
+    BIT_PARALLEL
+}
@@ -3,13 +3,17 @@ package at.porscheinformatik.antimapper;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 /**
  * Merged grouped entities.
@@ -49,6 +53,81 @@ public interface GroupMerger<DTO, Entity>
     <EntityCollection extends Collection<Entity>> EntityCollection intoOrderedCollection(EntityCollection entities,
         Supplier<EntityCollection> entityCollectionFactory);
 
+    /**
+     * Maps a grouped map to a list. Orders the list by the position of the merged entities, instead of comparing the order of the DTOs
+     * and the entities (the merge usually copies the position from the DTO to the entity). Entities with the same
+     * position keep the order of the DTOs. If the entities parameter is null, it creates a {@link List} if necessary.
+     * Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance
+     * if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if
+     * the {@link Hint#OR_EMPTY} is set.
+     *
+     * @param <EntityList> the type of the list
+     * @param entities the entities, may be null
+     * @param entityListFactory a factory for the needed list
+     * @param positionFunction the function returning the position of a merged entity
+     * @return a list
+     */
+    <EntityList extends List<Entity>> EntityList intoPositionedList(EntityList entities,
+        Supplier<EntityList> entityListFactory, ToIntFunction<? super Entity> positionFunction);
+
+    /**
+     * Maps a grouped map to a map. Ignores the order. The key of each entity is taken from the merged entity. Existing
+     * entities are matched by the merger (by hash lookups, if it provides a {@link UniqueKeyFunction}) and the map is
+     * updated in place. Missing entities are merged with null. If the entities parameter is null, it creates a
+     * {@link Map} if necessary. Ignores DTOs that merge to null (they have no key). Returns an unmodifiable instance if
+     * the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if the
+     * {@link Hint#OR_EMPTY} is set.
+     *
+     * @param <Key> the type of the keys
+     * @param <EntityMap> the type of the map
+     * @param entities the entities, may be null
+     * @param entityMapFactory a factory for the needed map
+     * @param keyFunction the function returning the key of a merged entity
+     * @return a map
+     */
+    <Key, EntityMap extends Map<Key, Entity>> EntityMap intoMap(EntityMap entities,
+        Supplier<EntityMap> entityMapFactory, Function<? super Entity, ? extends Key> keyFunction);
+
+    /**
+     * Maps a grouped map to a grouped map of collections. Ignores the order. Merges the DTOs of each group into the
+     * collection of the same group, other groups are not considered for matches. The collections of the groups are
+     * updated in place, groups without DTOs are merged with no DTOs (unless the {@link Hint#KEEP_MISSING} hint is set)
+     * and groups, that end up empty, are removed. If the entities parameter is null, it creates a {@link Map} if
+     * necessary. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an
+     * unmodifiable instance with unmodifiable collections if the {@link Hint#UNMODIFIABLE} is set (always creates new
+     * result objects in this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     *
+     * @param <GroupKey> the type of the group keys, must match the keys of the grouped DTOs
+     * @param <EntityCollection> the type of the collections
+     * @param <EntityMap> the type of the map
+     * @param entities the grouped entities, may be null
+     * @param entityMapFactory a factory for the needed map
+     * @param entityCollectionFactory a factory for the needed collections
+     * @return a map
+     */
+    <GroupKey, EntityCollection extends Collection<Entity>, EntityMap extends Map<GroupKey, EntityCollection>> EntityMap intoGroupedMixedCollections(
+        EntityMap entities, Supplier<EntityMap> entityMapFactory, Supplier<EntityCollection> entityCollectionFactory);
+
+    /**
+     * Maps a grouped map to a grouped map of collections. Keeps the order. Merges the DTOs of each group into the
+     * collection of the same group, other groups are not considered for matches. The collections of the groups are
+     * updated in place, groups without DTOs are merged with no DTOs (unless the {@link Hint#KEEP_MISSING} hint is set)
+     * and groups, that end up empty, are removed. If the entities parameter is null, it creates a {@link Map} if
+     * necessary. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an
+     * unmodifiable instance with unmodifiable collections if the {@link Hint#UNMODIFIABLE} is set (always creates new
+     * result objects in this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     *
+     * @param <GroupKey> the type of the group keys, must match the keys of the grouped DTOs
+     * @param <EntityCollection> the type of the collections
+     * @param <EntityMap> the type of the map
+     * @param entities the grouped entities, may be null
+     * @param entityMapFactory a factory for the needed map
+     * @param entityCollectionFactory a factory for the needed collections
+     * @return a map
+     */
+    <GroupKey, EntityCollection extends Collection<Entity>, EntityMap extends Map<GroupKey, EntityCollection>> EntityMap intoGroupedOrderedCollections(
+        EntityMap entities, Supplier<EntityMap> entityMapFactory, Supplier<EntityCollection> entityCollectionFactory);
+
     /**
      * Maps a grouped map to a collection. If the entities parameter is null, it creates a {@link HashSet} if necessary.
      * Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance
@@ -121,4 +200,69 @@ public interface GroupMerger<DTO, Entity>
         return intoOrderedCollection(entities, ArrayList::new);
     }
 
+    /**
+     * Maps a grouped map to a list. Orders the list by the position of the merged entities (see
+     * {@link #intoPositionedList(List, Supplier, ToIntFunction)}). If the entities parameter is null, it creates an
+     * {@link ArrayList} if necessary. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set.
+     * Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in
+     * this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     *
+     * @param entities the entities, may be null
+     * @param positionFunction the function returning the position of a merged entity
+     * @return a list
+     */
+    default List<Entity> intoArrayListByPosition(List<Entity> entities, ToIntFunction<? super Entity> positionFunction)
+    {
+        return intoPositionedList(entities, ArrayList::new, positionFunction);
+    }
+
+    /**
+     * Maps a grouped map to a map. The key of each entity is taken from the merged entity (see
+     * {@link #intoMap(Map, Supplier, Function)}). If the entities parameter is null, it creates a {@link HashMap} if
+     * necessary. Ignores DTOs that merge to null. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is
+     * set (always creates a new result object in this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     *
+     * @param <Key> the type of the keys
+     * @param entities the entities, may be null
+     * @param keyFunction the function returning the key of a merged entity
+     * @return a map
+     */
+    default <Key> Map<Key, Entity> intoHashMap(Map<Key, Entity> entities,
+        Function<? super Entity, ? extends Key> keyFunction)
+    {
+        return intoMap(entities, HashMap::new, keyFunction);
+    }
+
+    /**
+     * Maps a grouped map to a grouped map of sets (see
+     * {@link #intoGroupedMixedCollections(Map, Supplier, Supplier)}). If the entities parameter is null, it creates a
+     * {@link HashMap} if necessary, the groups are {@link HashSet}s. Ignores DTOs that merge to null, unless the
+     * {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set
+     * (always creates new result objects in this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     *
+     * @param <GroupKey> the type of the group keys
+     * @param entities the grouped entities, may be null
+     * @return a map
+     */
+    default <GroupKey> Map<GroupKey, Set<Entity>> intoGroupedHashSets(Map<GroupKey, Set<Entity>> entities)
+    {
+        return intoGroupedMixedCollections(entities, HashMap::new, HashSet::new);
+    }
+
+    /**
+     * Maps a grouped map to a grouped map of lists (see
+     * {@link #intoGroupedOrderedCollections(Map, Supplier, Supplier)}). If the entities parameter is null, it creates a
+     * {@link HashMap} if necessary, the groups are {@link ArrayList}s. Ignores DTOs that merge to null, unless the
+     * {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set
+     * (always creates new result objects in this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     *
+     * @param <GroupKey> the type of the group keys
+     * @param entities the grouped entities, may be null
+     * @return a map
+     */
+    default <GroupKey> Map<GroupKey, List<Entity>> intoGroupedArrayLists(Map<GroupKey, List<Entity>> entities)
+    {
+        return intoGroupedOrderedCollections(entities, HashMap::new, ArrayList::new);
+    }
+
 }
@@ -0,0 +1,375 @@
+package at.porscheinformatik.antimapper;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The hints of an internal merge or transformation. The context is immutable and linked to its parent context, thus
+ * adding hints (e.g. the key of a group, the parent of flattened values or the entity) takes O(1) and shares the hints
+ * of the parent. The hints are materialized as plain array only when they are passed to the methods of a
+ * {@link Merger} or {@link Transformer}, the array is computed once per context. Contexts with many hints index them
+ * by type when they are constructed, thus looking up a hint by type does not scan them.
+ *
+ * @author ham
+ */
+final class HintContext
+{
+
+    /**
+     * Segments with less hints are scanned, a slot table does not pay off for them.
+     */
+    private static final int MIN_SLOT_TABLE_SIZE = 4;
+
+    /**
+     * The types, that the instances of a class are assignable to (the class, its super classes and interfaces).
+     */
+    private static final ClassValue<Class<?>[]> TYPES = new ClassValue<Class<?>[]>()
+    {
+        @Override
+        protected Class<?>[] computeValue(Class<?> type)
+        {
+            Set<Class<?>> types = new LinkedHashSet<>();
+
+            collectTypes(types, type);
+
+            return types.toArray(new Class<?>[types.size()]);
+        }
+    };
+
+    static final HintContext EMPTY = new HintContext(null, new Object[0], null);
+
+    /**
+     * Returns the context of the hints. Keeps the array, it is returned by {@link #toArray()}.
+     *
+     * @param hints the hints, may be null
+     * @return the context, never null
+     */
+    static HintContext of(Object[] hints)
+    {
+        return EMPTY.with(hints);
+    }
+
+    private final HintContext parent;
+    private final Object[] hints;
+    private final HintContext joined;
+    private final int size;
+
+    // the indices of the hints, that match a type, the last one first, null if the segment is scanned
+    private final Map<Class<?>, int[]> slots;
+
+    // the materialized hints, computed on demand, any thread computes the same array
+    private volatile Object[] array;
+
+    private HintContext(HintContext parent, Object[] hints, HintContext joined)
+    {
+        super();
+
+        this.parent = parent;
+        this.hints = hints;
+        this.joined = joined;
+
+        size = (parent != null ? parent.size : 0) + (hints != null ? hints.length : joined.size);
+        array = parent == null ? hints : null;
+        slots = hints != null && hints.length >= MIN_SLOT_TABLE_SIZE ? createSlots(hints) : null;
+    }
+
+    /**
+     * Returns the context with the hints added behind the hints of this context.
+     *
+     * @param additionalHints the hints, may be null
+     * @return the context, this one if there are no hints to add
+     */
+    HintContext with(Object... additionalHints)
+    {
+        if (additionalHints == null || additionalHints.length == 0)
+        {
+            return this;
+        }
+
+        return new HintContext(size > 0 ? this : null, additionalHints, null);
+    }
+
+    /**
+     * Returns the context with the hints of the specified context added behind the hints of this context.
+     *
+     * @param context the context, may be null
+     * @return the context
+     */
+    HintContext with(HintContext context)
+    {
+        if (context == null || context.size == 0)
+        {
+            return this;
+        }
+
+        if (size == 0)
+        {
+            return context;
+        }
+
+        return new HintContext(this, null, context);
+    }
+
+    /**
+     * Returns the hints as plain array. The array must not be modified.
+     *
+     * @return the hints, never null
+     */
+    Object[] toArray()
+    {
+        Object[] result = array;
+
+        if (result == null)
+        {
+            result = new Object[size];
+
+            copyInto(result, size);
+
+            array = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the last hint of the specified type, see {@link Hints#hintOrNull(Object[], Class)}.
+     *
+     * @param <Any> the type of the hint
+     * @param type the type
+     * @return the hint, null if not available
+     */
+    <Any> Any hintOrNull(Class<Any> type)
+    {
+        for (HintContext context = this; context != null; context = context.parent)
+        {
+            Any value = context.hintOfSegmentOrNull(type);
+
+            if (value != null)
+            {
+                return value;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns true if the context contains a hint of the specified type, see
+     * {@link Hints#containsHint(Object[], Class)}.
+     *
+     * @param type the type
+     * @return true if available
+     */
+    boolean containsHint(Class<?> type)
+    {
+        for (HintContext context = this; context != null; context = context.parent)
+        {
+            if (context.segmentContainsHint(type))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns true if the context contains a hint, that equals the specified object.
+     *
+     * @param object the object
+     * @return true if available
+     */
+    boolean containsHint(Object object)
+    {
+        for (HintContext context = this; context != null; context = context.parent)
+        {
+            if (context.hints != null ? Hints.containsHint(context.hints, object) : context.joined.containsHint(object))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Hints.toClassString(toArray());
+    }
+
+    /**
+     * Returns the last hint of the own hints (or the joined context) of the specified type.
+     */
+    @SuppressWarnings("unchecked")
+    private <Any> Any hintOfSegmentOrNull(Class<Any> type)
+    {
+        if (joined != null)
+        {
+            return joined.hintOrNull(type);
+        }
+
+        if (slots == null)
+        {
+            return Hints.hintOrNull(hints, type);
+        }
+
+        int[] indices = slots.get(type);
+
+        if (indices == null)
+        {
+            return null;
+        }
+
+        // the candidates are tested like the hints are scanned, a lazy hint may have no value of the type
+        for (int index : indices)
+        {
+            Object hint = hints[index];
+
+            if (type.isInstance(hint))
+            {
+                return (Any) hint;
+            }
+
+            Any value = LazyHint.valueOf(hint, type);
+
+            if (value != null)
+            {
+                return value;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns true if the own hints (or the joined context) contain a hint of the specified type.
+     */
+    private boolean segmentContainsHint(Class<?> type)
+    {
+        if (joined != null)
+        {
+            return joined.containsHint(type);
+        }
+
+        if (slots == null)
+        {
+            return Hints.containsHint(hints, type);
+        }
+
+        return slots.containsKey(type);
+    }
+
+    /**
+     * Creates the slot table of the hints: each type, that a hint is an instance of (or the type of a lazy hint is
+     * assignable to), maps to the indices of the matching hints, the last one first.
+     */
+    private static Map<Class<?>, int[]> createSlots(Object[] hints)
+    {
+        Map<Class<?>, List<Integer>> indices = new HashMap<>();
+
+        for (int i = hints.length - 1; i >= 0; i--)
+        {
+            Object hint = hints[i];
+
+            if (hint == null)
+            {
+                continue;
+            }
+
+            addSlots(indices, TYPES.get(hint.getClass()), i);
+
+            if (hint instanceof LazyHint<?>)
+            {
+                addSlots(indices, TYPES.get(((LazyHint<?>) hint).getType()), i);
+            }
+        }
+
+        Map<Class<?>, int[]> slots = new HashMap<>(indices.size() * 4 / 3 + 1);
+
+        indices.forEach((type, list) -> slots.put(type, list.stream().mapToInt(Integer::intValue).toArray()));
+
+        return slots;
+    }
+
+    private static void addSlots(Map<Class<?>, List<Integer>> indices, Class<?>[] types, int index)
+    {
+        for (Class<?> type : types)
+        {
+            List<Integer> list = indices.computeIfAbsent(type, key -> new ArrayList<>(1));
+
+            if (list.isEmpty() || list.get(list.size() - 1) != index)
+            {
+                list.add(index);
+            }
+        }
+    }
+
+    /**
+     * Collects the types, that the instances of the type are assignable to. Arrays are covariant, an array of a type
+     * is an array of each of its super types, too.
+     */
+    private static void collectTypes(Set<Class<?>> types, Class<?> type)
+    {
+        if (!types.add(type) || type.isPrimitive())
+        {
+            return;
+        }
+
+        if (type.getSuperclass() != null)
+        {
+            collectTypes(types, type.getSuperclass());
+        }
+
+        for (Class<?> interfaceType : type.getInterfaces())
+        {
+            collectTypes(types, interfaceType);
+        }
+
+        // interfaces have no super class, but they are assignable to objects
+        types.add(Object.class);
+
+        Class<?> componentType = type.getComponentType();
+
+        if (componentType != null && !componentType.isPrimitive())
+        {
+            for (Class<?> componentSuperType : TYPES.get(componentType))
+            {
+                types.add(Array.newInstance(componentSuperType, 0).getClass());
+            }
+        }
+    }
+
+    /**
+     * Copies the hints into the array, the last hint to the index in front of the specified end.
+     */
+    private void copyInto(Object[] target, int end)
+    {
+        Object[] own = hints != null ? hints : joined.toArray();
+        int start = end - own.length;
+
+        System.arraycopy(own, 0, target, start, own.length);
+
+        if (parent == null)
+        {
+            return;
+        }
+
+        Object[] parentArray = parent.array;
+
+        if (parentArray != null)
+        {
+            System.arraycopy(parentArray, 0, target, 0, parentArray.length);
+        }
+        else
+        {
+            parent.copyInto(target, start);
+        }
+    }
+
+}
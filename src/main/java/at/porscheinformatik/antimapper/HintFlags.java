@@ -0,0 +1,107 @@
+package at.porscheinformatik.antimapper;
+
+/**
+ * The {@link Hint} flags and the {@link OrderedMergeOptions}, resolved once from the hints of a transformer or merger.
+ * Thus the hints do not have to be scanned for each flag, each time it is needed. The flags are immutable.
+ *
+ * @author ham
+ */
+final class HintFlags
+{
+
+    private static final int OR_EMPTY = 1 << Hint.OR_EMPTY.ordinal();
+    private static final int KEEP_NULL = 1 << Hint.KEEP_NULL.ordinal();
+    private static final int KEEP_MISSING = 1 << Hint.KEEP_MISSING.ordinal();
+    private static final int UNMODIFIABLE = 1 << Hint.UNMODIFIABLE.ordinal();
+
+    /**
+     * Resolves the flags of the hints of the transformer and the hints of the call. The options of the call win.
+     *
+     * @param transformerHints the hints of the transformer, may be null
+     * @param hints the hints of the call, may be null
+     * @return the flags, never null
+     */
+    static HintFlags of(Object[] transformerHints, Object[] hints)
+    {
+        int mask = 0;
+        OrderedMergeOptions orderedMergeOptions = OrderedMergeOptions.DEFAULT;
+
+        for (Object[] currentHints : new Object[][]{transformerHints, hints})
+        {
+            if (currentHints == null)
+            {
+                continue;
+            }
+
+            for (Object hint : currentHints)
+            {
+                if (hint instanceof Hint)
+                {
+                    mask |= 1 << ((Hint) hint).ordinal();
+                }
+                else if (hint instanceof OrderedMergeOptions)
+                {
+                    orderedMergeOptions = (OrderedMergeOptions) hint;
+                }
+                else if (hint instanceof LazyHint<?>)
+                {
+                    OrderedMergeOptions lazyOrderedMergeOptions = LazyHint.valueOf(hint, OrderedMergeOptions.class);
+
+                    if (lazyOrderedMergeOptions != null)
+                    {
+                        orderedMergeOptions = lazyOrderedMergeOptions;
+                    }
+                }
+            }
+        }
+
+        return new HintFlags(mask, orderedMergeOptions);
+    }
+
+    private final int mask;
+    private final OrderedMergeOptions orderedMergeOptions;
+
+    private HintFlags(int mask, OrderedMergeOptions orderedMergeOptions)
+    {
+        super();
+
+        this.mask = mask;
+        this.orderedMergeOptions = orderedMergeOptions;
+    }
+
+    boolean contains(Hint hint)
+    {
+        return (mask & 1 << hint.ordinal()) != 0;
+    }
+
+    boolean isOrEmpty()
+    {
+        return (mask & OR_EMPTY) != 0;
+    }
+
+    boolean isKeepNull()
+    {
+        return (mask & KEEP_NULL) != 0;
+    }
+
+    boolean isKeepMissing()
+    {
+        return (mask & KEEP_MISSING) != 0;
+    }
+
+    boolean isUnmodifiable()
+    {
+        return (mask & UNMODIFIABLE) != 0;
+    }
+
+    /**
+     * Returns the last {@link OrderedMergeOptions} of the hints.
+     *
+     * @return the options, the default options if there are none
+     */
+    OrderedMergeOptions getOrderedMergeOptions()
+    {
+        return orderedMergeOptions;
+    }
+
+}
@@ -0,0 +1,101 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A value with the hint context, that is used for mapping it. Used for flattening parents (or groups) of merges: the
+ * hint of the parent is added to the context once per parent and shared by all its children, instead of joining the
+ * hints for each child and each time the child gets matched or mapped. The children of all parents are matched with
+ * the entities of one collection (e.g. by indexing them), thus each child needs to keep the context of its parent.
+ * Transformations do not need it, they transform the children of a parent while they stream the parent.
+ *
+ * @author ham
+ * @param <Value> the type of the value
+ */
+final class HintedValue<Value>
+{
+
+    /**
+     * Flattens the parents. The parent is added to the context once per parent.
+     *
+     * @param <Parent> the type of the parents
+     * @param <Value> the type of the children
+     * @param parents the parents, null parents are ignored
+     * @param childrenFunction returns the children of a parent, may return null
+     * @param context the context
+     * @return the children with the contexts of their parents
+     */
+    static <Parent, Value> Stream<HintedValue<Value>> flatten(Stream<? extends Parent> parents,
+        Function<? super Parent, ? extends Stream<? extends Value>> childrenFunction, HintContext context)
+    {
+        return flatten(parents, Function.identity(), childrenFunction, context);
+    }
+
+    /**
+     * Flattens the parents. The hint of the parent (e.g. the key of a group) is added to the context once per parent.
+     *
+     * @param <Parent> the type of the parents
+     * @param <Value> the type of the children
+     * @param parents the parents, null parents are ignored
+     * @param parentHintFunction returns the hint of a parent
+     * @param childrenFunction returns the children of a parent, may return null
+     * @param context the context
+     * @return the children with the contexts of their parents
+     */
+    static <Parent, Value> Stream<HintedValue<Value>> flatten(Stream<? extends Parent> parents,
+        Function<? super Parent, ?> parentHintFunction,
+        Function<? super Parent, ? extends Stream<? extends Value>> childrenFunction, HintContext context)
+    {
+        return parents.filter(parent -> parent != null).flatMap(parent -> {
+            HintContext parentContext = context.with(parentHintFunction.apply(parent));
+
+            return MapperUtils
+                .streamOrEmpty(childrenFunction.apply(parent))
+                .map(value -> new HintedValue<Value>(value, parentContext));
+        });
+    }
+
+    static <Value> Value valueOf(HintedValue<? extends Value> hintedValue)
+    {
+        return hintedValue != null ? hintedValue.value : null;
+    }
+
+    private final Value value;
+    private final HintContext context;
+
+    HintedValue(Value value, HintContext context)
+    {
+        super();
+
+        this.value = value;
+        this.context = context;
+    }
+
+    Value getValue()
+    {
+        return value;
+    }
+
+    HintContext getContext()
+    {
+        return context;
+    }
+
+    /**
+     * Returns the hints of the context, they are materialized once for all children of a parent.
+     *
+     * @return the hints
+     */
+    Object[] getHints()
+    {
+        return context.toArray();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.valueOf(value);
+    }
+
+}
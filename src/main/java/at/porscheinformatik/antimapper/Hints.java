@@ -20,7 +20,8 @@ public final class Hints
     }
 
     /**
-     * Joins the left and right array
+     * Joins the left and right array. The result is a plain array, that contains the hints of both arrays, thus it may
+     * be iterated like any other hints array.
      *
      * @param left the left array
      * @param right the right array
@@ -107,7 +108,8 @@ public final class Hints
     }
 
     /**
-     * Returns the hint of the specified type, null if not available
+     * Returns the hint of the specified type, null if not available. A {@link LazyHint} of the type gets computed on
+     * the first lookup.
      *
      * @param <Any> the type of the hint
      * @param hints the hints
@@ -121,9 +123,18 @@ public final class Hints
         {
             for (int i = hints.length - 1; i >= 0; i--)
             {
-                if (type.isInstance(hints[i]))
+                Object hint = hints[i];
+
+                if (type.isInstance(hint))
                 {
-                    return (Any) hints[i];
+                    return (Any) hint;
+                }
+
+                Any value = LazyHint.valueOf(hint, type);
+
+                if (value != null)
+                {
+                    return value;
                 }
             }
         }
@@ -145,7 +156,8 @@ public final class Hints
     }
 
     /**
-     * Returns true if the hints contain at least one value of the specified type.
+     * Returns true if the hints contain at least one value of the specified type. A {@link LazyHint} of the type counts
+     * as value, without computing it.
      *
      * @param hints the hints
      * @param type the type
@@ -157,7 +169,7 @@ public final class Hints
         {
             for (Object hint : hints)
             {
-                if (type.isInstance(hint))
+                if (type.isInstance(hint) || LazyHint.isOfType(hint, type))
                 {
                     return true;
                 }
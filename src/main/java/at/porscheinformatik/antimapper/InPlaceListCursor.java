@@ -0,0 +1,173 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A {@link ListCursor} that modifies the target list directly.
+ *
+ * @author ham
+ * @param <TargetValue> the type of the target values
+ */
+final class InPlaceListCursor<TargetValue> extends ListCursor<TargetValue>
+{
+
+    private final List<TargetValue> targetList;
+
+    private int index = 0;
+
+    // the following fields are only used when stealing by key
+    private int position = 0;
+    private KeyIndex<Integer> keyIndex = null;
+    private boolean[] stolen = null;
+    private int[] stolenTree = null;
+
+    InPlaceListCursor(List<TargetValue> targetList)
+    {
+        super();
+
+        this.targetList = targetList;
+    }
+
+    @Override
+    boolean hasCurrent()
+    {
+        return index < targetList.size();
+    }
+
+    @Override
+    TargetValue current()
+    {
+        return targetList.get(index);
+    }
+
+    @Override
+    void replace(TargetValue value)
+    {
+        targetList.set(index++, value);
+
+        next();
+    }
+
+    @Override
+    void remove()
+    {
+        targetList.remove(index);
+
+        next();
+    }
+
+    @Override
+    void insert(TargetValue value)
+    {
+        targetList.add(index++, value);
+    }
+
+    @Override
+    TargetValue steal(Predicate<? super TargetValue> predicate)
+    {
+        for (int i = index + 1; i < targetList.size(); i++)
+        {
+            if (predicate.test(targetList.get(i)))
+            {
+                return targetList.remove(i);
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    TargetValue steal(Object key, Function<? super TargetValue, Object> keyFunction)
+    {
+        if (keyIndex == null)
+        {
+            // the positions refer to the values of the original list, that are remaining
+            int size = position + targetList.size() - index;
+
+            keyIndex = new KeyIndex<>(size - position);
+            stolen = new boolean[size];
+            stolenTree = new int[size + 1];
+
+            for (int i = index + 1; i < targetList.size(); i++)
+            {
+                keyIndex.add(keyFunction.apply(targetList.get(i)), position + i - index);
+            }
+        }
+
+        Integer stolenPosition = keyIndex.poll(key);
+
+        // skip all values, that have been passed in the meantime
+        while (stolenPosition != null && stolenPosition <= position)
+        {
+            stolenPosition = keyIndex.poll(key);
+        }
+
+        if (stolenPosition == null)
+        {
+            return null;
+        }
+
+        // the values between the current one and the stolen one, that are still in the list
+        int distance = stolenPosition - position - (countStolen(stolenPosition) - countStolen(position));
+        TargetValue value = targetList.remove(index + distance);
+
+        stolen[stolenPosition] = true;
+
+        for (int i = stolenPosition + 1; i < stolenTree.length; i += i & -i)
+        {
+            stolenTree[i]++;
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the number of stolen values in front of the specified position.
+     */
+    private int countStolen(int end)
+    {
+        int count = 0;
+
+        for (int i = end; i > 0; i -= i & -i)
+        {
+            count += stolenTree[i];
+        }
+
+        return count;
+    }
+
+    private void next()
+    {
+        position++;
+
+        // skip all values, that have been removed in advance
+        while (stolen != null && position < stolen.length && stolen[position])
+        {
+            position++;
+        }
+    }
+
+    @Override
+    void removeRemaining(Consumer<? super TargetValue> consumer)
+    {
+        if (index < targetList.size())
+        {
+            List<TargetValue> remainingTargetValues = targetList.subList(index, targetList.size());
+
+            remainingTargetValues.forEach(consumer);
+
+            // removes all at once, instead of shifting the remaining values for each single value
+            remainingTargetValues.clear();
+        }
+    }
+
+    @Override
+    void finish()
+    {
+        // intentionally left blank
+    }
+
+}
@@ -0,0 +1,214 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A {@link ListCursor} that modifies the target list directly through a {@link ListIterator}. Used for lists without
+ * {@link java.util.RandomAccess} (e.g. a {@link java.util.LinkedList}), where each access by index would have to walk
+ * the list. Walks the list only once: values are stolen from a snapshot of the remaining values, that is taken when
+ * stealing the first value, and they are unlinked when the iterator reaches them.
+ *
+ * @author ham
+ * @param <TargetValue> the type of the target values
+ */
+final class IteratorListCursor<TargetValue> extends ListCursor<TargetValue>
+{
+
+    private final List<TargetValue> targetList;
+    private final ListIterator<TargetValue> iterator;
+
+    // true if the iterator has returned the current value and is positioned behind it
+    private boolean loaded = false;
+    private TargetValue current = null;
+
+    // the following fields are only used when stealing, the index refers to the value the iterator returns next
+    private Object[] snapshot = null;
+    private boolean[] stolen = null;
+    private int index = 0;
+    private KeyIndex<Integer> keyIndex = null;
+
+    IteratorListCursor(List<TargetValue> targetList)
+    {
+        super();
+
+        this.targetList = targetList;
+
+        iterator = targetList.listIterator();
+    }
+
+    @Override
+    boolean hasCurrent()
+    {
+        return load();
+    }
+
+    @Override
+    TargetValue current()
+    {
+        load();
+
+        return current;
+    }
+
+    @Override
+    void replace(TargetValue value)
+    {
+        load();
+
+        iterator.set(value);
+        loaded = false;
+    }
+
+    @Override
+    void remove()
+    {
+        load();
+
+        iterator.remove();
+        loaded = false;
+    }
+
+    @Override
+    void insert(TargetValue value)
+    {
+        if (loaded)
+        {
+            // move in front of the current value
+            iterator.previous();
+            loaded = false;
+
+            if (snapshot != null)
+            {
+                index--;
+            }
+        }
+
+        iterator.add(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    TargetValue steal(Predicate<? super TargetValue> predicate)
+    {
+        takeSnapshot();
+
+        for (int i = index; i < snapshot.length; i++)
+        {
+            if (stolen[i])
+            {
+                continue;
+            }
+
+            TargetValue value = (TargetValue) snapshot[i];
+
+            if (predicate.test(value))
+            {
+                stolen[i] = true;
+
+                return value;
+            }
+        }
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    TargetValue steal(Object key, Function<? super TargetValue, Object> keyFunction)
+    {
+        takeSnapshot();
+
+        if (keyIndex == null)
+        {
+            keyIndex = new KeyIndex<>(snapshot.length - index);
+
+            for (int i = index; i < snapshot.length; i++)
+            {
+                if (!stolen[i])
+                {
+                    keyIndex.add(keyFunction.apply((TargetValue) snapshot[i]), i);
+                }
+            }
+        }
+
+        Integer position = keyIndex.poll(key);
+
+        // skip all values, that have been passed in the meantime
+        while (position != null && position < index)
+        {
+            position = keyIndex.poll(key);
+        }
+
+        if (position == null)
+        {
+            return null;
+        }
+
+        stolen[position] = true;
+
+        return (TargetValue) snapshot[position];
+    }
+
+    @Override
+    void removeRemaining(Consumer<? super TargetValue> consumer)
+    {
+        while (load())
+        {
+            consumer.accept(current);
+            iterator.remove();
+            loaded = false;
+        }
+    }
+
+    @Override
+    void finish()
+    {
+        // intentionally left blank
+    }
+
+    /**
+     * Moves the iterator behind the current value, unless it is there already. Unlinks all values, that have been
+     * stolen in advance, on the way.
+     *
+     * @return true if there is a current value
+     */
+    private boolean load()
+    {
+        while (!loaded && iterator.hasNext())
+        {
+            TargetValue value = iterator.next();
+
+            if (snapshot != null && stolen[index++])
+            {
+                iterator.remove();
+
+                continue;
+            }
+
+            current = value;
+            loaded = true;
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Takes the snapshot of the current value and all following values, unless it has been taken already.
+     */
+    private void takeSnapshot()
+    {
+        load();
+
+        if (snapshot == null)
+        {
+            snapshot = targetList.subList(iterator.previousIndex(), targetList.size()).toArray();
+            stolen = new boolean[snapshot.length];
+            index = 1;
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A hash index of values by key. Multiple values may share the same key, they are returned in the order they have been
+ * added. Most keys are unique, thus single values are stored without any additional container.
+ *
+ * @author ham
+ * @param <Value> the type of the values
+ */
+final class KeyIndex<Value>
+{
+
+    /**
+     * Container for values sharing the same key.
+     */
+    private static final class Bucket extends ArrayDeque<Object>
+    {
+        private static final long serialVersionUID = -2491466025046396826L;
+
+        Bucket()
+        {
+            super(4);
+        }
+    }
+
+    private final Map<Object, Object> entries;
+
+    KeyIndex(int expectedSize)
+    {
+        super();
+
+        entries = new HashMap<>(Math.max(16, (int) (expectedSize / 0.75f) + 1));
+    }
+
+    /**
+     * Adds the value to the index.
+     *
+     * @param key the key, may be null
+     * @param value the value, never null
+     */
+    void add(Object key, Value value)
+    {
+        Object entry = entries.putIfAbsent(key, value);
+
+        if (entry == null)
+        {
+            return;
+        }
+
+        if (entry instanceof Bucket)
+        {
+            ((Bucket) entry).add(value);
+
+            return;
+        }
+
+        Bucket bucket = new Bucket();
+
+        bucket.add(entry);
+        bucket.add(value);
+
+        entries.put(key, bucket);
+    }
+
+    /**
+     * Returns the first value with the specified key without removing it.
+     *
+     * @param key the key, may be null
+     * @return the value, null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    Value peek(Object key)
+    {
+        Object entry = entries.get(key);
+
+        if (entry instanceof Bucket)
+        {
+            return (Value) ((Bucket) entry).peekFirst();
+        }
+
+        return (Value) entry;
+    }
+
+    /**
+     * Removes and returns the first value with the specified key.
+     *
+     * @param key the key, may be null
+     * @return the value, null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    Value poll(Object key)
+    {
+        Object entry = entries.get(key);
+
+        if (entry == null)
+        {
+            return null;
+        }
+
+        if (!(entry instanceof Bucket))
+        {
+            entries.remove(key);
+
+            return (Value) entry;
+        }
+
+        Bucket bucket = (Bucket) entry;
+        Object value = bucket.pollFirst();
+
+        if (bucket.isEmpty())
+        {
+            entries.remove(key);
+        }
+
+        return (Value) value;
+    }
+
+    boolean isEmpty()
+    {
+        return entries.isEmpty();
+    }
+
+}
@@ -0,0 +1,117 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A {@link MatchFunction} that knows the keys of the objects it compares. Two non-null objects match, if their keys are
+ * equal. The mapping methods in the {@link MapperUtils} use the keys to build hash indices instead of comparing each
+ * left object with each right object.
+ *
+ * @param <DTO> the type of the left object
+ * @param <Entity> the type of the right object
+ * @author ham
+ */
+public interface KeyMatchFunction<DTO, Entity> extends MatchFunction<DTO, Entity>
+{
+
+    /**
+     * Creates a {@link KeyMatchFunction} that compares the keys returned by the specified functions.
+     *
+     * @param <DTO> the type of the left object
+     * @param <Entity> the type of the right object
+     * @param leftKeyFunction the function extracting the key of the left object
+     * @param rightKeyFunction the function extracting the key of the right object
+     * @return the function
+     */
+    static <DTO, Entity> KeyMatchFunction<DTO, Entity> of(Function<? super DTO, ?> leftKeyFunction,
+        Function<? super Entity, ?> rightKeyFunction)
+    {
+        return new KeyMatchFunction<DTO, Entity>()
+        {
+            @Override
+            public Object leftKey(DTO left)
+            {
+                return leftKeyFunction.apply(left);
+            }
+
+            @Override
+            public Object rightKey(Entity right)
+            {
+                return rightKeyFunction.apply(right);
+            }
+        };
+    }
+
+    /**
+     * Creates a {@link KeyMatchFunction} that uses the specified match function for comparing objects and the key
+     * functions for building indices. The match function must be consistent with the keys: it must return true, if and
+     * only if the keys are equal.
+     *
+     * @param <DTO> the type of the left object
+     * @param <Entity> the type of the right object
+     * @param matchFunction the match function
+     * @param leftKeyFunction the function extracting the key of the left object
+     * @param rightKeyFunction the function extracting the key of the right object
+     * @return the function
+     */
+    static <DTO, Entity> KeyMatchFunction<DTO, Entity> of(MatchFunction<DTO, Entity> matchFunction,
+        Function<? super DTO, ?> leftKeyFunction, Function<? super Entity, ?> rightKeyFunction)
+    {
+        return new KeyMatchFunction<DTO, Entity>()
+        {
+            @Override
+            public boolean matches(DTO left, Entity right)
+            {
+                return matchFunction.matches(left, right);
+            }
+
+            @Override
+            public Object leftKey(DTO left)
+            {
+                return leftKeyFunction.apply(left);
+            }
+
+            @Override
+            public Object rightKey(Entity right)
+            {
+                return rightKeyFunction.apply(right);
+            }
+        };
+    }
+
+    /**
+     * Returns the key of the left object. The key may be null.
+     *
+     * @param left the left object, never null
+     * @return the key
+     */
+    Object leftKey(DTO left);
+
+    /**
+     * Returns the key of the right object. The key may be null.
+     *
+     * @param right the right object, never null
+     * @return the key
+     */
+    Object rightKey(Entity right);
+
+    /**
+     * Returns true if the keys of both objects are equal. A null object only matches another null object.
+     *
+     * @param left the left object, may be null
+     * @param right the right object, may be null
+     * @return true if the left object matches the right object, false otherwise
+     */
+    @Override
+    default boolean matches(DTO left, Entity right)
+    {
+        if (left == null || right == null)
+        {
+            return left == right;
+        }
+
+        return Objects.equals(leftKey(left), rightKey(right));
+    }
+
+}
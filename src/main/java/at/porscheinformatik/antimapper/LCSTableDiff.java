@@ -0,0 +1,59 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.List;
+
+/**
+ * An {@link OrderedDiff} backed by the full table of the longest common subsequence.
+ *
+ * @author ham
+ */
+final class LCSTableDiff implements OrderedDiff
+{
+
+    @SuppressWarnings("null")
+    static <SourceValue, TargetValue> LCSTableDiff create(List<? extends SourceValue> sourceList,
+        List<TargetValue> targetList, MatchFunction<SourceValue, TargetValue> matchFunction)
+    {
+        int sourceSize = (sourceList != null) ? sourceList.size() : 0;
+        int targetSize = targetList.size();
+        int[][] table = new int[sourceSize + 1][targetSize + 1];
+
+        for (int sourceIndex = sourceSize; sourceIndex >= 0; sourceIndex--)
+        {
+            for (int targetIndex = targetSize - 1; targetIndex >= 0; targetIndex--)
+            {
+                if (sourceIndex >= sourceSize)
+                {
+                    table[sourceIndex][targetIndex] = 0;
+                }
+                else if (matchFunction.matches(sourceList.get(sourceIndex), targetList.get(targetIndex)))
+                {
+                    table[sourceIndex][targetIndex] = table[sourceIndex + 1][targetIndex + 1] + 1;
+                }
+                else
+                {
+                    table[sourceIndex][targetIndex] =
+                        Math.max(table[sourceIndex + 1][targetIndex], table[sourceIndex][targetIndex + 1]);
+                }
+            }
+        }
+
+        return new LCSTableDiff(table);
+    }
+
+    private final int[][] table;
+
+    private LCSTableDiff(int[][] table)
+    {
+        super();
+
+        this.table = table;
+    }
+
+    @Override
+    public boolean isAddition(int sourceIndex, int targetIndex)
+    {
+        return table[sourceIndex + 1][targetIndex] >= table[sourceIndex][targetIndex + 1];
+    }
+
+}
@@ -0,0 +1,135 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A hint, that is computed on the first lookup of its type (e.g. by {@link Hints#hint(Object[], Class)}) and memoised
+ * afterwards. Pass it as hint instead of the value, if the value is expensive to compute, but only needed by a few
+ * mappers. A lookup for the specified type (or one of its super types) returns the value, not the lazy hint itself.
+ * If the supplier returns null, the lookup continues with the preceding hints.
+ * {@link Hints#containsHint(Object[], Class)} checks the type of the lazy hint only, it does not compute the value.
+ *
+ * @author ham
+ * @param <Any> the type of the hint
+ */
+public final class LazyHint<Any>
+{
+
+    /**
+     * Creates a lazy hint.
+     *
+     * @param <Any> the type of the hint
+     * @param type the type of the hint, the value is looked up by this type, may not be null
+     * @param supplier the supplier of the value, called once at most, may not be null
+     * @return the lazy hint
+     */
+    public static <Any> LazyHint<Any> of(Class<Any> type, Supplier<? extends Any> supplier)
+    {
+        return new LazyHint<>(type, supplier);
+    }
+
+    /**
+     * Returns true if the hint is a lazy hint of the specified type (or one of its sub types). Does not compute the
+     * value.
+     *
+     * @param hint the hint, may be null
+     * @param type the type
+     * @return true if it is a lazy hint of the type
+     */
+    static boolean isOfType(Object hint, Class<?> type)
+    {
+        return hint instanceof LazyHint<?> && type.isAssignableFrom(((LazyHint<?>) hint).type);
+    }
+
+    /**
+     * Returns the value of the hint, if it is a lazy hint of the specified type (or one of its sub types).
+     *
+     * @param <Any> the type
+     * @param hint the hint, may be null
+     * @param type the type
+     * @return the value, null if the hint is not a lazy hint of the type, or if its value is null
+     */
+    @SuppressWarnings("unchecked")
+    static <Any> Any valueOf(Object hint, Class<Any> type)
+    {
+        if (!(hint instanceof LazyHint<?>))
+        {
+            return null;
+        }
+
+        LazyHint<?> lazyHint = (LazyHint<?>) hint;
+
+        if (!type.isAssignableFrom(lazyHint.type))
+        {
+            return null;
+        }
+
+        Object value = lazyHint.get();
+
+        return type.isInstance(value) ? (Any) value : null;
+    }
+
+    private final Class<Any> type;
+    private Supplier<? extends Any> supplier;
+    private volatile boolean computed = false;
+    private Any value = null;
+
+    private LazyHint(Class<Any> type, Supplier<? extends Any> supplier)
+    {
+        super();
+
+        this.type = Objects.requireNonNull(type, "Type is null");
+        this.supplier = Objects.requireNonNull(supplier, "Supplier is null");
+    }
+
+    /**
+     * Returns the type of the hint.
+     *
+     * @return the type, never null
+     */
+    public Class<Any> getType()
+    {
+        return type;
+    }
+
+    /**
+     * Returns the value of the hint. Computes it, if it has not been computed yet.
+     *
+     * @return the value, may be null
+     */
+    public Any get()
+    {
+        if (!computed)
+        {
+            synchronized (this)
+            {
+                if (!computed)
+                {
+                    value = supplier.get();
+                    supplier = null;
+                    computed = true;
+                }
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns true if the value has already been computed.
+     *
+     * @return true if computed
+     */
+    public boolean isComputed()
+    {
+        return computed;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("LazyHint(%s)", MapperUtils.toClassName(type));
+    }
+
+}
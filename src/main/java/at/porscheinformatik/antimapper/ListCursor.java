@@ -0,0 +1,112 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Applies the changes of an ordered merge to the target list. The cursor points to the current target value. All
+ * values in front of the cursor are the result of the merge, all values starting at the cursor are the remaining
+ * values of the original target list.
+ *
+ * @author ham
+ * @param <TargetValue> the type of the target values
+ */
+abstract class ListCursor<TargetValue>
+{
+
+    /**
+     * Creates a cursor for the target list using the strategy specified by the options.
+     *
+     * @param <TargetValue> the type of the target values
+     * @param targetList the target list
+     * @param options the options
+     * @return the cursor
+     */
+    static <TargetValue> ListCursor<TargetValue> create(List<TargetValue> targetList, OrderedMergeOptions options)
+    {
+        switch (options.resolveListUpdateStrategy(targetList))
+        {
+            case IN_PLACE:
+                if (targetList instanceof RandomAccess)
+                {
+                    return new InPlaceListCursor<>(targetList);
+                }
+
+                return new IteratorListCursor<>(targetList);
+
+            case REBUILD:
+                return new RebuildListCursor<>(targetList);
+
+            default:
+                throw new UnsupportedOperationException(
+                    "Unsupported strategy: " + options.getListUpdateStrategy());
+        }
+    }
+
+    /**
+     * Returns true if there is a current target value.
+     *
+     * @return true if there is a current target value
+     */
+    abstract boolean hasCurrent();
+
+    /**
+     * Returns the current target value. Must only be called if {@link #hasCurrent()} returns true.
+     *
+     * @return the current target value
+     */
+    abstract TargetValue current();
+
+    /**
+     * Replaces the current target value and moves to the next one.
+     *
+     * @param value the new value
+     */
+    abstract void replace(TargetValue value);
+
+    /**
+     * Removes the current target value and moves to the next one.
+     */
+    abstract void remove();
+
+    /**
+     * Inserts the value in front of the current target value (or at the end, if there is no current value).
+     *
+     * @param value the value
+     */
+    abstract void insert(TargetValue value);
+
+    /**
+     * Removes the first remaining target value after the current one, that matches the predicate.
+     *
+     * @param predicate the predicate
+     * @return the removed value, null if none matched
+     */
+    abstract TargetValue steal(Predicate<? super TargetValue> predicate);
+
+    /**
+     * Removes the first remaining target value after the current one, that has the specified key. Builds an index of
+     * the keys of the remaining values on first use.
+     *
+     * @param key the key
+     * @param keyFunction the function extracting the key of a target value
+     * @return the removed value, null if there is none with the key
+     */
+    abstract TargetValue steal(Object key, Function<? super TargetValue, Object> keyFunction);
+
+    /**
+     * Removes all remaining target values, starting with the current one.
+     *
+     * @param consumer receives each removed value
+     */
+    abstract void removeRemaining(Consumer<? super TargetValue> consumer);
+
+    /**
+     * Writes the result to the target list, if not already done.
+     */
+    abstract void finish();
+
+}
@@ -0,0 +1,31 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+
+/**
+ * The strategies for applying the differences to the target list of an ordered merge (see
+ * {@link OrderedMergeOptions}).
+ *
+ * @author ham
+ */
+public enum ListUpdateStrategy
+{
+    /**
+     * Uses {@link #REBUILD} for {@link ArrayList}s and {@link #IN_PLACE} for all other lists (e.g. lists of an ORM,
+     * that track each single modification).
+     */
+    AUTO,
+
+    /**
+     * Inserts and removes each single value directly in the target list. Each operation may shift the tail of the
+     * list. Lists without {@link java.util.RandomAccess} are modified by a single {@link java.util.ListIterator}.
+     */
+    IN_PLACE,
+
+    /**
+     * Collects the resulting values in a separate list and writes them back to the target list at once. Uses
+     * {@link java.util.List#set(int, Object)}, if the size of the list is unchanged, {@link java.util.List#clear()} and
+     * {@link java.util.List#addAll(java.util.Collection)} otherwise.
+     */
+    REBUILD
+}
@@ -1,17 +1,22 @@
 package at.porscheinformatik.antimapper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
@@ -20,6 +25,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -32,6 +38,16 @@ import java.util.stream.StreamSupport;
 public final class MapperUtils
 {
 
+    /**
+     * A key that never matches the key of any target, used for sources without key (e.g. missing DTOs in a container).
+     */
+    static final Object NO_KEY = new Object();
+
+    /**
+     * The key of null values in key indices. Null values only match other null values.
+     */
+    static final Object NULL_KEY = new Object();
+
     private MapperUtils()
     {
         super();
@@ -193,7 +209,8 @@ public final class MapperUtils
      * Maps the source stream into the target collection. Ignores the order. Searches for existing objects by using the
      * specified match function, which may only match some important keys (maps the object even if the match function
      * returns true). Maps the source entry to the target entry by using the specified map function. The map function
-     * must be able to handle null as target value (create a new instance).
+     * must be able to handle null as target value (create a new instance). If the match function is a
+     * {@link KeyMatchFunction}, the existing objects will be looked up in a hash index of their keys.
      *
      * @param <SourceValue> the type of the values in the source iterable
      * @param <TargetCollection> the type of the target collection
@@ -223,10 +240,119 @@ public final class MapperUtils
             return targetCollection;
         }
 
+        return mapMixedCollection(sourceStream, targetCollection, matchFunction, mapFunction, keepMissing, filter,
+            afterMapConsumer, null);
+    }
+
+    /**
+     * Maps the source iterable into the target collection, keeping deleted target values (tombstones) apart. See
+     * {@link #mapMixed(Stream, Collection, MatchFunction, BiFunction, boolean, Predicate, Consumer, Predicate)}.
+     *
+     * @param <SourceValue> the type of the values in the source iterable
+     * @param <TargetCollection> the type of the target collection
+     * @param <TargetValue> the type of the values in the target collection
+     * @param sourceIterable the source iterable, may be null
+     * @param targetCollection the target collection, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @param deletedPredicate optional predicate, that tests if a target value has been deleted
+     * @return the target collection itself
+     */
+    public static <SourceValue, TargetCollection extends Collection<TargetValue>, TargetValue> TargetCollection mapMixed(
+        Iterable<? extends SourceValue> sourceIterable, TargetCollection targetCollection,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<TargetCollection> afterMapConsumer,
+        Predicate<? super TargetValue> deletedPredicate)
+    {
+        return mapMixed(streamOrNull(sourceIterable), targetCollection, matchFunction, mapFunction, keepMissing, filter,
+            afterMapConsumer, deletedPredicate);
+    }
+
+    /**
+     * Maps the source stream into the target collection, keeping deleted target values (tombstones) apart. Works like
+     * {@link #mapMixed(Stream, Collection, MatchFunction, BiFunction, boolean, Predicate, Consumer)}, but the target
+     * values, that match the deleted predicate, stay in the target collection at their position and do not take part
+     * in the mapping: they are neither matched, nor mapped as missing values. Only a source value, that does not match
+     * any other target value, revives a deleted target value with a matching key, in place. The deleted target values,
+     * that have not been revived, are left untouched. If the match function is a {@link KeyMatchFunction}, the deleted
+     * target values are looked up in a hash index of their keys.
+     *
+     * @param <SourceValue> the type of the values in the source iterable
+     * @param <TargetCollection> the type of the target collection
+     * @param <TargetValue> the type of the values in the target collection
+     * @param sourceStream the source stream, may be null
+     * @param targetCollection the target collection, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @param deletedPredicate optional predicate, that tests if a target value has been deleted
+     * @return the target collection itself
+     */
+    public static <SourceValue, TargetCollection extends Collection<TargetValue>, TargetValue> TargetCollection mapMixed(
+        Stream<? extends SourceValue> sourceStream, TargetCollection targetCollection,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<TargetCollection> afterMapConsumer,
+        Predicate<? super TargetValue> deletedPredicate)
+    {
+        Objects.requireNonNull(targetCollection);
+
+        if (deletedPredicate == null || (sourceStream == null && !keepMissing))
+        {
+            return mapMixed(sourceStream, targetCollection, matchFunction, mapFunction, keepMissing, filter,
+                afterMapConsumer);
+        }
+
+        return mapMixedCollection(sourceStream, targetCollection, matchFunction, mapFunction, keepMissing, filter,
+            afterMapConsumer, Tombstones.of(targetCollection, matchFunction, deletedPredicate));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <SourceValue, TargetCollection extends Collection<TargetValue>, TargetValue> TargetCollection mapMixedCollection(
+        Stream<? extends SourceValue> sourceStream, TargetCollection targetCollection,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<TargetCollection> afterMapConsumer,
+        Tombstones<SourceValue, TargetValue> tombstones)
+    {
         Map<TargetValue, Void> mappedTargetValues = new IdentityHashMap<>();
 
-        mapMixedUpdate(mappedTargetValues, sourceStream, targetCollection, matchFunction, mapFunction, filter);
-        mapMixedDelete(mappedTargetValues, targetCollection, mapFunction, keepMissing, filter);
+        if (tombstones != null)
+        {
+            tombstones.skip(mappedTargetValues);
+        }
+
+        if (targetCollection instanceof SortedSet<?>)
+        {
+            SortedSet<TargetValue> targetSet = (SortedSet<TargetValue>) targetCollection;
+
+            mapMixedSortedSetUpdate(mappedTargetValues, sourceStream, targetSet, matchFunction, mapFunction, filter,
+                tombstones);
+            mapMixedSortedSetDelete(mappedTargetValues, targetSet, mapFunction, keepMissing, filter);
+        }
+        else
+        {
+            if (matchFunction instanceof KeyMatchFunction<?, ?>)
+            {
+                mapMixedUpdateByKey(mappedTargetValues, sourceStream, targetCollection,
+                    (KeyMatchFunction<SourceValue, TargetValue>) matchFunction, mapFunction, filter, tombstones);
+            }
+            else
+            {
+                mapMixedUpdate(mappedTargetValues, sourceStream, targetCollection, matchFunction, mapFunction,
+                    filter, tombstones);
+            }
+
+            mapMixedDelete(mappedTargetValues, targetCollection, mapFunction, keepMissing, filter);
+        }
 
         if (afterMapConsumer != null)
         {
@@ -240,7 +366,8 @@ public final class MapperUtils
     private static <TargetValue, TargetCollection extends Collection<TargetValue>, SourceValue> void mapMixedUpdate(
         Map<TargetValue, Void> mappedTargetValues, Stream<? extends SourceValue> sourceStream,
         TargetCollection targetCollection, MatchFunction<SourceValue, TargetValue> matchFunction,
-        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter)
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter,
+        Tombstones<SourceValue, TargetValue> tombstones)
     {
         sourceStream.forEach(sourceValue -> {
             TargetValue targetValue = null;
@@ -248,12 +375,8 @@ public final class MapperUtils
 
             for (TargetValue currentTargetValue : targetCollection)
             {
-                if (mappedTargetValues.containsKey(currentTargetValue))
-                {
-                    continue;
-                }
-
-                if (matchFunction.matches(sourceValue, currentTargetValue))
+                if (!mappedTargetValues.containsKey(currentTargetValue)
+                    && matchFunction.matches(sourceValue, currentTargetValue))
                 {
                     targetValue = currentTargetValue;
                     break;
@@ -262,13 +385,21 @@ public final class MapperUtils
                 index += 1;
             }
 
-            TargetValue newTargetValue = mapFunction.apply(sourceValue, targetValue);
+            TargetValue tombstone = targetValue == null && tombstones != null ? tombstones.find(sourceValue) : null;
+            TargetValue newTargetValue = mapFunction.apply(sourceValue, tombstone != null ? tombstone : targetValue);
 
             if (filter != null && !filter.test(newTargetValue))
             {
                 return;
             }
 
+            if (tombstone != null && tombstone == newTargetValue)
+            {
+                // revived at its position, it has already been marked as mapped
+                tombstones.revive(sourceValue, tombstone);
+                return;
+            }
+
             if (targetValue == null)
             {
                 targetCollection.add(newTargetValue);
@@ -289,6 +420,261 @@ public final class MapperUtils
         });
     }
 
+    @SuppressWarnings("unchecked")
+    private static <TargetValue, TargetCollection extends Collection<TargetValue>, SourceValue> void mapMixedUpdateByKey(
+        Map<TargetValue, Void> mappedTargetValues, Stream<? extends SourceValue> sourceStream,
+        TargetCollection targetCollection, KeyMatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter,
+        Tombstones<SourceValue, TargetValue> tombstones)
+    {
+        KeyIndex<TargetValue> targetIndex = new KeyIndex<>(targetCollection.size());
+        Map<TargetValue, TargetValue> replacedTargetValues = new IdentityHashMap<>();
+
+        for (TargetValue targetValue : targetCollection)
+        {
+            if (targetValue != null && !mappedTargetValues.containsKey(targetValue))
+            {
+                targetIndex.add(matchFunction.rightKey(targetValue), targetValue);
+            }
+        }
+
+        sourceStream.forEach(sourceValue -> {
+            Object key = sourceValue != null ? matchFunction.leftKey(sourceValue) : null;
+            TargetValue targetValue = sourceValue != null ? targetIndex.peek(key) : null;
+            TargetValue tombstone = targetValue == null && tombstones != null ? tombstones.find(sourceValue) : null;
+            TargetValue newTargetValue = mapFunction.apply(sourceValue, tombstone != null ? tombstone : targetValue);
+
+            if (filter != null && !filter.test(newTargetValue))
+            {
+                // the target value stays available for further matches
+                return;
+            }
+
+            if (tombstone != null && tombstone == newTargetValue)
+            {
+                // revived at its position, it has already been marked as mapped
+                tombstones.revive(sourceValue, tombstone);
+                return;
+            }
+
+            if (targetValue == null)
+            {
+                targetCollection.add(newTargetValue);
+            }
+            else if (targetValue == newTargetValue)
+            {
+                targetIndex.poll(key);
+            }
+            else if (targetCollection instanceof List<?>)
+            {
+                // replaced at its position afterwards, without searching the list for each value
+                replacedTargetValues.put(targetValue, newTargetValue);
+                targetIndex.poll(key);
+            }
+            else
+            {
+                targetCollection.add(newTargetValue);
+            }
+
+            mappedTargetValues.put(newTargetValue, null);
+        });
+
+        if (replacedTargetValues.isEmpty())
+        {
+            return;
+        }
+
+        // a single pass replaces all values, even in lists without random access
+        ListIterator<TargetValue> targetIterator = ((List<TargetValue>) targetCollection).listIterator();
+
+        while (targetIterator.hasNext() && !replacedTargetValues.isEmpty())
+        {
+            TargetValue targetValue = targetIterator.next();
+
+            if (replacedTargetValues.containsKey(targetValue))
+            {
+                targetIterator.set(replacedTargetValues.remove(targetValue));
+            }
+        }
+    }
+
+    /**
+     * Updates a sorted set. The merge may change the sort key of a value, thus each matched value is removed from the
+     * set before it gets merged (while the set can still find it), and the merged value is added again (at its new
+     * position, an {@link IllegalStateException} is thrown, if another value already has the same sort key). The values
+     * are looked up in a hash index, if the match function is a {@link KeyMatchFunction}. A source value cannot be
+     * compared to the target values by the comparator of the set, thus the set has to be searched otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    private static <TargetValue, SourceValue> void mapMixedSortedSetUpdate(Map<TargetValue, Void> mappedTargetValues,
+        Stream<? extends SourceValue> sourceStream, SortedSet<TargetValue> targetSet,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter,
+        Tombstones<SourceValue, TargetValue> tombstones)
+    {
+        if (sourceStream == null)
+        {
+            return;
+        }
+
+        KeyMatchFunction<SourceValue, TargetValue> keyMatchFunction =
+            matchFunction instanceof KeyMatchFunction<?, ?> ? (KeyMatchFunction<SourceValue, TargetValue>) matchFunction
+                : null;
+        KeyIndex<TargetValue> targetIndex = null;
+
+        if (keyMatchFunction != null)
+        {
+            targetIndex = new KeyIndex<>(targetSet.size());
+
+            for (TargetValue targetValue : targetSet)
+            {
+                if (targetValue != null && !mappedTargetValues.containsKey(targetValue))
+                {
+                    targetIndex.add(keyMatchFunction.rightKey(targetValue), targetValue);
+                }
+            }
+        }
+
+        KeyIndex<TargetValue> finalTargetIndex = targetIndex;
+
+        sourceStream.forEach(sourceValue -> {
+            Object key = null;
+            TargetValue targetValue = null;
+
+            if (finalTargetIndex != null)
+            {
+                if (sourceValue != null)
+                {
+                    key = keyMatchFunction.leftKey(sourceValue);
+                    targetValue = finalTargetIndex.peek(key);
+                }
+            }
+            else
+            {
+                for (TargetValue currentTargetValue : targetSet)
+                {
+                    if (!mappedTargetValues.containsKey(currentTargetValue)
+                        && matchFunction.matches(sourceValue, currentTargetValue))
+                    {
+                        targetValue = currentTargetValue;
+                        break;
+                    }
+                }
+            }
+
+            TargetValue tombstone = null;
+
+            if (targetValue == null && tombstones != null)
+            {
+                // a tombstone is merged like a matched value, but it is only revived, if the merge returns it
+                tombstone = tombstones.find(sourceValue);
+                targetValue = tombstone;
+            }
+
+            if (targetValue != null)
+            {
+                targetSet.remove(targetValue);
+            }
+
+            TargetValue newTargetValue = mapFunction.apply(sourceValue, targetValue);
+            boolean accepted = filter == null || filter.test(newTargetValue);
+
+            if (targetValue != null && (targetValue != newTargetValue || !accepted))
+            {
+                // the target value stays available for further matches
+                addToSortedSetAgain(targetSet, targetValue, keyMatchFunction);
+            }
+
+            if (!accepted)
+            {
+                return;
+            }
+
+            if (tombstone != null && tombstone == newTargetValue)
+            {
+                tombstones.revive(sourceValue, tombstone);
+            }
+            else if (targetValue != null && targetValue == newTargetValue && finalTargetIndex != null)
+            {
+                finalTargetIndex.poll(key);
+            }
+
+            if (targetValue != null && targetValue == newTargetValue)
+            {
+                addToSortedSetAgain(targetSet, newTargetValue, keyMatchFunction);
+            }
+            else
+            {
+                targetSet.add(newTargetValue);
+            }
+
+            mappedTargetValues.put(newTargetValue, null);
+        });
+    }
+
+    /**
+     * Maps the values of a sorted set, that have not been mapped, with null. Like
+     * {@link #mapMixedSortedSetUpdate(Map, Stream, SortedSet, MatchFunction, BiFunction, Predicate, Tombstones)},
+     * each value is removed before it gets mapped and added again afterwards.
+     */
+    private static <TargetValue> void mapMixedSortedSetDelete(Map<TargetValue, Void> mappedTargetValues,
+        SortedSet<TargetValue> targetSet, BiFunction<?, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter)
+    {
+        if (keepMissing)
+        {
+            return;
+        }
+
+        List<TargetValue> missingTargetValues = new ArrayList<>();
+
+        for (TargetValue targetValue : targetSet)
+        {
+            if (!mappedTargetValues.containsKey(targetValue))
+            {
+                missingTargetValues.add(targetValue);
+            }
+        }
+
+        for (TargetValue targetValue : missingTargetValues)
+        {
+            targetSet.remove(targetValue);
+
+            TargetValue newTargetValue = mapFunction.apply(null, targetValue);
+
+            if (newTargetValue == null || (filter != null && !filter.test(newTargetValue)))
+            {
+                continue;
+            }
+
+            if (targetValue == newTargetValue)
+            {
+                addToSortedSetAgain(targetSet, newTargetValue, null);
+            }
+            else
+            {
+                targetSet.add(newTargetValue);
+            }
+        }
+    }
+
+    /**
+     * Adds a value, that has been removed from the sorted set before mapping it, again. If the mapping has changed its
+     * sort key to the one of another value, the set would drop it silently, thus this throws an exception instead.
+     * New values, that collide with another value, are dropped like by any set.
+     */
+    private static <TargetValue> void addToSortedSetAgain(SortedSet<TargetValue> targetSet, TargetValue value,
+        KeyMatchFunction<?, TargetValue> keyMatchFunction)
+    {
+        if (!targetSet.add(value))
+        {
+            throw new IllegalStateException(String
+                .format("The sort key of the value with the key %s collides with the one of %s in the sorted set",
+                    keyMatchFunction != null ? keyMatchFunction.rightKey(value) : value,
+                    targetSet.tailSet(value).first()));
+        }
+    }
+
     private static <TargetValue, TargetCollection extends Collection<TargetValue>> void mapMixedDelete(
         Map<TargetValue, Void> mappedTargetValues, TargetCollection targetCollection,
         BiFunction<?, TargetValue, TargetValue> mapFunction, boolean keepMissing, Predicate<TargetValue> filter)
@@ -384,12 +770,12 @@ public final class MapperUtils
         BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
         Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer)
     {
-        return mapOrdered(sourceStream != null ? sourceStream.collect(Collectors.toList()) : null, targetCollection,
-            matchFunction, mapFunction, keepMissing, filter, afterMapConsumer);
+        return mapOrdered(sourceStream, targetCollection, matchFunction, mapFunction, keepMissing, filter,
+            afterMapConsumer, OrderedMergeOptions.DEFAULT);
     }
 
     /**
-     * Maps the source iterable into the target collection. Keeps the order. Searches for existing objects by using the
+     * Maps the source stream into the target collection. Keeps the order. Searches for existing objects by using the
      * specified match function, which may only match some important keys (maps the object even if the match function
      * returns true). Maps the source entry to the target entry by using the specified map function. The map function
      * must be able to handle null as target value (create a new instance). Tries to rescue removed target values by
@@ -398,23 +784,25 @@ public final class MapperUtils
      * @param <SourceValue> the type of the values in the source iterable
      * @param <TargetCollection> the type of the target collection
      * @param <TargetValue> the type of the values in the target collection
-     * @param sourceIterable the source iterable, may be null
+     * @param sourceStream the source stream, may be null
      * @param targetCollection the target collection, may not be null
      * @param matchFunction the function to compare the source and the target object
      * @param mapFunction the function to map the source to a target object (the source and the target object may be
      *            null)
+     * @param keepMissing true to keep missing items
      * @param filter optional filter for excluding results
      * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @param options the options for the ordered merge, may not be null
      * @return the target collection itself
      */
     public static <SourceValue, TargetCollection extends Collection<TargetValue>, TargetValue> TargetCollection mapOrdered(
-        Iterable<? extends SourceValue> sourceIterable, TargetCollection targetCollection,
+        Stream<? extends SourceValue> sourceStream, TargetCollection targetCollection,
         MatchFunction<SourceValue, TargetValue> matchFunction,
-        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter,
-        Consumer<List<TargetValue>> afterMapConsumer)
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer, OrderedMergeOptions options)
     {
-        return mapOrdered(sourceIterable, targetCollection, matchFunction, mapFunction, false, filter,
-            afterMapConsumer);
+        return mapOrdered(sourceStream != null ? sourceStream.collect(Collectors.toList()) : null, targetCollection,
+            matchFunction, mapFunction, keepMissing, filter, afterMapConsumer, options);
     }
 
     /**
@@ -432,17 +820,77 @@ public final class MapperUtils
      * @param matchFunction the function to compare the source and the target object
      * @param mapFunction the function to map the source to a target object (the source and the target object may be
      *            null)
-     * @param keepMissing true to keep missing items
      * @param filter optional filter for excluding results
      * @param afterMapConsumer optional consumer, executed after a successful mapping
      * @return the target collection itself
      */
-    @SuppressWarnings("unchecked")
     public static <SourceValue, TargetCollection extends Collection<TargetValue>, TargetValue> TargetCollection mapOrdered(
         Iterable<? extends SourceValue> sourceIterable, TargetCollection targetCollection,
         MatchFunction<SourceValue, TargetValue> matchFunction,
-        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
-        Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer)
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter,
+        Consumer<List<TargetValue>> afterMapConsumer)
+    {
+        return mapOrdered(sourceIterable, targetCollection, matchFunction, mapFunction, false, filter,
+            afterMapConsumer);
+    }
+
+    /**
+     * Maps the source iterable into the target collection. Keeps the order. Searches for existing objects by using the
+     * specified match function, which may only match some important keys (maps the object even if the match function
+     * returns true). Maps the source entry to the target entry by using the specified map function. The map function
+     * must be able to handle null as target value (create a new instance). Tries to rescue removed target values by
+     * reusing them (if the unique key matches).
+     *
+     * @param <SourceValue> the type of the values in the source iterable
+     * @param <TargetCollection> the type of the target collection
+     * @param <TargetValue> the type of the values in the target collection
+     * @param sourceIterable the source iterable, may be null
+     * @param targetCollection the target collection, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @return the target collection itself
+     */
+    public static <SourceValue, TargetCollection extends Collection<TargetValue>, TargetValue> TargetCollection mapOrdered(
+        Iterable<? extends SourceValue> sourceIterable, TargetCollection targetCollection,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer)
+    {
+        return mapOrdered(sourceIterable, targetCollection, matchFunction, mapFunction, keepMissing, filter,
+            afterMapConsumer, OrderedMergeOptions.DEFAULT);
+    }
+
+    /**
+     * Maps the source iterable into the target collection. Keeps the order. Searches for existing objects by using the
+     * specified match function, which may only match some important keys (maps the object even if the match function
+     * returns true). Maps the source entry to the target entry by using the specified map function. The map function
+     * must be able to handle null as target value (create a new instance). Tries to rescue removed target values by
+     * reusing them (if the unique key matches).
+     *
+     * @param <SourceValue> the type of the values in the source iterable
+     * @param <TargetCollection> the type of the target collection
+     * @param <TargetValue> the type of the values in the target collection
+     * @param sourceIterable the source iterable, may be null
+     * @param targetCollection the target collection, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @param options the options for the ordered merge, may not be null
+     * @return the target collection itself
+     */
+    @SuppressWarnings("unchecked")
+    public static <SourceValue, TargetCollection extends Collection<TargetValue>, TargetValue> TargetCollection mapOrdered(
+        Iterable<? extends SourceValue> sourceIterable, TargetCollection targetCollection,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer, OrderedMergeOptions options)
     {
         Objects.requireNonNull(targetCollection);
 
@@ -474,7 +922,7 @@ public final class MapperUtils
             targetList = new ArrayList<>(targetCollection);
         }
 
-        mapOrdered(sourceList, targetList, matchFunction, mapFunction, keepMissing, filter, afterMapConsumer);
+        mapOrdered(sourceList, targetList, matchFunction, mapFunction, keepMissing, filter, afterMapConsumer, options);
 
         if (targetCollection != targetList)
         {
@@ -493,6 +941,51 @@ public final class MapperUtils
         return targetCollection;
     }
 
+    /**
+     * Maps the source tree into the target tree. The roots and the children of each node are mapped like
+     * {@link #mapOrdered(Iterable, Collection, MatchFunction, BiFunction, boolean, Predicate, Consumer,
+     * OrderedMergeOptions)} does, the children of each mapped node are mapped afterwards. If the match function is a
+     * {@link KeyMatchFunction} and missing values are not kept, all target nodes are indexed by key once. Target nodes,
+     * whose source nodes have been moved to another parent, are moved to the new parent with all their children and
+     * get mapped once, instead of being mapped as removed node and created again.
+     *
+     * @param <SourceValue> the type of the source nodes
+     * @param <TargetCollection> the type of the target collection
+     * @param <TargetValue> the type of the target nodes
+     * @param sourceIterable the source roots, may be null
+     * @param targetCollection the target roots, may not be null
+     * @param sourceChildrenFunction the function to get the children of a source node, the result may be null
+     * @param targetChildrenFunction the function to get the modifiable children of a target node, the result may only
+     *            be null, if the node has no source children
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping of the children of a node
+     * @param options the options for the ordered merge, may not be null
+     * @return the target collection itself
+     */
+    public static <SourceValue, TargetCollection extends Collection<TargetValue>, TargetValue> TargetCollection mapTree(
+        Iterable<? extends SourceValue> sourceIterable, TargetCollection targetCollection,
+        Function<? super SourceValue, ? extends Iterable<? extends SourceValue>> sourceChildrenFunction,
+        Function<? super TargetValue, ? extends Collection<TargetValue>> targetChildrenFunction,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer, OrderedMergeOptions options)
+    {
+        Objects.requireNonNull(targetCollection);
+        Objects.requireNonNull(sourceChildrenFunction);
+        Objects.requireNonNull(targetChildrenFunction);
+        Objects.requireNonNull(options);
+
+        new TreeMapping<>(sourceChildrenFunction, targetChildrenFunction, matchFunction, mapFunction, keepMissing,
+            filter, afterMapConsumer, options)
+                .map(sourceIterable != null ? sourceIterable : Collections.emptyList(), targetCollection);
+
+        return targetCollection;
+    }
+
     /**
      * Maps the source list into the target list. Keeps the order. Searches for existing objects by using the specified
      * match function, which may only match some important keys (maps the object even if the match function returns
@@ -536,208 +1029,893 @@ public final class MapperUtils
      * @param keepMissing true to keep missing items
      * @param filter optional filter for excluding results
      * @param afterMapConsumer optional consumer, executed after a successful mapping
-     * @return the target list itself
+     * @return the target list itself
+     */
+    public static <SourceValue, TargetValue> List<TargetValue> mapOrdered(List<? extends SourceValue> sourceList,
+        List<TargetValue> targetList, MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer)
+    {
+        return mapOrdered(sourceList, targetList, matchFunction, mapFunction, keepMissing, filter, afterMapConsumer,
+            OrderedMergeOptions.DEFAULT);
+    }
+
+    /**
+     * Maps the source list into the target list. Keeps the order. Searches for existing objects by using the specified
+     * match function, which may only match some important keys (maps the object even if the match function returns
+     * true). Maps the source entry to the target entry by using the specified map function. The map function must be
+     * able to handle null as target value (create a new instance). Tries to rescue removed target values by reusing
+     * them (if the unique key matches). The options define the algorithm used for computing the differences. If the
+     * match function is a {@link KeyMatchFunction}, removed target values are rescued by using hash lookups. If
+     * {@link OrderedMergeOptions#isMoveDetection()} is enabled, target values, that will be rescued, are not mapped as
+     * removed values before.
+     *
+     * @param <SourceValue> the type of the values in the source list
+     * @param <TargetValue> the type of the values in the target list
+     * @param sourceList the source list, may be null
+     * @param targetList the target list, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @param options the options for the ordered merge, may not be null
+     * @return the target list itself
+     */
+    @SuppressWarnings("unchecked")
+    public static <SourceValue, TargetValue> List<TargetValue> mapOrdered(List<? extends SourceValue> sourceList,
+        List<TargetValue> targetList, MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer, OrderedMergeOptions options)
+    {
+        if (sourceList != null && !(sourceList instanceof RandomAccess))
+        {
+            sourceList = (List<? extends SourceValue>) Arrays.asList(sourceList.toArray());
+        }
+
+        // the diff accesses the values by index, sequential lists are modified by iterator only
+        List<TargetValue> targetSnapshot =
+            targetList instanceof RandomAccess ? targetList : (List<TargetValue>) Arrays.asList(targetList.toArray());
+        OrderedDiff diff = OrderedDiff.create(sourceList, targetSnapshot, matchFunction, options);
+        ListCursor<TargetValue> cursor = ListCursor.create(targetList, options);
+        KeyMatchFunction<SourceValue, TargetValue> keyMatchFunction =
+            matchFunction instanceof KeyMatchFunction<?, ?> ? (KeyMatchFunction<SourceValue, TargetValue>) matchFunction
+                : null;
+
+        int sourceIndex = 0;
+        int targetIndex = 0;
+        int sourceSize = (sourceList != null) ? sourceList.size() : 0;
+        RemovedTargetValues<SourceValue, TargetValue> removedTargetValues =
+            new RemovedTargetValues<>(matchFunction, sourceList, options.isMoveDetection() && !keepMissing);
+
+        while (sourceIndex < sourceSize && cursor.hasCurrent())
+        {
+            @SuppressWarnings("null")
+            SourceValue sourceValue = sourceList.get(sourceIndex);
+            TargetValue targetValue = cursor.current();
+
+            if (matchFunction.matches(sourceValue, targetValue))
+            {
+                // exists
+                TargetValue mappedTargetValue = mapFunction.apply(sourceValue, targetValue);
+
+                if (filter != null && !filter.test(mappedTargetValue))
+                {
+                    removedTargetValues.add(mappedTargetValue);
+
+                    cursor.remove();
+                    sourceIndex++;
+                    targetIndex++;
+
+                    continue;
+                }
+
+                cursor.replace(mappedTargetValue);
+
+                sourceIndex++;
+                targetIndex++;
+
+                continue;
+            }
+
+            if (diff.isAddition(sourceIndex, targetIndex))
+            {
+                // added
+                TargetValue rescuedTargetValue = removedTargetValues.rescue(sourceValue);
+
+                if (rescuedTargetValue == null)
+                {
+                    // rescue a value that will be removed
+                    if (keyMatchFunction != null)
+                    {
+                        rescuedTargetValue = cursor
+                            .steal(sourceKeyOf(keyMatchFunction, sourceValue),
+                                currentTargetValue -> targetKeyOf(keyMatchFunction, currentTargetValue));
+                    }
+                    else
+                    {
+                        rescuedTargetValue =
+                            cursor.steal(currentTargetValue -> matchFunction.matches(sourceValue, currentTargetValue));
+                    }
+                }
+
+                TargetValue mappedTargetValue = mapFunction.apply(sourceValue, rescuedTargetValue);
+
+                if (filter != null && !filter.test(mappedTargetValue))
+                {
+                    sourceIndex++;
+
+                    continue;
+                }
+
+                cursor.insert(mappedTargetValue);
+
+                sourceIndex++;
+
+                continue;
+            }
+
+            // removed (or moved, if a later source value will rescue it)
+            if (!removedTargetValues.addMoved(sourceIndex, targetValue))
+            {
+                TargetValue mappedTargetValue = keepMissing ? targetValue : mapFunction.apply(null, targetValue);
+
+                removedTargetValues.add(mappedTargetValue);
+            }
+
+            cursor.remove();
+            targetIndex++;
+        }
+
+        int remainingSourceIndex = sourceIndex;
+
+        // remove remaining
+        cursor.removeRemaining(targetValue -> {
+            if (!removedTargetValues.addMoved(remainingSourceIndex, targetValue))
+            {
+                removedTargetValues.add(keepMissing ? targetValue : mapFunction.apply(null, targetValue));
+            }
+        });
+
+        // add remaining
+        while (sourceIndex < sourceSize)
+        {
+            @SuppressWarnings("null")
+            SourceValue sourceValue = sourceList.get(sourceIndex);
+            TargetValue rescuedTargetValue = removedTargetValues.rescue(sourceValue);
+            TargetValue mappedTargetValue = mapFunction.apply(sourceValue, rescuedTargetValue);
+
+            if (filter != null && !filter.test(mappedTargetValue))
+            {
+                sourceIndex++;
+
+                continue;
+            }
+
+            cursor.insert(mappedTargetValue);
+
+            sourceIndex++;
+        }
+
+        cursor.finish();
+
+        // moved values, that have not been rescued, have been removed after all
+        removedTargetValues.resolveMoved(targetValue -> mapFunction.apply(null, targetValue));
+
+        if (filter != null)
+        {
+            targetList.removeIf(filter.negate());
+        }
+
+        removedTargetValues.forEach(targetValue -> {
+            if (filter == null || filter.test(targetValue))
+            {
+                targetList.add(targetValue);
+            }
+        });
+
+        if (afterMapConsumer != null)
+        {
+            afterMapConsumer.accept(targetList);
+        }
+
+        return targetList;
+    }
+
+    /**
+     * Maps the source iterable into the target list. Orders the list by the position of the target values. Searches
+     * for existing objects by using the specified match function, which may only match some important keys (maps the
+     * object even if the match function returns true). Maps the source entry to the target entry by using the specified
+     * map function. The map function must be able to handle null as target value (create a new instance).
+     *
+     * @param <SourceValue> the type of the values in the source iterable
+     * @param <TargetList> the type of the target list
+     * @param <TargetValue> the type of the values in the target list
+     * @param sourceIterable the source iterable, may be null
+     * @param targetList the target list, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @param positionFunction the function returning the position of a mapped target value
+     * @return the target list itself
+     */
+    public static <SourceValue, TargetList extends List<TargetValue>, TargetValue> TargetList mapByPosition(
+        Iterable<? extends SourceValue> sourceIterable, TargetList targetList,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<TargetList> afterMapConsumer,
+        ToIntFunction<? super TargetValue> positionFunction)
+    {
+        return mapByPosition(streamOrNull(sourceIterable), targetList, matchFunction, mapFunction, keepMissing, filter,
+            afterMapConsumer, positionFunction);
+    }
+
+    /**
+     * Maps the source stream into the target list. Orders the list by the position of the target values. Searches for
+     * existing objects by using the specified match function, which may only match some important keys (maps the
+     * object even if the match function returns true). Maps the source entry to the target entry by using the specified
+     * map function. The map function must be able to handle null as target value (create a new instance). If the match
+     * function is a {@link KeyMatchFunction}, the existing objects will be looked up in a hash index of their keys.
+     * <p>
+     * The position is taken from the mapped target values, thus the map function usually copies it from the source
+     * value. Values with the same position keep the order of the source stream, values missing in the source follow
+     * the mapped ones. In contrast to the {@link #mapOrdered(Stream, Collection, MatchFunction, BiFunction, Predicate,
+     * Consumer)} methods, the order of the target list is not relevant, it needs O(n log n) time if the match function
+     * is a {@link KeyMatchFunction}. Only the positions of the target list, that have changed, are written.
+     *
+     * @param <SourceValue> the type of the values in the source stream
+     * @param <TargetList> the type of the target list
+     * @param <TargetValue> the type of the values in the target list
+     * @param sourceStream the source stream, may be null
+     * @param targetList the target list, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @param positionFunction the function returning the position of a mapped target value
+     * @return the target list itself
+     */
+    @SuppressWarnings("unchecked")
+    public static <SourceValue, TargetList extends List<TargetValue>, TargetValue> TargetList mapByPosition(
+        Stream<? extends SourceValue> sourceStream, TargetList targetList,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<TargetList> afterMapConsumer,
+        ToIntFunction<? super TargetValue> positionFunction)
+    {
+        Objects.requireNonNull(targetList);
+        Objects.requireNonNull(positionFunction);
+
+        if (sourceStream == null && !keepMissing)
+        {
+            targetList.clear();
+
+            return targetList;
+        }
+
+        Set<TargetValue> matchedTargetValues = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<TargetValue> values = new ArrayList<>(targetList.size());
+
+        if (sourceStream != null)
+        {
+            if (matchFunction instanceof KeyMatchFunction<?, ?>)
+            {
+                mapByPositionUpdateByKey(matchedTargetValues, values, sourceStream, targetList,
+                    (KeyMatchFunction<SourceValue, TargetValue>) matchFunction, mapFunction, filter);
+            }
+            else
+            {
+                mapByPositionUpdate(matchedTargetValues, values, sourceStream, targetList, matchFunction, mapFunction,
+                    filter);
+            }
+        }
+
+        for (TargetValue targetValue : targetList)
+        {
+            if (targetValue == null || matchedTargetValues.contains(targetValue))
+            {
+                continue;
+            }
+
+            TargetValue newTargetValue = keepMissing ? targetValue : mapFunction.apply(null, targetValue);
+
+            if (newTargetValue != null && (filter == null || filter.test(newTargetValue)))
+            {
+                values.add(newTargetValue);
+            }
+        }
+
+        // the sort is stable, values with the same position keep their order
+        values.sort(Comparator.nullsLast(Comparator.comparingInt(positionFunction)));
+
+        ListIterator<TargetValue> targetIterator = targetList.listIterator();
+
+        for (TargetValue value : values)
+        {
+            if (!targetIterator.hasNext())
+            {
+                targetIterator.add(value);
+            }
+            else if (targetIterator.next() != value)
+            {
+                targetIterator.set(value);
+            }
+        }
+
+        while (targetIterator.hasNext())
+        {
+            targetIterator.next();
+            targetIterator.remove();
+        }
+
+        if (afterMapConsumer != null)
+        {
+            afterMapConsumer.accept(targetList);
+        }
+
+        return targetList;
+    }
+
+    /**
+     * Maps the source iterable into the target list, both being sorted by their keys. See
+     * {@link #mapSorted(Stream, List, Function, Function, Comparator, BiFunction, boolean, Predicate, Consumer,
+     * OrderedMergeOptions)}.
+     *
+     * @param <SourceValue> the type of the values in the source iterable
+     * @param <TargetList> the type of the target list
+     * @param <TargetValue> the type of the values in the target list
+     * @param <Key> the type of the keys
+     * @param sourceIterable the source iterable, sorted by the keys, may be null
+     * @param targetList the target list, sorted by the keys, may not be null
+     * @param sourceKeyFunction the function returning the key of a source value, never called with null
+     * @param targetKeyFunction the function returning the key of a target value, never called with null
+     * @param keyComparator the comparator of the keys
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @param options the options for updating the list, may not be null
+     * @return the target list itself
+     */
+    public static <SourceValue, TargetList extends List<TargetValue>, TargetValue, Key> TargetList mapSorted(
+        Iterable<? extends SourceValue> sourceIterable, TargetList targetList,
+        Function<? super SourceValue, ? extends Key> sourceKeyFunction,
+        Function<? super TargetValue, ? extends Key> targetKeyFunction, Comparator<? super Key> keyComparator,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<TargetList> afterMapConsumer, OrderedMergeOptions options)
+    {
+        return mapSorted(streamOrNull(sourceIterable), targetList, sourceKeyFunction, targetKeyFunction, keyComparator,
+            mapFunction, keepMissing, filter, afterMapConsumer, options);
+    }
+
+    /**
+     * Maps the source stream into the target list, both being sorted by their keys. A source value and a target value
+     * match, if the comparator considers their keys equal. Both sides are walked once, like a merge join: target values
+     * with smaller keys than the current source value are missing, source values with smaller keys than the current
+     * target value are new. Needs O(n + m) time, without hashing, without a table of the differences and without
+     * collecting the source stream. Maps the source entry to the target entry by using the specified map function. The
+     * map function must be able to handle null as target value (create a new instance).
+     * <p>
+     * Missing target values are mapped with null and stay at their position, thus the target list stays sorted. Null
+     * source values are ignored. Throws an {@link IllegalArgumentException}, if one of the sides is not sorted. The
+     * target list is checked before anything is mapped, thus it is unchanged, if it is not sorted. The source stream is
+     * checked while it is consumed: if a source value is out of order, the source values before it have already been
+     * mapped. The target list then contains the mapped values up to this point, followed by the remaining target
+     * values, which have not been mapped (not even as missing values), and the after map consumer is not called.
+     *
+     * @param <SourceValue> the type of the values in the source stream
+     * @param <TargetList> the type of the target list
+     * @param <TargetValue> the type of the values in the target list
+     * @param <Key> the type of the keys
+     * @param sourceStream the source stream, sorted by the keys, may be null
+     * @param targetList the target list, sorted by the keys, may not be null
+     * @param sourceKeyFunction the function returning the key of a source value, never called with null
+     * @param targetKeyFunction the function returning the key of a target value, never called with null
+     * @param keyComparator the comparator of the keys
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @param options the options for updating the list, may not be null
+     * @return the target list itself
+     */
+    public static <SourceValue, TargetList extends List<TargetValue>, TargetValue, Key> TargetList mapSorted(
+        Stream<? extends SourceValue> sourceStream, TargetList targetList,
+        Function<? super SourceValue, ? extends Key> sourceKeyFunction,
+        Function<? super TargetValue, ? extends Key> targetKeyFunction, Comparator<? super Key> keyComparator,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<TargetList> afterMapConsumer, OrderedMergeOptions options)
+    {
+        Objects.requireNonNull(targetList);
+        Objects.requireNonNull(keyComparator);
+
+        // the target list is in memory, thus it is checked before changing anything, the keys are computed once
+        List<Key> targetKeys = sortedKeys(targetList, targetKeyFunction, keyComparator);
+        ListCursor<TargetValue> cursor = ListCursor.create(targetList, options);
+        Iterator<? extends SourceValue> sourceIterator =
+            sourceStream != null ? sourceStream.iterator() : Collections.emptyIterator();
+        Key previousSourceKey = null;
+        boolean sourceStarted = false;
+        int targetIndex = 0;
+
+        while (sourceIterator.hasNext())
+        {
+            SourceValue sourceValue = sourceIterator.next();
+
+            if (sourceValue == null)
+            {
+                continue;
+            }
+
+            Key sourceKey = sourceKeyFunction.apply(sourceValue);
+
+            if (sourceKey == NO_KEY)
+            {
+                // a container without a value (e.g. a null value of a map), ignored like a null source value
+                continue;
+            }
+
+            if (sourceStarted && keyComparator.compare(previousSourceKey, sourceKey) > 0)
+            {
+                // keep the remaining target values as they are
+                while (cursor.hasCurrent())
+                {
+                    cursor.replace(cursor.current());
+                }
+
+                cursor.finish();
+
+                throw new IllegalArgumentException(
+                    String.format("Source values are not sorted: %s > %s", previousSourceKey, sourceKey));
+            }
+
+            previousSourceKey = sourceKey;
+            sourceStarted = true;
+
+            TargetValue matchingTargetValue = null;
+
+            // skip the target values in front of the source value, they are missing
+            while (cursor.hasCurrent())
+            {
+                TargetValue targetValue = cursor.current();
+
+                if (targetValue != null)
+                {
+                    int comparison = keyComparator.compare(targetKeys.get(targetIndex), sourceKey);
+
+                    if (comparison == 0)
+                    {
+                        matchingTargetValue = targetValue;
+
+                        break;
+                    }
+
+                    if (comparison > 0)
+                    {
+                        break;
+                    }
+                }
+
+                mapSortedMissing(cursor, targetValue, mapFunction, keepMissing, filter);
+                targetIndex++;
+            }
+
+            TargetValue mappedTargetValue = mapFunction.apply(sourceValue, matchingTargetValue);
+
+            if (matchingTargetValue != null)
+            {
+                // exists
+                if (filter != null && !filter.test(mappedTargetValue))
+                {
+                    cursor.remove();
+                }
+                else
+                {
+                    cursor.replace(mappedTargetValue);
+                }
+
+                targetIndex++;
+            }
+            else if (filter == null || filter.test(mappedTargetValue))
+            {
+                // added
+                cursor.insert(mappedTargetValue);
+            }
+        }
+
+        // the remaining target values are missing
+        while (cursor.hasCurrent())
+        {
+            mapSortedMissing(cursor, cursor.current(), mapFunction, keepMissing, filter);
+        }
+
+        cursor.finish();
+
+        if (afterMapConsumer != null)
+        {
+            afterMapConsumer.accept(targetList);
+        }
+
+        return targetList;
+    }
+
+    /**
+     * Returns the keys of the target values (null for null values). Throws an {@link IllegalArgumentException}, if the
+     * values are not sorted by their keys.
+     */
+    private static <Value, Key> List<Key> sortedKeys(List<? extends Value> values,
+        Function<? super Value, ? extends Key> keyFunction, Comparator<? super Key> keyComparator)
+    {
+        List<Key> keys = new ArrayList<>(values.size());
+        Key previousKey = null;
+        boolean started = false;
+
+        for (Value value : values)
+        {
+            if (value == null)
+            {
+                keys.add(null);
+
+                continue;
+            }
+
+            Key key = keyFunction.apply(value);
+
+            if (started && keyComparator.compare(previousKey, key) > 0)
+            {
+                throw new IllegalArgumentException(
+                    String.format("Target values are not sorted: %s > %s", previousKey, key));
+            }
+
+            keys.add(key);
+            previousKey = key;
+            started = true;
+        }
+
+        return keys;
+    }
+
+    private static <SourceValue, TargetValue> void mapSortedMissing(ListCursor<TargetValue> cursor,
+        TargetValue targetValue, BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter)
+    {
+        TargetValue mappedTargetValue = keepMissing ? targetValue : mapFunction.apply(null, targetValue);
+
+        if (filter != null && !filter.test(mappedTargetValue))
+        {
+            cursor.remove();
+        }
+        else
+        {
+            cursor.replace(mappedTargetValue);
+        }
+    }
+
+    private static <SourceValue, TargetValue> void mapByPositionUpdate(Set<TargetValue> matchedTargetValues,
+        List<TargetValue> values, Stream<? extends SourceValue> sourceStream, List<TargetValue> targetList,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter)
+    {
+        sourceStream.forEach(sourceValue -> {
+            TargetValue targetValue = null;
+
+            if (sourceValue != null)
+            {
+                for (TargetValue currentTargetValue : targetList)
+                {
+                    if (currentTargetValue != null
+                        && !matchedTargetValues.contains(currentTargetValue)
+                        && matchFunction.matches(sourceValue, currentTargetValue))
+                    {
+                        targetValue = currentTargetValue;
+                        break;
+                    }
+                }
+            }
+
+            TargetValue newTargetValue = mapFunction.apply(sourceValue, targetValue);
+
+            if (filter != null && !filter.test(newTargetValue))
+            {
+                // the target value stays available for further matches
+                return;
+            }
+
+            if (targetValue != null)
+            {
+                matchedTargetValues.add(targetValue);
+            }
+
+            values.add(newTargetValue);
+        });
+    }
+
+    private static <SourceValue, TargetValue> void mapByPositionUpdateByKey(Set<TargetValue> matchedTargetValues,
+        List<TargetValue> values, Stream<? extends SourceValue> sourceStream, List<TargetValue> targetList,
+        KeyMatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter)
+    {
+        KeyIndex<TargetValue> targetIndex = new KeyIndex<>(targetList.size());
+
+        for (TargetValue targetValue : targetList)
+        {
+            if (targetValue != null)
+            {
+                targetIndex.add(matchFunction.rightKey(targetValue), targetValue);
+            }
+        }
+
+        sourceStream.forEach(sourceValue -> {
+            Object key = sourceValue != null ? matchFunction.leftKey(sourceValue) : null;
+            TargetValue targetValue = sourceValue != null ? targetIndex.peek(key) : null;
+            TargetValue newTargetValue = mapFunction.apply(sourceValue, targetValue);
+
+            if (filter != null && !filter.test(newTargetValue))
+            {
+                // the target value stays available for further matches
+                return;
+            }
+
+            if (targetValue != null)
+            {
+                targetIndex.poll(key);
+                matchedTargetValues.add(targetValue);
+            }
+
+            values.add(newTargetValue);
+        });
+    }
+
+    /**
+     * Maps the source iterable into the target map. Ignores the order. Searches for existing objects by using the
+     * specified match function, which may only match some important keys (maps the object even if the match function
+     * returns true). Maps the source entry to the target entry by using the specified map function. The map function
+     * must be able to handle null as target value (create a new instance).
+     *
+     * @param <SourceValue> the type of the values in the source iterable
+     * @param <TargetMap> the type of the target map
+     * @param <Key> the type of the keys in the target map
+     * @param <TargetValue> the type of the values in the target map
+     * @param sourceIterable the source iterable, may be null
+     * @param targetMap the target map, may not be null
+     * @param keyFunction the function returning the key of a mapped target value
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @return the target map itself
+     */
+    public static <SourceValue, TargetMap extends Map<Key, TargetValue>, Key, TargetValue> TargetMap mapIntoMap(
+        Iterable<? extends SourceValue> sourceIterable, TargetMap targetMap,
+        Function<? super TargetValue, ? extends Key> keyFunction, MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<TargetMap> afterMapConsumer)
+    {
+        return mapIntoMap(streamOrNull(sourceIterable), targetMap, keyFunction, matchFunction, mapFunction, keepMissing,
+            filter, afterMapConsumer);
+    }
+
+    /**
+     * Maps the source stream into the target map. Ignores the order. Searches for existing objects by using the
+     * specified match function, which may only match some important keys (maps the object even if the match function
+     * returns true). Maps the source entry to the target entry by using the specified map function. The map function
+     * must be able to handle null as target value (create a new instance). If the match function is a
+     * {@link KeyMatchFunction}, the existing objects will be looked up in a hash index of their keys.
+     * <p>
+     * The key is taken from the mapped target values. The map is updated in place: entries, whose value and key did
+     * not change, are not touched, missing values are mapped with null as source value. Values, that map to null, are
+     * ignored, because they have no key. If multiple values have the same key, the last mapped value wins and mapped
+     * values win over missing ones.
+     *
+     * @param <SourceValue> the type of the values in the source stream
+     * @param <TargetMap> the type of the target map
+     * @param <Key> the type of the keys in the target map
+     * @param <TargetValue> the type of the values in the target map
+     * @param sourceStream the source stream, may be null
+     * @param targetMap the target map, may not be null
+     * @param keyFunction the function returning the key of a mapped target value
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @return the target map itself
      */
-    public static <SourceValue, TargetValue> List<TargetValue> mapOrdered(List<? extends SourceValue> sourceList,
-        List<TargetValue> targetList, MatchFunction<SourceValue, TargetValue> matchFunction,
+    @SuppressWarnings("unchecked")
+    public static <SourceValue, TargetMap extends Map<Key, TargetValue>, Key, TargetValue> TargetMap mapIntoMap(
+        Stream<? extends SourceValue> sourceStream, TargetMap targetMap,
+        Function<? super TargetValue, ? extends Key> keyFunction, MatchFunction<SourceValue, TargetValue> matchFunction,
         BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
-        Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer)
+        Predicate<TargetValue> filter, Consumer<TargetMap> afterMapConsumer)
     {
-        int[][] table = buildLCSTable(sourceList, targetList, matchFunction);
-
-        int sourceIndex = 0;
-        int targetIndex = 0;
-        int sourceSize = (sourceList != null) ? sourceList.size() : 0;
-        int writeIndex = 0;
-        Collection<TargetValue> removedTargetValues = new ArrayList<>();
+        Objects.requireNonNull(targetMap);
+        Objects.requireNonNull(keyFunction);
 
-        while (sourceIndex < sourceSize && writeIndex < targetList.size())
+        if (sourceStream == null && !keepMissing)
         {
-            @SuppressWarnings("null")
-            SourceValue sourceValue = sourceList.get(sourceIndex);
-            TargetValue targetValue = targetList.get(writeIndex);
-
-            if (matchFunction.matches(sourceValue, targetValue))
-            {
-                // exists
-                TargetValue mappedTargetValue = mapFunction.apply(sourceValue, targetValue);
-
-                if (filter != null && !filter.test(mappedTargetValue))
-                {
-                    removedTargetValues.add(mappedTargetValue);
-
-                    targetList.remove(writeIndex);
-                    sourceIndex++;
-                    targetIndex++;
-
-                    continue;
-                }
+            targetMap.clear();
 
-                targetList.set(writeIndex, mappedTargetValue);
+            return targetMap;
+        }
 
-                sourceIndex++;
-                targetIndex++;
-                writeIndex++;
+        // the matched target values and the values they have been mapped to
+        Map<TargetValue, TargetValue> matchedTargetValues = new IdentityHashMap<>();
+        List<TargetValue> values = new ArrayList<>();
 
-                continue;
+        if (sourceStream != null)
+        {
+            if (matchFunction instanceof KeyMatchFunction<?, ?>)
+            {
+                mapIntoMapUpdateByKey(matchedTargetValues, values, sourceStream, targetMap.values(),
+                    (KeyMatchFunction<SourceValue, TargetValue>) matchFunction, mapFunction, filter);
             }
-
-            if (table[sourceIndex + 1][targetIndex] >= table[sourceIndex][targetIndex + 1])
+            else
             {
-                // added
-                TargetValue rescuedTargetValue = rescueTargetValue(sourceValue, removedTargetValues, matchFunction);
+                mapIntoMapUpdate(matchedTargetValues, values, sourceStream, targetMap.values(), matchFunction,
+                    mapFunction, filter);
+            }
+        }
 
-                if (rescuedTargetValue == null)
-                {
-                    // rescue a value that will be removed
-                    for (int i = writeIndex + 1; i < targetList.size(); i++)
-                    {
-                        if (matchFunction.matches(sourceValue, targetList.get(i)))
-                        {
-                            rescuedTargetValue = targetList.remove(i);
-                            break;
-                        }
-                    }
-                }
+        Set<TargetValue> unchangedValues = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<TargetValue> missingValues = new ArrayList<>();
+        Iterator<Entry<Key, TargetValue>> targetIterator = targetMap.entrySet().iterator();
 
-                TargetValue mappedTargetValue = mapFunction.apply(sourceValue, rescuedTargetValue);
+        while (targetIterator.hasNext())
+        {
+            Entry<Key, TargetValue> entry = targetIterator.next();
+            TargetValue targetValue = entry.getValue();
 
-                if (filter != null && !filter.test(mappedTargetValue))
+            if (targetValue != null && matchedTargetValues.containsKey(targetValue))
+            {
+                if (matchedTargetValues.get(targetValue) == targetValue
+                    && Objects.equals(entry.getKey(), keyFunction.apply(targetValue))
+                    && unchangedValues.add(targetValue))
                 {
-                    sourceIndex++;
-
                     continue;
                 }
 
-                targetList.add(writeIndex, mappedTargetValue);
-
-                sourceIndex++;
-                writeIndex++;
+                // will be put again with its new key
+                targetIterator.remove();
 
                 continue;
             }
 
-            // removed
-            TargetValue mappedTargetValue = keepMissing ? targetValue : mapFunction.apply(null, targetValue);
-
-            removedTargetValues.add(mappedTargetValue);
-            targetList.remove(writeIndex);
-            targetIndex++;
-        }
-
-        // remove remaining
-        while (writeIndex < targetList.size())
-        {
-            TargetValue targetValue = targetList.remove(writeIndex);
-            TargetValue mappedTargetValue = keepMissing ? targetValue : mapFunction.apply(null, targetValue);
-
-            removedTargetValues.add(mappedTargetValue);
-        }
-
-        // add remaining
-        while (sourceIndex < sourceSize)
-        {
-            @SuppressWarnings("null")
-            SourceValue sourceValue = sourceList.get(sourceIndex);
-            TargetValue rescuedTargetValue = rescueTargetValue(sourceValue, removedTargetValues, matchFunction);
-            TargetValue mappedTargetValue = mapFunction.apply(sourceValue, rescuedTargetValue);
+            TargetValue newTargetValue =
+                keepMissing || targetValue == null ? targetValue : mapFunction.apply(null, targetValue);
 
-            if (filter != null && !filter.test(mappedTargetValue))
+            if (newTargetValue == null || (filter != null && !filter.test(newTargetValue)))
             {
-                sourceIndex++;
+                targetIterator.remove();
 
                 continue;
             }
 
-            targetList.add(mappedTargetValue);
+            if (targetValue == newTargetValue && Objects.equals(entry.getKey(), keyFunction.apply(targetValue)))
+            {
+                continue;
+            }
 
-            sourceIndex++;
+            targetIterator.remove();
+            missingValues.add(newTargetValue);
         }
 
-        if (filter != null)
+        for (TargetValue value : values)
         {
-            Iterator<TargetValue> iterator = targetList.iterator();
-
-            while (iterator.hasNext())
+            if (!unchangedValues.contains(value))
             {
-                TargetValue next = iterator.next();
-
-                if (!filter.test(next))
-                {
-                    iterator.remove();
-                }
+                targetMap.put(keyFunction.apply(value), value);
             }
         }
 
-        for (TargetValue targetValue : removedTargetValues)
+        for (TargetValue value : missingValues)
         {
-            if (filter == null || filter.test(targetValue))
-            {
-                targetList.add(targetValue);
-            }
+            targetMap.putIfAbsent(keyFunction.apply(value), value);
         }
 
         if (afterMapConsumer != null)
         {
-            afterMapConsumer.accept(targetList);
+            afterMapConsumer.accept(targetMap);
         }
 
-        return targetList;
+        return targetMap;
     }
 
-    private static <TargetValue, SourceValue> TargetValue rescueTargetValue(SourceValue sourceValue,
-        Collection<TargetValue> removedTargetValues, MatchFunction<SourceValue, TargetValue> matchFunction)
+    private static <SourceValue, TargetValue> void mapIntoMapUpdate(
+        Map<TargetValue, TargetValue> matchedTargetValues, List<TargetValue> values,
+        Stream<? extends SourceValue> sourceStream, Collection<TargetValue> targetValues,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter)
     {
-        TargetValue rescuedTargetValue = null;
-        Iterator<TargetValue> iterator = removedTargetValues.iterator();
+        sourceStream.forEach(sourceValue -> {
+            TargetValue targetValue = null;
 
-        while (iterator.hasNext())
-        {
-            TargetValue currentTargetValue = iterator.next();
+            if (sourceValue != null)
+            {
+                for (TargetValue currentTargetValue : targetValues)
+                {
+                    if (currentTargetValue != null
+                        && !matchedTargetValues.containsKey(currentTargetValue)
+                        && matchFunction.matches(sourceValue, currentTargetValue))
+                    {
+                        targetValue = currentTargetValue;
+                        break;
+                    }
+                }
+            }
 
-            if (sourceValue == currentTargetValue
-                || (sourceValue != null
-                    && currentTargetValue != null
-                    && matchFunction.matches(sourceValue, currentTargetValue)))
+            TargetValue newTargetValue = mapFunction.apply(sourceValue, targetValue);
+
+            if (newTargetValue == null || (filter != null && !filter.test(newTargetValue)))
             {
-                rescuedTargetValue = currentTargetValue;
-                iterator.remove();
-                break;
+                // the target value stays available for further matches
+                return;
+            }
+
+            if (targetValue != null)
+            {
+                matchedTargetValues.put(targetValue, newTargetValue);
             }
-        }
 
-        return rescuedTargetValue;
+            values.add(newTargetValue);
+        });
     }
 
-    @SuppressWarnings("null")
-    private static <SourceValue, TargetValue> int[][] buildLCSTable(List<? extends SourceValue> sourceList,
-        List<TargetValue> targetList, MatchFunction<SourceValue, TargetValue> matchFunction)
+    private static <SourceValue, TargetValue> void mapIntoMapUpdateByKey(
+        Map<TargetValue, TargetValue> matchedTargetValues, List<TargetValue> values,
+        Stream<? extends SourceValue> sourceStream, Collection<TargetValue> targetValues,
+        KeyMatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter)
     {
-        int sourceSize = (sourceList != null) ? sourceList.size() : 0;
-        int targetSize = targetList.size();
-        int[][] table = new int[sourceSize + 1][targetSize + 1];
+        KeyIndex<TargetValue> targetIndex = new KeyIndex<>(targetValues.size());
 
-        for (int sourceIndex = sourceSize; sourceIndex >= 0; sourceIndex--)
+        for (TargetValue targetValue : targetValues)
         {
-            for (int targetIndex = targetSize - 1; targetIndex >= 0; targetIndex--)
+            if (targetValue != null)
             {
-                if (sourceIndex >= sourceSize)
-                {
-                    table[sourceIndex][targetIndex] = 0;
-                }
-                else if (matchFunction.matches(sourceList.get(sourceIndex), targetList.get(targetIndex)))
-                {
-                    table[sourceIndex][targetIndex] = table[sourceIndex + 1][targetIndex + 1] + 1;
-                }
-                else
-                {
-                    table[sourceIndex][targetIndex] =
-                        Math.max(table[sourceIndex + 1][targetIndex], table[sourceIndex][targetIndex + 1]);
-                }
+                targetIndex.add(matchFunction.rightKey(targetValue), targetValue);
             }
         }
 
-        return table;
+        sourceStream.forEach(sourceValue -> {
+            Object key = sourceValue != null ? matchFunction.leftKey(sourceValue) : null;
+            TargetValue targetValue = sourceValue != null ? targetIndex.peek(key) : null;
+            TargetValue newTargetValue = mapFunction.apply(sourceValue, targetValue);
+
+            if (newTargetValue == null || (filter != null && !filter.test(newTargetValue)))
+            {
+                // the target value stays available for further matches
+                return;
+            }
+
+            if (targetValue != null)
+            {
+                targetIndex.poll(key);
+                matchedTargetValues.put(targetValue, newTargetValue);
+            }
+
+            values.add(newTargetValue);
+        });
+    }
+
+    static <SourceValue> Object sourceKeyOf(KeyMatchFunction<SourceValue, ?> keyMatchFunction, SourceValue value)
+    {
+        return value != null ? keyMatchFunction.leftKey(value) : NULL_KEY;
+    }
+
+    static <TargetValue> Object targetKeyOf(KeyMatchFunction<?, TargetValue> keyMatchFunction, TargetValue value)
+    {
+        return value != null ? keyMatchFunction.rightKey(value) : NULL_KEY;
     }
 
     /**
@@ -842,6 +2020,9 @@ public final class MapperUtils
      * Searches for existing objects by using the specified match function, which may only match some important keys
      * (maps the object even if the match function returns true). Maps the source entry to the target entry by using the
      * specified map function. The map function must be able to handle null as target value (create a new instance).
+     * If the match function is a {@link KeyMatchFunction} and missing items are not kept, target values, whose source
+     * values have been moved to another group, are moved into the new group and get reused instead of being mapped as
+     * missing value in the old group.
      *
      * @param <SourceValue> the type of the values in the source stream
      * @param <GroupKey> the type of the key in the target map
@@ -893,6 +2074,8 @@ public final class MapperUtils
             });
         }
 
+        relocateMovedValues(sourceMap, targetMap, matchFunction, keepMissing, createTargetCollectionFunction);
+
         Iterator<Entry<GroupKey, List<SourceValue>>> sourceIterator = sourceMap.entrySet().iterator();
 
         while (sourceIterator.hasNext())
@@ -959,6 +2142,9 @@ public final class MapperUtils
      * Searches for existing objects by using the specified match function, which may only match some important keys
      * (maps the object even if the match function returns true). Maps the source entry to the target entry by using the
      * specified map function. The map function must be able to handle null as target value (create a new instance).
+     * If the match function is a {@link KeyMatchFunction} and missing items are not kept, target values, whose source
+     * values have been moved to another group, are moved into the new group and get reused instead of being mapped as
+     * missing value in the old group.
      *
      * @param <SourceValue> the type of the values in the source iterable
      * @param <GroupKey> the type of the key in the target map
@@ -993,6 +2179,8 @@ public final class MapperUtils
         Map<GroupKey, List<SourceValue>> sourceMap =
             streamOrEmpty(sourceIterable).collect(Collectors.groupingBy(groupKeyFunction));
 
+        relocateMovedValues(sourceMap, targetMap, matchFunction, keepMissing, createTargetCollectionFunction);
+
         sourceMap.entrySet().forEach(sourceEntry -> {
             TargetCollection targetCollection = targetMap.get(sourceEntry.getKey());
 
@@ -1015,6 +2203,196 @@ public final class MapperUtils
         return targetMap;
     }
 
+    @SuppressWarnings("unchecked")
+    private static <SourceValue, GroupKey, TargetCollection extends Collection<TargetValue>, TargetValue> void relocateMovedValues(
+        Map<GroupKey, ? extends Iterable<? extends SourceValue>> sourceMap, Map<GroupKey, TargetCollection> targetMap,
+        MatchFunction<SourceValue, TargetValue> matchFunction, boolean keepMissing,
+        Supplier<TargetCollection> createTargetCollectionFunction)
+    {
+        // missing target values are kept in their group
+        if (keepMissing || !(matchFunction instanceof KeyMatchFunction<?, ?>))
+        {
+            return;
+        }
+
+        KeyMatchFunction<SourceValue, TargetValue> keyMatchFunction =
+            (KeyMatchFunction<SourceValue, TargetValue>) matchFunction;
+
+        relocateMovedValues(sourceMap, targetMap, (groupKey, sourceValue) -> keyMatchFunction.leftKey(sourceValue),
+            keyMatchFunction::rightKey, createTargetCollectionFunction);
+    }
+
+    /**
+     * Moves target values into the group, where they are needed, if they have been moved to another group. A target
+     * value is available for a move, if its group has fewer source values with its key than target values with its
+     * key. It gets moved into a group, that has more source values with its key than target values with its key, thus
+     * the merge of the group reuses the target value instead of creating a new one. Groups, that end up empty, are
+     * removed.
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <GroupKey> the type of the group keys
+     * @param <TargetCollection> the type of the collections in the target map
+     * @param <TargetValue> the type of the target values
+     * @param sourceMap the grouped source values
+     * @param targetMap the grouped target values
+     * @param sourceKeyFunction the function returning the key of a source value in the group, never called with null
+     * @param targetKeyFunction the function returning the key of a target value, never called with null
+     * @param createTargetCollectionFunction create a new collection entry for the target map
+     * @return the keys of the groups, that have received target values
+     */
+    static <SourceValue, GroupKey, TargetCollection extends Collection<TargetValue>, TargetValue> Set<GroupKey> relocateMovedValues(
+        Map<GroupKey, ? extends Iterable<? extends SourceValue>> sourceMap, Map<GroupKey, TargetCollection> targetMap,
+        BiFunction<? super GroupKey, ? super SourceValue, Object> sourceKeyFunction,
+        Function<? super TargetValue, Object> targetKeyFunction,
+        Supplier<TargetCollection> createTargetCollectionFunction)
+    {
+        KeyIndex<Pair<GroupKey, TargetValue>> availableTargetValues = new KeyIndex<>(16);
+
+        for (Entry<GroupKey, TargetCollection> targetEntry : targetMap.entrySet())
+        {
+            if (targetEntry.getValue() == null)
+            {
+                continue;
+            }
+
+            GroupKey groupKey = targetEntry.getKey();
+            Map<Object, int[]> sourceKeyCounts =
+                countKeys(sourceMap.get(groupKey), sourceValue -> sourceKeyFunction.apply(groupKey, sourceValue));
+
+            for (TargetValue targetValue : targetEntry.getValue())
+            {
+                if (targetValue == null)
+                {
+                    continue;
+                }
+
+                Object key = targetKeyFunction.apply(targetValue);
+                int[] sourceKeyCount = sourceKeyCounts.get(key);
+
+                if (sourceKeyCount != null && sourceKeyCount[0] > 0)
+                {
+                    sourceKeyCount[0]--;
+                }
+                else
+                {
+                    availableTargetValues.add(key, Pair.of(groupKey, targetValue));
+                }
+            }
+        }
+
+        if (availableTargetValues.isEmpty())
+        {
+            return Collections.emptySet();
+        }
+
+        Set<GroupKey> relocatedGroupKeys = new HashSet<>();
+        Set<GroupKey> emptiedGroupKeys = new HashSet<>();
+
+        for (Entry<GroupKey, ? extends Iterable<? extends SourceValue>> sourceEntry : sourceMap.entrySet())
+        {
+            if (sourceEntry.getValue() == null)
+            {
+                continue;
+            }
+
+            GroupKey groupKey = sourceEntry.getKey();
+            Map<Object, int[]> targetKeyCounts = countKeys(targetMap.get(groupKey), targetKeyFunction);
+
+            for (SourceValue sourceValue : sourceEntry.getValue())
+            {
+                if (sourceValue == null)
+                {
+                    continue;
+                }
+
+                Object key = sourceKeyFunction.apply(groupKey, sourceValue);
+                int[] targetKeyCount = targetKeyCounts.get(key);
+
+                if (targetKeyCount != null && targetKeyCount[0] > 0)
+                {
+                    targetKeyCount[0]--;
+
+                    continue;
+                }
+
+                Pair<GroupKey, TargetValue> availableTargetValue = availableTargetValues.poll(key);
+
+                if (availableTargetValue == null)
+                {
+                    continue;
+                }
+
+                TargetCollection originalTargetCollection = targetMap.get(availableTargetValue.getLeft());
+
+                removeIdentical(originalTargetCollection, availableTargetValue.getRight());
+
+                if (originalTargetCollection.isEmpty())
+                {
+                    emptiedGroupKeys.add(availableTargetValue.getLeft());
+                }
+
+                TargetCollection targetCollection = targetMap.get(groupKey);
+
+                if (targetCollection == null)
+                {
+                    targetCollection = createTargetCollectionFunction.get();
+
+                    targetMap.put(groupKey, targetCollection);
+                }
+
+                targetCollection.add(availableTargetValue.getRight());
+                relocatedGroupKeys.add(groupKey);
+            }
+        }
+
+        for (GroupKey groupKey : emptiedGroupKeys)
+        {
+            // the group may have received other target values in the meantime
+            if (targetMap.get(groupKey).isEmpty())
+            {
+                targetMap.remove(groupKey);
+            }
+        }
+
+        return relocatedGroupKeys;
+    }
+
+    private static <Value> Map<Object, int[]> countKeys(Iterable<? extends Value> values,
+        Function<? super Value, Object> keyFunction)
+    {
+        if (values == null)
+        {
+            return Collections.emptyMap();
+        }
+
+        Map<Object, int[]> keyCounts = new HashMap<>();
+
+        for (Value value : values)
+        {
+            if (value != null)
+            {
+                keyCounts.computeIfAbsent(keyFunction.apply(value), key -> new int[1])[0]++;
+            }
+        }
+
+        return keyCounts;
+    }
+
+    static void removeIdentical(Collection<?> collection, Object value)
+    {
+        Iterator<?> iterator = collection.iterator();
+
+        while (iterator.hasNext())
+        {
+            if (iterator.next() == value)
+            {
+                iterator.remove();
+
+                return;
+            }
+        }
+    }
+
     /**
      * Maps the collections of the source map into the target list (performs an un-grouping operation). Keeps the order
      * of the collection. Searches for existing objects by using the specified match function, which may only match some
@@ -0,0 +1,28 @@
+package at.porscheinformatik.antimapper;
+
+/**
+ * An {@link OrderedDiff} backed by a common subsequence, given as the index of the matching target value for each
+ * source value (-1 if the source value is not part of the subsequence).
+ *
+ * @author ham
+ */
+final class MatchingDiff implements OrderedDiff
+{
+
+    private final int[] sourceToTarget;
+
+    MatchingDiff(int[] sourceToTarget)
+    {
+        super();
+
+        this.sourceToTarget = sourceToTarget;
+    }
+
+    @Override
+    public boolean isAddition(int sourceIndex, int targetIndex)
+    {
+        // the source value is not part of the subsequence or its target value has already been passed
+        return sourceToTarget[sourceIndex] <= targetIndex;
+    }
+
+}
@@ -3,7 +3,9 @@ package at.porscheinformatik.antimapper;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -44,6 +46,33 @@ public interface Merger<DTO, Entity> extends HintsProvider
      */
     boolean isUniqueKeyMatching(DTO dto, Entity entity, Object... hints);
 
+    /**
+     * Returns the function extracting the unique keys of DTOs and entities, if the unique key can be expressed as a
+     * single value (e.g. the id). The function must be consistent with
+     * {@link #isUniqueKeyMatching(Object, Object, Object...)}. If available, merging into collections uses hash lookups
+     * instead of comparing each DTO with each entity. The default implementation returns null.
+     *
+     * @return the unique key function, null if not available
+     */
+    default UniqueKeyFunction<DTO, Entity> getUniqueKeyFunction()
+    {
+        return null;
+    }
+
+    /**
+     * Returns the predicate, that tests if an entity has been deleted (e.g. by a deleted flag set in
+     * {@link AbstractMerger#mergeNull(Object, Object[])}), if deleted entities are kept in the collections. If
+     * available, merging into mixed collections keeps the deleted entities apart: they stay in the collection at their
+     * position, they are only looked up to revive them in place, if a DTO does not match any other entity, and they are
+     * not merged again. The default implementation returns null.
+     *
+     * @return the deleted predicate, null if not available
+     */
+    default Predicate<Entity> getDeletedPredicate()
+    {
+        return null;
+    }
+
     default boolean isUniqueKeyMatchingNullable(DTO dto, Entity entity, Object... hints)
     {
         if (dto == entity)
@@ -111,18 +140,36 @@ public interface Merger<DTO, Entity> extends HintsProvider
                 return Merger.this.isUniqueKeyMatchingNullable(dto, entity, hints);
             }
 
+            @Override
+            protected UniqueKeyFunction<DTO, Entity> getUniqueKeyFunction()
+            {
+                return Merger.this.getUniqueKeyFunction();
+            }
+
             @Override
             protected Entity merge(DTO dto, Entity entity, Object[] hints)
             {
                 return Merger.this.merge(dto, entity, hints);
             }
 
+            @Override
+            Entity mergeWithContext(DTO dto, Entity entity, HintContext context)
+            {
+                return AbstractMerger.mergeWithContext(Merger.this, dto, entity, context);
+            }
+
             @Override
             protected void afterMergeIntoCollection(Collection<Entity> entities, Object[] hints)
             {
                 Merger.this.afterMergeIntoCollection(entities, hints);
             }
 
+            @Override
+            protected Predicate<Entity> getDeletedPredicate()
+            {
+                return Merger.this.getDeletedPredicate();
+            }
+
             @Override
             protected Object[] getTransformerHints()
             {
@@ -149,28 +196,227 @@ public interface Merger<DTO, Entity> extends HintsProvider
             @Override
             protected boolean isUniqueKeyMatchingNullable(Entry<?, ? extends DTO> dtoContainer, Entity entity,
                 Object[] hints)
+            {
+                return isUniqueKeyMatchingWithContext(dtoContainer, entity, HintContext.of(hints));
+            }
+
+            @Override
+            boolean isUniqueKeyMatchingWithContext(Entry<?, ? extends DTO> dtoContainer, Entity entity,
+                HintContext context)
             {
                 if (dtoContainer == null)
                 {
-                    return Merger.this.isUniqueKeyMatchingNullable(null, entity, hints);
+                    return Merger.this.isUniqueKeyMatchingNullable(null, entity, context.toArray());
                 }
 
                 // We add the key as additional hint as this can be important information for implementations
                 return Merger.this
                     .isUniqueKeyMatchingNullable(dtoContainer.getValue(), entity,
-                        Hints.join(hints, dtoContainer.getKey()));
+                        context.with(dtoContainer.getKey()).toArray());
+            }
+
+            @Override
+            protected UniqueKeyFunction<Entry<?, ? extends DTO>, Entity> getUniqueKeyFunction()
+            {
+                UniqueKeyFunction<DTO, Entity> uniqueKeyFunction = Merger.this.getUniqueKeyFunction();
+
+                if (uniqueKeyFunction == null)
+                {
+                    return null;
+                }
+
+                return new UniqueKeyFunction<Entry<?, ? extends DTO>, Entity>()
+                {
+                    @Override
+                    public Object uniqueKeyOfDTO(Entry<?, ? extends DTO> dtoContainer, Object... hints)
+                    {
+                        // We add the key as additional hint as this can be important information for implementations
+                        if (dtoContainer.getValue() == null)
+                        {
+                            return MapperUtils.NO_KEY;
+                        }
+
+                        return uniqueKeyFunction
+                            .uniqueKeyOfDTO(dtoContainer.getValue(), Hints.join(hints, dtoContainer.getKey()));
+                    }
+
+                    @Override
+                    public Object uniqueKeyOfEntity(Entity entity, Object... hints)
+                    {
+                        return uniqueKeyFunction.uniqueKeyOfEntity(entity, hints);
+                    }
+                };
+            }
+
+            @Override
+            protected Entity merge(Entry<?, ? extends DTO> dtoContainer, Entity entity, Object[] hints)
+            {
+                return mergeWithContext(dtoContainer, entity, HintContext.of(hints));
+            }
+
+            @Override
+            Entity mergeWithContext(Entry<?, ? extends DTO> dtoContainer, Entity entity, HintContext context)
+            {
+                if (dtoContainer == null)
+                {
+                    return AbstractMerger.mergeWithContext(Merger.this, null, entity, context);
+                }
+
+                // We add the key as additional hint as this can be important information for implementations
+                return AbstractMerger
+                    .mergeWithContext(Merger.this, dtoContainer.getValue(), entity,
+                        context.with(dtoContainer.getKey()));
+            }
+
+            @Override
+            protected void afterMergeIntoCollection(Collection<Entity> entities, Object[] hints)
+            {
+                Merger.this.afterMergeIntoCollection(entities, hints);
+            }
+
+            @Override
+            protected Predicate<Entity> getDeletedPredicate()
+            {
+                return Merger.this.getDeletedPredicate();
+            }
+
+            @Override
+            protected Object[] getTransformerHints()
+            {
+                return Merger.this.getDefaultHints();
+            }
+        };
+    }
+
+    /**
+     * Creates a {@link StreamMerger} for merging multiple DTOs into multiple Entities. The key of the map is the unique
+     * key of the DTO: an entity matches the DTO, if the entity key function returns the key of the map. The entities
+     * are looked up in a hash index of their keys, instead of comparing each DTO with each entity. Ignores DTOs that
+     * merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance if the
+     * {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case, merging the entities). Never
+     * returns null if the {@link Hint#OR_EMPTY} is set.
+     *
+     * @param dtos the DTOs, may be null
+     * @param entityKeyFunction the function returning the key of an entity, never called with null
+     * @param hints optional hints
+     * @return a {@link StreamMerger}
+     */
+    default StreamMerger<DTO, Entity> mergeAllByKey(Map<?, ? extends DTO> dtos,
+        Function<? super Entity, ?> entityKeyFunction, Object... hints)
+    {
+        return new AbstractStreamMerger<DTO, Entry<?, ? extends DTO>, Entity>(
+            () -> dtos != null ? dtos.entrySet().stream() : null, hints)
+        {
+            @Override
+            protected boolean isUniqueKeyMatchingNullable(Entry<?, ? extends DTO> dtoContainer, Entity entity,
+                Object[] hints)
+            {
+                if (dtoContainer == null || dtoContainer.getValue() == null)
+                {
+                    return Merger.this.isUniqueKeyMatchingNullable(null, entity, hints);
+                }
+
+                return entity != null && Objects.equals(dtoContainer.getKey(), entityKeyFunction.apply(entity));
+            }
+
+            @Override
+            protected UniqueKeyFunction<Entry<?, ? extends DTO>, Entity> getUniqueKeyFunction()
+            {
+                return new UniqueKeyFunction<Entry<?, ? extends DTO>, Entity>()
+                {
+                    @Override
+                    public Object uniqueKeyOfDTO(Entry<?, ? extends DTO> dtoContainer, Object... hints)
+                    {
+                        if (dtoContainer.getValue() == null)
+                        {
+                            return MapperUtils.NO_KEY;
+                        }
+
+                        return dtoContainer.getKey();
+                    }
+
+                    @Override
+                    public Object uniqueKeyOfEntity(Entity entity, Object... hints)
+                    {
+                        return entityKeyFunction.apply(entity);
+                    }
+                };
             }
 
             @Override
             protected Entity merge(Entry<?, ? extends DTO> dtoContainer, Entity entity, Object[] hints)
+            {
+                return mergeWithContext(dtoContainer, entity, HintContext.of(hints));
+            }
+
+            @Override
+            Entity mergeWithContext(Entry<?, ? extends DTO> dtoContainer, Entity entity, HintContext context)
             {
                 if (dtoContainer == null)
                 {
-                    return Merger.this.merge(null, entity, hints);
+                    return AbstractMerger.mergeWithContext(Merger.this, null, entity, context);
                 }
 
                 // We add the key as additional hint as this can be important information for implementations
-                return Merger.this.merge(dtoContainer.getValue(), entity, Hints.join(hints, dtoContainer.getKey()));
+                return AbstractMerger
+                    .mergeWithContext(Merger.this, dtoContainer.getValue(), entity,
+                        context.with(dtoContainer.getKey()));
+            }
+
+            @Override
+            protected void afterMergeIntoCollection(Collection<Entity> entities, Object[] hints)
+            {
+                Merger.this.afterMergeIntoCollection(entities, hints);
+            }
+
+            @Override
+            protected Predicate<Entity> getDeletedPredicate()
+            {
+                return Merger.this.getDeletedPredicate();
+            }
+
+            @Override
+            protected Object[] getTransformerHints()
+            {
+                return Merger.this.getDefaultHints();
+            }
+        };
+    }
+
+    /**
+     * Creates a {@link TreeMerger} for merging a tree of DTOs into a tree of entities. If the merger provides a
+     * {@link UniqueKeyFunction}, all entities of the tree are indexed by their keys once, and entities, whose DTOs have
+     * been moved to another parent, are moved to the new parent and merged once, instead of being merged as missing
+     * entities and created again. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set.
+     * Returns an unmodifiable instance of the roots if the {@link Hint#UNMODIFIABLE} is set. Never returns null if the
+     * {@link Hint#OR_EMPTY} is set.
+     *
+     * @param dtos the root DTOs, may be null
+     * @param dtoChildrenFunction the function returning the children of a DTO, the result may be null
+     * @param hints optional hints
+     * @return a {@link TreeMerger}
+     */
+    default TreeMerger<DTO, Entity> mergeTree(Iterable<? extends DTO> dtos,
+        Function<? super DTO, ? extends Iterable<? extends DTO>> dtoChildrenFunction, Object... hints)
+    {
+        return new AbstractTreeMerger<DTO, Entity>(dtos, dtoChildrenFunction, hints)
+        {
+            @Override
+            protected boolean isUniqueKeyMatchingNullable(DTO dto, Entity entity, Object[] hints)
+            {
+                return Merger.this.isUniqueKeyMatchingNullable(dto, entity, hints);
+            }
+
+            @Override
+            protected UniqueKeyFunction<DTO, Entity> getUniqueKeyFunction()
+            {
+                return Merger.this.getUniqueKeyFunction();
+            }
+
+            @Override
+            protected Entity merge(DTO dto, Entity entity, Object[] hints)
+            {
+                return Merger.this.merge(dto, entity, hints);
             }
 
             @Override
@@ -254,7 +500,8 @@ public interface Merger<DTO, Entity> extends HintsProvider
         Function<? super ParentDTO, ? extends Iterable<? extends DTO>> mapper, Object... hints)
     {
 
-        Supplier<Stream<? extends Pair<DTO, ParentDTO>>> dtoStreamSupplier = () -> {
+        // the parent is added to the context once and shared by its DTOs
+        Supplier<Stream<? extends HintedValue<DTO>>> dtoStreamSupplier = () -> {
             Stream<? extends ParentDTO> parentDtoStream = parentDtoStreamSupplier.get();
 
             if (parentDtoStream == null)
@@ -262,29 +509,64 @@ public interface Merger<DTO, Entity> extends HintsProvider
                 return null;
             }
 
-            return parentDtoStream.filter(parentDto -> parentDto != null).flatMap(parentDto -> {
-                Iterable<? extends DTO> iterable = mapper.apply(parentDto);
-                Stream<? extends DTO> stream = MapperUtils.streamOrEmpty(iterable);
-
-                return stream.map(dto -> Pair.of(dto, parentDto));
-            });
+            return HintedValue
+                .flatten(parentDtoStream, parentDto -> MapperUtils.streamOrEmpty(mapper.apply(parentDto)),
+                    HintContext.of(hints));
         };
 
-        return new AbstractStreamMerger<DTO, Pair<DTO, ParentDTO>, Entity>(dtoStreamSupplier, hints)
+        return new AbstractStreamMerger<DTO, HintedValue<DTO>, Entity>(dtoStreamSupplier, hints)
         {
             @Override
-            protected boolean isUniqueKeyMatchingNullable(Pair<DTO, ParentDTO> dtoContainer, Entity entity,
+            protected boolean isUniqueKeyMatchingNullable(HintedValue<DTO> dtoContainer, Entity entity,
                 Object[] hints)
             {
                 return Merger.this
-                    .isUniqueKeyMatchingNullable(dtoContainer.getLeft(), entity,
-                        Hints.join(hints, dtoContainer.getRight()));
+                    .isUniqueKeyMatchingNullable(dtoContainer.getValue(), entity, dtoContainer.getHints());
+            }
+
+            @Override
+            protected UniqueKeyFunction<HintedValue<DTO>, Entity> getUniqueKeyFunction()
+            {
+                UniqueKeyFunction<DTO, Entity> uniqueKeyFunction = Merger.this.getUniqueKeyFunction();
+
+                if (uniqueKeyFunction == null)
+                {
+                    return null;
+                }
+
+                return new UniqueKeyFunction<HintedValue<DTO>, Entity>()
+                {
+                    @Override
+                    public Object uniqueKeyOfDTO(HintedValue<DTO> dtoContainer, Object... hints)
+                    {
+                        if (dtoContainer.getValue() == null)
+                        {
+                            return MapperUtils.NO_KEY;
+                        }
+
+                        return uniqueKeyFunction.uniqueKeyOfDTO(dtoContainer.getValue(), dtoContainer.getHints());
+                    }
+
+                    @Override
+                    public Object uniqueKeyOfEntity(Entity entity, Object... hints)
+                    {
+                        return uniqueKeyFunction.uniqueKeyOfEntity(entity, hints);
+                    }
+                };
+            }
+
+            @Override
+            protected Entity merge(HintedValue<DTO> dtoContainer, Entity entity, Object[] hints)
+            {
+                return mergeWithContext(dtoContainer, entity, HintContext.of(hints));
             }
 
             @Override
-            protected Entity merge(Pair<DTO, ParentDTO> dtoContainer, Entity entity, Object[] hints)
+            Entity mergeWithContext(HintedValue<DTO> dtoContainer, Entity entity, HintContext context)
             {
-                return Merger.this.merge(dtoContainer.getLeft(), entity, Hints.join(hints, dtoContainer.getRight()));
+                // the context of the parent already contains the hints of this merger
+                return AbstractMerger
+                    .mergeWithContext(Merger.this, dtoContainer.getValue(), entity, dtoContainer.getContext());
             }
 
             @Override
@@ -293,6 +575,12 @@ public interface Merger<DTO, Entity> extends HintsProvider
                 Merger.this.afterMergeIntoCollection(entities, hints);
             }
 
+            @Override
+            protected Predicate<Entity> getDeletedPredicate()
+            {
+                return Merger.this.getDeletedPredicate();
+            }
+
             @Override
             protected Object[] getTransformerHints()
             {
@@ -320,18 +608,36 @@ public interface Merger<DTO, Entity> extends HintsProvider
                 return Merger.this.isUniqueKeyMatchingNullable(dto, entity, hints);
             }
 
+            @Override
+            protected UniqueKeyFunction<DTO, Entity> getUniqueKeyFunction()
+            {
+                return Merger.this.getUniqueKeyFunction();
+            }
+
             @Override
             protected Entity merge(DTO dto, Entity entity, Object[] hints)
             {
                 return Merger.this.merge(dto, entity, hints);
             }
 
+            @Override
+            Entity mergeWithContext(DTO dto, Entity entity, HintContext context)
+            {
+                return AbstractMerger.mergeWithContext(Merger.this, dto, entity, context);
+            }
+
             @Override
             protected void afterMergeIntoCollection(Collection<Entity> entities, Object[] hints)
             {
                 Merger.this.afterMergeIntoCollection(entities, hints);
             }
 
+            @Override
+            protected Predicate<Entity> getDeletedPredicate()
+            {
+                return Merger.this.getDeletedPredicate();
+            }
+
             @Override
             protected Object[] getTransformerHints()
             {
@@ -0,0 +1,194 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The linear space variant of the diff algorithm described in "An O(ND) Difference Algorithm and Its Variations" by
+ * Eugene W. Myers. Finds the middle snake of the shortest edit script and divides the problem at this snake.
+ *
+ * @author ham
+ * @param <SourceValue> the type of the source values
+ * @param <TargetValue> the type of the target values
+ */
+final class MyersDiff<SourceValue, TargetValue>
+{
+
+    /**
+     * Computes a longest common subsequence of the lists.
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     * @param sourceList the source list, may be null
+     * @param targetList the target list, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @return the index of the matching target value for each source value, -1 if the source value is not part of the
+     *         subsequence
+     */
+    static <SourceValue, TargetValue> int[] match(List<? extends SourceValue> sourceList, List<TargetValue> targetList,
+        MatchFunction<SourceValue, TargetValue> matchFunction)
+    {
+        int sourceSize = (sourceList != null) ? sourceList.size() : 0;
+        int[] sourceToTarget = new int[sourceSize];
+
+        Arrays.fill(sourceToTarget, -1);
+
+        if (sourceSize > 0 && targetList.size() > 0)
+        {
+            new MyersDiff<>(sourceList, targetList, matchFunction, sourceToTarget)
+                .match(0, sourceSize, 0, targetList.size());
+        }
+
+        return sourceToTarget;
+    }
+
+    private final List<? extends SourceValue> sourceList;
+    private final List<TargetValue> targetList;
+    private final MatchFunction<SourceValue, TargetValue> matchFunction;
+    private final int[] sourceToTarget;
+    private final int[] forward;
+    private final int[] backward;
+
+    private MyersDiff(List<? extends SourceValue> sourceList, List<TargetValue> targetList,
+        MatchFunction<SourceValue, TargetValue> matchFunction, int[] sourceToTarget)
+    {
+        super();
+
+        this.sourceList = sourceList;
+        this.targetList = targetList;
+        this.matchFunction = matchFunction;
+        this.sourceToTarget = sourceToTarget;
+
+        int size = sourceList.size() + targetList.size() + 3;
+
+        forward = new int[2 * size];
+        backward = new int[2 * size];
+    }
+
+    private boolean matches(int sourceIndex, int targetIndex)
+    {
+        return matchFunction.matches(sourceList.get(sourceIndex), targetList.get(targetIndex));
+    }
+
+    private void match(int sourceStart, int sourceEnd, int targetStart, int targetEnd)
+    {
+        // common prefix
+        while (sourceStart < sourceEnd && targetStart < targetEnd && matches(sourceStart, targetStart))
+        {
+            sourceToTarget[sourceStart++] = targetStart++;
+        }
+
+        // common suffix
+        while (sourceStart < sourceEnd && targetStart < targetEnd && matches(sourceEnd - 1, targetEnd - 1))
+        {
+            sourceToTarget[--sourceEnd] = --targetEnd;
+        }
+
+        if (sourceStart == sourceEnd || targetStart == targetEnd)
+        {
+            return;
+        }
+
+        int[] snake = findMiddleSnake(sourceStart, sourceEnd, targetStart, targetEnd);
+
+        for (int i = 0; i < snake[2] - snake[0]; i++)
+        {
+            sourceToTarget[snake[0] + i] = snake[1] + i;
+        }
+
+        match(sourceStart, snake[0], targetStart, snake[1]);
+        match(snake[2], sourceEnd, snake[3], targetEnd);
+    }
+
+    /**
+     * Finds the middle snake. The lists must not be empty, the first and the last values must not match.
+     *
+     * @return the start (source and target index) and the end (source and target index) of the snake
+     */
+    private int[] findMiddleSnake(int sourceStart, int sourceEnd, int targetStart, int targetEnd)
+    {
+        int n = sourceEnd - sourceStart;
+        int m = targetEnd - targetStart;
+        int delta = n - m;
+        boolean odd = (delta & 1) != 0;
+        int offset = n + m + 1;
+        int maxD = (n + m + 1) / 2;
+
+        // forward[offset + k] holds the furthest x on diagonal k = x - y, starting at the beginning
+        // backward[offset + k] holds the furthest x on diagonal k = x - y, starting at the end (reversed coordinates)
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+
+        for (int d = 0; d <= maxD; d++)
+        {
+            for (int k = -d; k <= d; k += 2)
+            {
+                int x;
+
+                if (k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1]))
+                {
+                    x = forward[offset + k + 1];
+                }
+                else
+                {
+                    x = forward[offset + k - 1] + 1;
+                }
+
+                int y = x - k;
+                int snakeX = x;
+                int snakeY = y;
+
+                while (x < n && y < m && matches(sourceStart + x, targetStart + y))
+                {
+                    x++;
+                    y++;
+                }
+
+                forward[offset + k] = x;
+
+                int backwardK = delta - k;
+
+                if (odd && backwardK >= -(d - 1) && backwardK <= d - 1 && x + backward[offset + backwardK] >= n)
+                {
+                    return new int[]{sourceStart + snakeX, targetStart + snakeY, sourceStart + x, targetStart + y};
+                }
+            }
+
+            for (int k = -d; k <= d; k += 2)
+            {
+                int x;
+
+                if (k == -d || (k != d && backward[offset + k - 1] < backward[offset + k + 1]))
+                {
+                    x = backward[offset + k + 1];
+                }
+                else
+                {
+                    x = backward[offset + k - 1] + 1;
+                }
+
+                int y = x - k;
+                int snakeX = x;
+                int snakeY = y;
+
+                while (x < n && y < m && matches(sourceEnd - 1 - x, targetEnd - 1 - y))
+                {
+                    x++;
+                    y++;
+                }
+
+                backward[offset + k] = x;
+
+                int forwardK = delta - k;
+
+                if (!odd && forwardK >= -d && forwardK <= d && x + forward[offset + forwardK] >= n)
+                {
+                    return new int[]{sourceEnd - x, targetEnd - y, sourceEnd - snakeX, targetEnd - snakeY};
+                }
+            }
+        }
+
+        throw new IllegalStateException("Middle snake not found");
+    }
+
+}
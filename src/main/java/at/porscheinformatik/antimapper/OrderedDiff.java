@@ -0,0 +1,135 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.List;
+
+/**
+ * The difference between a source and a target list, as needed by ordered merges. The merge walks both lists and asks
+ * the difference, whether the current source value should be added or the current target value should be removed.
+ *
+ * @author ham
+ */
+interface OrderedDiff
+{
+
+    /**
+     * Computes the difference between the source and the target list with the algorithm specified by the options.
+     * Strips the common prefix and the common suffix of the lists before computing the difference. The algorithm is
+     * chosen by the size of the remaining lists. Appending and truncating lists needs no difference computation at
+     * all.
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     * @param sourceList the source list, may be null
+     * @param targetList the target list, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param options the options
+     * @return the difference
+     */
+    static <SourceValue, TargetValue> OrderedDiff create(List<? extends SourceValue> sourceList,
+        List<TargetValue> targetList, MatchFunction<SourceValue, TargetValue> matchFunction,
+        OrderedMergeOptions options)
+    {
+        int sourceSize = (sourceList != null) ? sourceList.size() : 0;
+        int targetSize = targetList.size();
+        int prefixLength = 0;
+
+        while (prefixLength < sourceSize
+            && prefixLength < targetSize
+            && matchFunction.matches(sourceList.get(prefixLength), targetList.get(prefixLength)))
+        {
+            prefixLength++;
+        }
+
+        int suffixLength = 0;
+
+        while (prefixLength + suffixLength < sourceSize
+            && prefixLength + suffixLength < targetSize
+            && matchFunction
+                .matches(sourceList.get(sourceSize - suffixLength - 1), targetList.get(targetSize - suffixLength - 1)))
+        {
+            suffixLength++;
+        }
+
+        if (prefixLength == 0 && suffixLength == 0)
+        {
+            return createUntrimmed(sourceList, targetList, matchFunction, options);
+        }
+
+        return new TrimmedDiff<>(sourceList, targetList, matchFunction, options, prefixLength,
+            sourceSize - suffixLength, targetSize - suffixLength);
+    }
+
+    /**
+     * Computes the difference between the source and the target list with the algorithm specified by the options. Tries
+     * the {@link BoundedDiff} first, if the options specify a maximum edit distance. If the differences should be
+     * computed in parallel, the lists are split at anchors by the {@link ParallelDiff} before choosing the algorithm
+     * (the {@link PatienceDiff} splits the lists itself).
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     * @param sourceList the source list, may be null
+     * @param targetList the target list, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param options the options
+     * @return the difference
+     */
+    @SuppressWarnings("unchecked")
+    static <SourceValue, TargetValue> OrderedDiff createUntrimmed(List<? extends SourceValue> sourceList,
+        List<TargetValue> targetList, MatchFunction<SourceValue, TargetValue> matchFunction,
+        OrderedMergeOptions options)
+    {
+        int sourceSize = (sourceList != null) ? sourceList.size() : 0;
+        int targetSize = targetList.size();
+
+        if (options.getMaxEditDistance() > 0)
+        {
+            int[] sourceToTarget = BoundedDiff.match(sourceList, targetList, matchFunction, options.getMaxEditDistance());
+
+            if (sourceToTarget != null)
+            {
+                return new MatchingDiff(sourceToTarget);
+            }
+        }
+
+        if (options.isParallel()
+            && options.getDiffAlgorithm() != DiffAlgorithm.PATIENCE
+            && matchFunction instanceof KeyMatchFunction<?, ?>)
+        {
+            return ParallelDiff
+                .create(sourceList, targetList, (KeyMatchFunction<SourceValue, TargetValue>) matchFunction, options);
+        }
+
+        switch (options
+            .resolveDiffAlgorithm(sourceSize, targetSize, matchFunction instanceof KeyMatchFunction<?, ?>))
+        {
+            case LCS_TABLE:
+                return LCSTableDiff.create(sourceList, targetList, matchFunction);
+
+            case LINEAR_SPACE:
+                return new MatchingDiff(MyersDiff.match(sourceList, targetList, matchFunction));
+
+            case PATIENCE:
+                return new MatchingDiff(PatienceDiff
+                    .match(sourceList, targetList, (KeyMatchFunction<SourceValue, TargetValue>) matchFunction,
+                        options.isParallel()));
+
+            case BIT_PARALLEL:
+                return BitParallelDiff
+                    .create(sourceList, targetList, (KeyMatchFunction<SourceValue, TargetValue>) matchFunction);
+
+            default:
+                throw new UnsupportedOperationException("Unsupported algorithm: " + options.getDiffAlgorithm());
+        }
+    }
+
+    /**
+     * Returns true if the source value at the specified index should be added in front of the target value at the
+     * specified index, false if the target value should be removed. Only called, if the values do not match.
+     *
+     * @param sourceIndex the index of the source value
+     * @param targetIndex the index of the target value
+     * @return true to add the source value, false to remove the target value
+     */
+    boolean isAddition(int sourceIndex, int targetIndex);
+
+}
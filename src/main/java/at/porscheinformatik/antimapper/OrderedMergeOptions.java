@@ -0,0 +1,297 @@
+package at.porscheinformatik.antimapper;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Options for merging into ordered collections. The options are immutable. Pass them as hint to the merger or directly
+ * to the {@link MapperUtils}.
+ *
+ * @author ham
+ */
+public final class OrderedMergeOptions implements Serializable
+{
+
+    private static final long serialVersionUID = -4402520384316625386L;
+
+    /**
+     * The default number of table cells (source size times target size), up to which the {@link DiffAlgorithm#AUTO}
+     * uses the {@link DiffAlgorithm#LCS_TABLE}.
+     */
+    public static final long DEFAULT_LCS_TABLE_THRESHOLD = 1_000_000L;
+
+    /**
+     * The default options.
+     */
+    public static final OrderedMergeOptions DEFAULT =
+        new OrderedMergeOptions(DiffAlgorithm.AUTO, DEFAULT_LCS_TABLE_THRESHOLD, ListUpdateStrategy.AUTO, false, 0,
+            false);
+
+    /**
+     * Returns the options, that are contained in the hints, the default options if there are none.
+     *
+     * @param hints the hints, may be null
+     * @return the options, never null
+     */
+    public static OrderedMergeOptions of(Object... hints)
+    {
+        return Hints.hintOrElse(hints, OrderedMergeOptions.class, DEFAULT);
+    }
+
+    private final DiffAlgorithm diffAlgorithm;
+    private final long lcsTableThreshold;
+    private final ListUpdateStrategy listUpdateStrategy;
+    private final boolean moveDetection;
+    private final int maxEditDistance;
+    private final boolean parallel;
+
+    private OrderedMergeOptions(DiffAlgorithm diffAlgorithm, long lcsTableThreshold,
+        ListUpdateStrategy listUpdateStrategy, boolean moveDetection, int maxEditDistance, boolean parallel)
+    {
+        super();
+
+        this.diffAlgorithm = Objects.requireNonNull(diffAlgorithm, "DiffAlgorithm is null");
+        this.lcsTableThreshold = lcsTableThreshold;
+        this.listUpdateStrategy = Objects.requireNonNull(listUpdateStrategy, "ListUpdateStrategy is null");
+        this.moveDetection = moveDetection;
+        this.maxEditDistance = maxEditDistance;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Returns the algorithm used for computing the differences between the source and the target list.
+     *
+     * @return the algorithm, never null
+     */
+    public DiffAlgorithm getDiffAlgorithm()
+    {
+        return diffAlgorithm;
+    }
+
+    /**
+     * Returns options using the specified algorithm.
+     *
+     * @param diffAlgorithm the algorithm, may not be null
+     * @return new options
+     */
+    public OrderedMergeOptions withDiffAlgorithm(DiffAlgorithm diffAlgorithm)
+    {
+        return new OrderedMergeOptions(diffAlgorithm, lcsTableThreshold, listUpdateStrategy, moveDetection,
+            maxEditDistance, parallel);
+    }
+
+    /**
+     * Returns the maximum number of table cells (source size times target size), up to which the
+     * {@link DiffAlgorithm#AUTO} uses the {@link DiffAlgorithm#LCS_TABLE}.
+     *
+     * @return the threshold
+     */
+    public long getLcsTableThreshold()
+    {
+        return lcsTableThreshold;
+    }
+
+    /**
+     * Returns options using the specified threshold.
+     *
+     * @param lcsTableThreshold the maximum number of table cells, up to which the {@link DiffAlgorithm#AUTO} uses the
+     *            {@link DiffAlgorithm#LCS_TABLE}
+     * @return new options
+     */
+    public OrderedMergeOptions withLcsTableThreshold(long lcsTableThreshold)
+    {
+        return new OrderedMergeOptions(diffAlgorithm, lcsTableThreshold, listUpdateStrategy, moveDetection,
+            maxEditDistance, parallel);
+    }
+
+    /**
+     * Returns the strategy used for applying the differences to the target list.
+     *
+     * @return the strategy, never null
+     */
+    public ListUpdateStrategy getListUpdateStrategy()
+    {
+        return listUpdateStrategy;
+    }
+
+    /**
+     * Returns options using the specified strategy.
+     *
+     * @param listUpdateStrategy the strategy, may not be null
+     * @return new options
+     */
+    public OrderedMergeOptions withListUpdateStrategy(ListUpdateStrategy listUpdateStrategy)
+    {
+        return new OrderedMergeOptions(diffAlgorithm, lcsTableThreshold, listUpdateStrategy, moveDetection,
+            maxEditDistance, parallel);
+    }
+
+    /**
+     * Returns true if moved values should be detected. Without move detection, a value, that has been moved within the
+     * list, gets mapped as removed value (unless {@link Hint#KEEP_MISSING} is set) and then gets rescued and mapped
+     * again at its new position. With move detection, it just gets mapped once at its new position. Needs a
+     * {@link KeyMatchFunction} (e.g. a merger with a {@link UniqueKeyFunction}), ignored otherwise.
+     *
+     * @return true if moved values should be detected
+     */
+    public boolean isMoveDetection()
+    {
+        return moveDetection;
+    }
+
+    /**
+     * Returns options with the specified move detection.
+     *
+     * @param moveDetection true to detect moved values
+     * @return new options
+     */
+    public OrderedMergeOptions withMoveDetection(boolean moveDetection)
+    {
+        return new OrderedMergeOptions(diffAlgorithm, lcsTableThreshold, listUpdateStrategy, moveDetection,
+            maxEditDistance, parallel);
+    }
+
+    /**
+     * Returns the maximum number of edits (additions and removals), up to which the differences are computed by a
+     * bounded diff before using the {@link #getDiffAlgorithm()}. The bounded diff needs O((n+m)*k) time, where k is the
+     * maximum number of edits, and finds a longest common subsequence. If the lists differ by more edits, it gives up
+     * and the time is wasted. The result may differ from the {@link DiffAlgorithm#LCS_TABLE}, if multiple longest common
+     * subsequences exist. Zero disables the bounded diff (the default).
+     *
+     * @return the maximum number of edits, 0 if disabled
+     */
+    public int getMaxEditDistance()
+    {
+        return maxEditDistance;
+    }
+
+    /**
+     * Returns options using the specified maximum number of edits for the bounded diff.
+     *
+     * @param maxEditDistance the maximum number of edits, 0 to disable the bounded diff
+     * @return new options
+     */
+    public OrderedMergeOptions withMaxEditDistance(int maxEditDistance)
+    {
+        if (maxEditDistance < 0)
+        {
+            throw new IllegalArgumentException("Negative maximum edit distance: " + maxEditDistance);
+        }
+
+        return new OrderedMergeOptions(diffAlgorithm, lcsTableThreshold, listUpdateStrategy, moveDetection,
+            maxEditDistance, parallel);
+    }
+
+    /**
+     * Returns true if the differences should be computed in parallel. The lists are split at anchors (keys, that are
+     * unique in both lists) and the regions between the anchors are compared in parallel in the common
+     * {@link java.util.concurrent.ForkJoinPool}, each by the algorithm, that the options specify for its size. The
+     * result is deterministic. With the {@link DiffAlgorithm#PATIENCE} algorithm it is the same as without parallel
+     * computation, with the other algorithms the anchors are part of the common subsequence, thus it may not be the
+     * longest one. Needs a {@link KeyMatchFunction} for finding the anchors, without keys the differences are computed
+     * sequentially.
+     *
+     * @return true if the differences should be computed in parallel
+     */
+    public boolean isParallel()
+    {
+        return parallel;
+    }
+
+    /**
+     * Returns options with the specified parallel computation.
+     *
+     * @param parallel true to compute the differences in parallel
+     * @return new options
+     */
+    public OrderedMergeOptions withParallel(boolean parallel)
+    {
+        return new OrderedMergeOptions(diffAlgorithm, lcsTableThreshold, listUpdateStrategy, moveDetection,
+            maxEditDistance, parallel);
+    }
+
+    /**
+     * Returns the algorithm to use for a source and target list of the specified sizes.
+     *
+     * @param sourceSize the size of the source list
+     * @param targetSize the size of the target list
+     * @param keyed true if the match function provides keys
+     * @return the algorithm, never {@link DiffAlgorithm#AUTO}
+     */
+    DiffAlgorithm resolveDiffAlgorithm(int sourceSize, int targetSize, boolean keyed)
+    {
+        if (diffAlgorithm == DiffAlgorithm.AUTO
+            || ((diffAlgorithm == DiffAlgorithm.PATIENCE || diffAlgorithm == DiffAlgorithm.BIT_PARALLEL) && !keyed))
+        {
+            long cells = (long) (sourceSize + 1) * (targetSize + 1);
+
+            return cells <= lcsTableThreshold ? DiffAlgorithm.LCS_TABLE : DiffAlgorithm.LINEAR_SPACE;
+        }
+
+        return diffAlgorithm;
+    }
+
+    /**
+     * Returns the strategy to use for the specified target list.
+     *
+     * @param targetList the target list
+     * @return the strategy, never {@link ListUpdateStrategy#AUTO}
+     */
+    ListUpdateStrategy resolveListUpdateStrategy(List<?> targetList)
+    {
+        if (listUpdateStrategy != ListUpdateStrategy.AUTO)
+        {
+            return listUpdateStrategy;
+        }
+
+        // subclasses may depend on each single modification
+        if (targetList.getClass() == ArrayList.class)
+        {
+            return ListUpdateStrategy.REBUILD;
+        }
+
+        return ListUpdateStrategy.IN_PLACE;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects
+            .hash(diffAlgorithm, lcsTableThreshold, listUpdateStrategy, moveDetection, maxEditDistance, parallel);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+
+        if (obj == null || getClass() != obj.getClass())
+        {
+            return false;
+        }
+
+        OrderedMergeOptions other = (OrderedMergeOptions) obj;
+
+        return diffAlgorithm == other.diffAlgorithm
+            && lcsTableThreshold == other.lcsTableThreshold
+            && listUpdateStrategy == other.listUpdateStrategy
+            && moveDetection == other.moveDetection
+            && maxEditDistance == other.maxEditDistance
+            && parallel == other.parallel;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String
+            .format("OrderedMergeOptions(diffAlgorithm=%s, lcsTableThreshold=%d, listUpdateStrategy=%s, "
+                + "moveDetection=%s, maxEditDistance=%d, parallel=%s)", diffAlgorithm, lcsTableThreshold,
+                listUpdateStrategy, moveDetection, maxEditDistance, parallel);
+    }
+
+}
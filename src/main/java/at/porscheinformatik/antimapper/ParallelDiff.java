@@ -0,0 +1,209 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * An {@link OrderedDiff} of two lists, that are split at anchors into independent regions. The anchors are the keys,
+ * that are unique in both lists and form the longest increasing sequence (like the anchors of the
+ * {@link PatienceDiff}). The differences of the regions are computed in parallel in the common {@link ForkJoinPool} by
+ * the algorithm, that the options specify for the size of each region. The key functions are only called by the
+ * current thread, the regions compare the keys.
+ * <ul>
+ * <li>An anchor is never asked, because the ordered merge matches it.</li>
+ * <li>If the source index is at the anchor behind a region, the target value has to be removed. The same applies to
+ * target values in front of the region of the source index (only possible if values have been rescued).</li>
+ * <li>If the target index is at the anchor behind a region, the source value of the region has to be added.</li>
+ * <li>Otherwise the difference of the region answers.</li>
+ * </ul>
+ *
+ * @author ham
+ */
+final class ParallelDiff implements OrderedDiff
+{
+
+    private static final KeyMatchFunction<Object, Object> KEY_MATCH_FUNCTION =
+        KeyMatchFunction.of(Function.identity(), Function.identity());
+
+    /**
+     * Splits the lists at the anchors and computes the differences of the regions in parallel. Falls back to the
+     * sequential computation, if there are no anchors.
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     * @param sourceList the source list, may be null
+     * @param targetList the target list, may not be null
+     * @param keyMatchFunction the function to extract the keys of the values
+     * @param options the options, used for the regions without parallel computation
+     * @return the difference
+     */
+    static <SourceValue, TargetValue> OrderedDiff create(List<? extends SourceValue> sourceList,
+        List<TargetValue> targetList, KeyMatchFunction<SourceValue, TargetValue> keyMatchFunction,
+        OrderedMergeOptions options)
+    {
+        OrderedMergeOptions regionOptions = options.withParallel(false);
+        int sourceSize = (sourceList != null) ? sourceList.size() : 0;
+        Object[] sourceKeys = new Object[sourceSize];
+        Object[] targetKeys = new Object[targetList.size()];
+
+        for (int i = 0; i < sourceKeys.length; i++)
+        {
+            sourceKeys[i] = MapperUtils.sourceKeyOf(keyMatchFunction, sourceList.get(i));
+        }
+
+        for (int i = 0; i < targetKeys.length; i++)
+        {
+            targetKeys[i] = MapperUtils.targetKeyOf(keyMatchFunction, targetList.get(i));
+        }
+
+        int[] sourceToTarget = PatienceDiff.matchAnchors(sourceKeys, targetKeys);
+        // the regions (source start, source end, target start, target end), each ends at an anchor or the list end
+        List<int[]> regions = new ArrayList<>();
+        int sourceStart = 0;
+        int targetStart = 0;
+
+        for (int i = 0; i < sourceToTarget.length; i++)
+        {
+            if (sourceToTarget[i] >= 0)
+            {
+                regions.add(new int[]{sourceStart, i, targetStart, sourceToTarget[i]});
+
+                sourceStart = i + 1;
+                targetStart = sourceToTarget[i] + 1;
+            }
+        }
+
+        if (regions.isEmpty())
+        {
+            return OrderedDiff.createUntrimmed(sourceList, targetList, keyMatchFunction, regionOptions);
+        }
+
+        regions.add(new int[]{sourceStart, sourceKeys.length, targetStart, targetKeys.length});
+
+        ParallelDiff diff = new ParallelDiff(regions.toArray(new int[regions.size()][]));
+
+        ForkJoinPool.commonPool().invoke(diff.new RegionsTask(Arrays.asList(sourceKeys), Arrays.asList(targetKeys),
+            regionOptions, 0, diff.regions.length));
+
+        return diff;
+    }
+
+    private final int[][] regions;
+    private final OrderedDiff[] regionDiffs;
+
+    private ParallelDiff(int[][] regions)
+    {
+        super();
+
+        this.regions = regions;
+
+        regionDiffs = new OrderedDiff[regions.length];
+    }
+
+    @Override
+    public boolean isAddition(int sourceIndex, int targetIndex)
+    {
+        int low = 0;
+        int high = regions.length - 1;
+
+        // the last region starting at or in front of the source index
+        while (low < high)
+        {
+            int middle = (low + high + 1) >>> 1;
+
+            if (regions[middle][0] <= sourceIndex)
+            {
+                low = middle;
+            }
+            else
+            {
+                high = middle - 1;
+            }
+        }
+
+        int[] region = regions[low];
+
+        // the target value is in front of the region (the target index lags behind, if values have been rescued) or
+        // in front of the anchor behind the region
+        if (sourceIndex >= region[1] || targetIndex < region[2])
+        {
+            return false;
+        }
+
+        if (targetIndex >= region[3])
+        {
+            return true;
+        }
+
+        return regionDiffs[low].isAddition(sourceIndex - region[0], targetIndex - region[2]);
+    }
+
+    /**
+     * Computes the differences of the regions, splits them in halves as long as they are large enough.
+     */
+    private final class RegionsTask extends RecursiveAction
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int MIN_SPLIT_SIZE = 4096;
+
+        private final List<Object> sourceKeys;
+        private final List<Object> targetKeys;
+        private final OrderedMergeOptions options;
+        private final int start;
+        private final int end;
+
+        RegionsTask(List<Object> sourceKeys, List<Object> targetKeys, OrderedMergeOptions options, int start, int end)
+        {
+            super();
+
+            this.sourceKeys = sourceKeys;
+            this.targetKeys = targetKeys;
+            this.options = options;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            int size = 0;
+
+            for (int i = start; i < end; i++)
+            {
+                size += regions[i][1] - regions[i][0] + regions[i][3] - regions[i][2];
+            }
+
+            if (end - start == 1 || size < MIN_SPLIT_SIZE)
+            {
+                for (int i = start; i < end; i++)
+                {
+                    int[] region = regions[i];
+
+                    // regions without source or without target values are answered by the anchors
+                    if (region[0] < region[1] && region[2] < region[3])
+                    {
+                        // not trimmed, the prefix of a region may be asked, if the target index lags behind
+                        regionDiffs[i] = OrderedDiff
+                            .createUntrimmed(sourceKeys.subList(region[0], region[1]),
+                                targetKeys.subList(region[2], region[3]), KEY_MATCH_FUNCTION, options);
+                    }
+                }
+
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+
+            invokeAll(new RegionsTask(sourceKeys, targetKeys, options, start, middle),
+                new RegionsTask(sourceKeys, targetKeys, options, middle, end));
+        }
+
+    }
+
+}
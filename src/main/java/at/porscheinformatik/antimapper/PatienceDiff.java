@@ -0,0 +1,351 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The patience diff algorithm. Uses keys, that are unique in the source and in the target list, as anchors. The longest
+ * increasing sequence of these anchors is part of the common subsequence. The values between the anchors are processed
+ * the same way. If there are no unique keys left, the values are compared by the linear space algorithm of
+ * {@link MyersDiff}. The result is a common subsequence, but not necessarily the longest one.
+ *
+ * @author ham
+ */
+final class PatienceDiff
+{
+
+    /**
+     * Computes a common subsequence of the lists.
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     * @param sourceList the source list, may be null
+     * @param targetList the target list, may not be null
+     * @param keyMatchFunction the function to extract the keys of the values
+     * @return the index of the matching target value for each source value, -1 if the source value is not part of the
+     *         subsequence
+     */
+    static <SourceValue, TargetValue> int[] match(List<? extends SourceValue> sourceList, List<TargetValue> targetList,
+        KeyMatchFunction<SourceValue, TargetValue> keyMatchFunction)
+    {
+        return match(sourceList, targetList, keyMatchFunction, false);
+    }
+
+    /**
+     * Computes a common subsequence of the lists. If parallel, the lists are split at the anchors of the whole lists
+     * and the regions between the anchors are processed in parallel in the common {@link ForkJoinPool}. The regions are
+     * independent, the result is the same as the sequential one. The key functions are only called by the current
+     * thread.
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     * @param sourceList the source list, may be null
+     * @param targetList the target list, may not be null
+     * @param keyMatchFunction the function to extract the keys of the values
+     * @param parallel true to process the regions in parallel
+     * @return the index of the matching target value for each source value, -1 if the source value is not part of the
+     *         subsequence
+     */
+    static <SourceValue, TargetValue> int[] match(List<? extends SourceValue> sourceList, List<TargetValue> targetList,
+        KeyMatchFunction<SourceValue, TargetValue> keyMatchFunction, boolean parallel)
+    {
+        int sourceSize = (sourceList != null) ? sourceList.size() : 0;
+        Object[] sourceKeys = new Object[sourceSize];
+        Object[] targetKeys = new Object[targetList.size()];
+
+        for (int i = 0; i < sourceKeys.length; i++)
+        {
+            sourceKeys[i] = MapperUtils.sourceKeyOf(keyMatchFunction, sourceList.get(i));
+        }
+
+        for (int i = 0; i < targetKeys.length; i++)
+        {
+            targetKeys[i] = MapperUtils.targetKeyOf(keyMatchFunction, targetList.get(i));
+        }
+
+        PatienceDiff diff = new PatienceDiff(sourceKeys, targetKeys);
+
+        return parallel ? diff.matchParallel() : diff.match();
+    }
+
+    /**
+     * Finds the anchors of the whole lists: the longest increasing sequence of keys, that are unique in both lists.
+     *
+     * @param sourceKeys the keys of the source values
+     * @param targetKeys the keys of the target values
+     * @return the index of the matching target value for each source value, that is an anchor, -1 for all other source
+     *         values
+     */
+    static int[] matchAnchors(Object[] sourceKeys, Object[] targetKeys)
+    {
+        PatienceDiff diff = new PatienceDiff(sourceKeys, targetKeys);
+
+        diff.findAnchors(0, sourceKeys.length, 0, targetKeys.length);
+
+        return diff.sourceToTarget;
+    }
+
+    private final Object[] sourceKeys;
+    private final Object[] targetKeys;
+    private final int[] sourceToTarget;
+
+    private PatienceDiff(Object[] sourceKeys, Object[] targetKeys)
+    {
+        super();
+
+        this.sourceKeys = sourceKeys;
+        this.targetKeys = targetKeys;
+
+        sourceToTarget = new int[sourceKeys.length];
+
+        Arrays.fill(sourceToTarget, -1);
+    }
+
+    private int[] match()
+    {
+        match(new int[]{0, sourceKeys.length, 0, targetKeys.length});
+
+        return sourceToTarget;
+    }
+
+    private int[] matchParallel()
+    {
+        Deque<int[]> regions = new ArrayDeque<>();
+
+        match(regions, 0, sourceKeys.length, 0, targetKeys.length);
+
+        if (!regions.isEmpty())
+        {
+            ForkJoinPool.commonPool().invoke(new RegionsTask(regions.toArray(new int[regions.size()][]), 0,
+                regions.size()));
+        }
+
+        return sourceToTarget;
+    }
+
+    /**
+     * Processes the region and all the regions between its anchors. Only writes the result of the region.
+     */
+    private void match(int[] region)
+    {
+        // the regions (source start, source end, target start, target end) still to process
+        Deque<int[]> regions = new ArrayDeque<>();
+
+        regions.push(region);
+
+        while (!regions.isEmpty())
+        {
+            int[] currentRegion = regions.pop();
+
+            match(regions, currentRegion[0], currentRegion[1], currentRegion[2], currentRegion[3]);
+        }
+    }
+
+    private void match(Deque<int[]> regions, int sourceStart, int sourceEnd, int targetStart, int targetEnd)
+    {
+        // common prefix
+        while (sourceStart < sourceEnd
+            && targetStart < targetEnd
+            && Objects.equals(sourceKeys[sourceStart], targetKeys[targetStart]))
+        {
+            sourceToTarget[sourceStart++] = targetStart++;
+        }
+
+        // common suffix
+        while (sourceStart < sourceEnd
+            && targetStart < targetEnd
+            && Objects.equals(sourceKeys[sourceEnd - 1], targetKeys[targetEnd - 1]))
+        {
+            sourceToTarget[--sourceEnd] = --targetEnd;
+        }
+
+        if (sourceStart == sourceEnd || targetStart == targetEnd)
+        {
+            return;
+        }
+
+        int[] anchors = findAnchors(sourceStart, sourceEnd, targetStart, targetEnd);
+
+        if (anchors.length == 0)
+        {
+            matchWithoutAnchors(sourceStart, sourceEnd, targetStart, targetEnd);
+
+            return;
+        }
+
+        int nextSourceStart = sourceStart;
+        int nextTargetStart = targetStart;
+
+        for (int sourceIndex : anchors)
+        {
+            int targetIndex = sourceToTarget[sourceIndex];
+
+            regions.push(new int[]{nextSourceStart, sourceIndex, nextTargetStart, targetIndex});
+
+            nextSourceStart = sourceIndex + 1;
+            nextTargetStart = targetIndex + 1;
+        }
+
+        regions.push(new int[]{nextSourceStart, sourceEnd, nextTargetStart, targetEnd});
+    }
+
+    /**
+     * Finds the longest increasing sequence of keys, that are unique in both regions, and adds them to the result.
+     *
+     * @return the source indices of the anchors in ascending order
+     */
+    private int[] findAnchors(int sourceStart, int sourceEnd, int targetStart, int targetEnd)
+    {
+        // for each key: the number of occurrences in the source, the number in the target and the target index
+        Map<Object, int[]> occurrences = new HashMap<>();
+
+        for (int i = sourceStart; i < sourceEnd; i++)
+        {
+            occurrences.computeIfAbsent(sourceKeys[i], key -> new int[3])[0]++;
+        }
+
+        for (int i = targetStart; i < targetEnd; i++)
+        {
+            int[] occurrence = occurrences.get(targetKeys[i]);
+
+            if (occurrence != null)
+            {
+                occurrence[1]++;
+                occurrence[2] = i;
+            }
+        }
+
+        // patience sorting of the target indices of the unique keys in the order of the source
+        int[] candidateSourceIndices = new int[sourceEnd - sourceStart];
+        int[] candidateTargetIndices = new int[sourceEnd - sourceStart];
+        int[] predecessors = new int[sourceEnd - sourceStart];
+        int[] pileTops = new int[sourceEnd - sourceStart];
+        int candidateCount = 0;
+        int pileCount = 0;
+
+        for (int i = sourceStart; i < sourceEnd; i++)
+        {
+            int[] occurrence = occurrences.get(sourceKeys[i]);
+
+            if (occurrence[0] != 1 || occurrence[1] != 1)
+            {
+                continue;
+            }
+
+            int targetIndex = occurrence[2];
+            int low = 0;
+            int high = pileCount;
+
+            while (low < high)
+            {
+                int middle = (low + high) >>> 1;
+
+                if (candidateTargetIndices[pileTops[middle]] < targetIndex)
+                {
+                    low = middle + 1;
+                }
+                else
+                {
+                    high = middle;
+                }
+            }
+
+            candidateSourceIndices[candidateCount] = i;
+            candidateTargetIndices[candidateCount] = targetIndex;
+            predecessors[candidateCount] = low > 0 ? pileTops[low - 1] : -1;
+            pileTops[low] = candidateCount;
+
+            if (low == pileCount)
+            {
+                pileCount++;
+            }
+
+            candidateCount++;
+        }
+
+        int[] anchors = new int[pileCount];
+        int candidate = pileCount > 0 ? pileTops[pileCount - 1] : -1;
+
+        for (int i = pileCount - 1; i >= 0; i--)
+        {
+            anchors[i] = candidateSourceIndices[candidate];
+            sourceToTarget[candidateSourceIndices[candidate]] = candidateTargetIndices[candidate];
+            candidate = predecessors[candidate];
+        }
+
+        return anchors;
+    }
+
+    private void matchWithoutAnchors(int sourceStart, int sourceEnd, int targetStart, int targetEnd)
+    {
+        int[] result = MyersDiff
+            .match(Arrays.asList(sourceKeys).subList(sourceStart, sourceEnd),
+                Arrays.asList(targetKeys).subList(targetStart, targetEnd), Objects::equals);
+
+        for (int i = 0; i < result.length; i++)
+        {
+            if (result[i] >= 0)
+            {
+                sourceToTarget[sourceStart + i] = targetStart + result[i];
+            }
+        }
+    }
+
+    /**
+     * Processes independent regions, splits them in halves as long as they are large enough.
+     */
+    private final class RegionsTask extends RecursiveAction
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int MIN_SPLIT_SIZE = 4096;
+
+        private final int[][] regions;
+        private final int start;
+        private final int end;
+
+        RegionsTask(int[][] regions, int start, int end)
+        {
+            super();
+
+            this.regions = regions;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            int size = 0;
+
+            for (int i = start; i < end; i++)
+            {
+                size += regions[i][1] - regions[i][0] + regions[i][3] - regions[i][2];
+            }
+
+            if (end - start == 1 || size < MIN_SPLIT_SIZE)
+            {
+                for (int i = start; i < end; i++)
+                {
+                    match(regions[i]);
+                }
+
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+
+            invokeAll(new RegionsTask(regions, start, middle), new RegionsTask(regions, middle, end));
+        }
+
+    }
+
+}
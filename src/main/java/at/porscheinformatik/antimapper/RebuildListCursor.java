@@ -0,0 +1,184 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A {@link ListCursor} that reads the original values from a snapshot of the target list and collects the result in
+ * a separate list. The result is written back to the target list when finished, thus no operation shifts the values of
+ * the target list.
+ *
+ * @author ham
+ * @param <TargetValue> the type of the target values
+ */
+final class RebuildListCursor<TargetValue> extends ListCursor<TargetValue>
+{
+
+    private final List<TargetValue> targetList;
+    private final Object[] snapshot;
+    private final List<TargetValue> result;
+
+    private boolean[] stolen = null;
+    private int index = 0;
+    private KeyIndex<Integer> keyIndex = null;
+
+    RebuildListCursor(List<TargetValue> targetList)
+    {
+        super();
+
+        this.targetList = targetList;
+
+        snapshot = targetList.toArray();
+        result = new ArrayList<>(snapshot.length);
+    }
+
+    @Override
+    boolean hasCurrent()
+    {
+        return index < snapshot.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    TargetValue current()
+    {
+        return (TargetValue) snapshot[index];
+    }
+
+    @Override
+    void replace(TargetValue value)
+    {
+        result.add(value);
+
+        next();
+    }
+
+    @Override
+    void remove()
+    {
+        next();
+    }
+
+    @Override
+    void insert(TargetValue value)
+    {
+        result.add(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    TargetValue steal(Predicate<? super TargetValue> predicate)
+    {
+        for (int i = index + 1; i < snapshot.length; i++)
+        {
+            if (stolen != null && stolen[i])
+            {
+                continue;
+            }
+
+            TargetValue value = (TargetValue) snapshot[i];
+
+            if (predicate.test(value))
+            {
+                if (stolen == null)
+                {
+                    stolen = new boolean[snapshot.length];
+                }
+
+                stolen[i] = true;
+
+                return value;
+            }
+        }
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    TargetValue steal(Object key, Function<? super TargetValue, Object> keyFunction)
+    {
+        if (keyIndex == null)
+        {
+            keyIndex = new KeyIndex<>(snapshot.length - index);
+
+            for (int i = index + 1; i < snapshot.length; i++)
+            {
+                if (stolen == null || !stolen[i])
+                {
+                    keyIndex.add(keyFunction.apply((TargetValue) snapshot[i]), i);
+                }
+            }
+        }
+
+        Integer position = keyIndex.poll(key);
+
+        // skip all values, that have been passed in the meantime
+        while (position != null && position <= index)
+        {
+            position = keyIndex.poll(key);
+        }
+
+        if (position == null)
+        {
+            return null;
+        }
+
+        if (stolen == null)
+        {
+            stolen = new boolean[snapshot.length];
+        }
+
+        stolen[position] = true;
+
+        return (TargetValue) snapshot[position];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    void removeRemaining(Consumer<? super TargetValue> consumer)
+    {
+        while (index < snapshot.length)
+        {
+            consumer.accept((TargetValue) snapshot[index]);
+
+            next();
+        }
+    }
+
+    @Override
+    void finish()
+    {
+        if (targetList.size() == result.size())
+        {
+            ListIterator<TargetValue> iterator = targetList.listIterator();
+
+            for (TargetValue value : result)
+            {
+                iterator.next();
+                iterator.set(value);
+            }
+
+            return;
+        }
+
+        targetList.clear();
+        targetList.addAll(result);
+    }
+
+    private void next()
+    {
+        index++;
+
+        // skip all values, that have been removed in advance
+        while (stolen != null && index < snapshot.length && stolen[index])
+        {
+            index++;
+        }
+    }
+
+}
@@ -0,0 +1,216 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * The target values removed by an ordered merge. Removed values may be rescued by later source values. All values, that
+ * have not been rescued, are kept in the order they have been removed. If the match function is a
+ * {@link KeyMatchFunction}, the values are indexed by key, otherwise each rescue scans all removed values. If move
+ * detection is enabled, target values, that match a pending source value, are kept without mapping them. They are
+ * mapped as removed values at the end, if no source value rescued them.
+ *
+ * @author ham
+ * @param <SourceValue> the type of the source values
+ * @param <TargetValue> the type of the target values
+ */
+final class RemovedTargetValues<SourceValue, TargetValue>
+{
+
+    private final MatchFunction<SourceValue, TargetValue> matchFunction;
+    private final KeyMatchFunction<SourceValue, TargetValue> keyMatchFunction;
+    private final List<TargetValue> values = new ArrayList<>();
+
+    private KeyIndex<Integer> index = null;
+    private BitSet rescued = null;
+
+    // the following fields are only used for move detection
+    private Object[] sourceKeys = null;
+    private int processedSourceIndex = 0;
+    private Map<Object, int[]> moveCounts = null;
+    private BitSet moved = null;
+
+    RemovedTargetValues(MatchFunction<SourceValue, TargetValue> matchFunction)
+    {
+        this(matchFunction, null, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    RemovedTargetValues(MatchFunction<SourceValue, TargetValue> matchFunction, List<? extends SourceValue> sourceList,
+        boolean moveDetection)
+    {
+        super();
+
+        this.matchFunction = matchFunction;
+
+        keyMatchFunction = matchFunction instanceof KeyMatchFunction<?, ?>
+            ? (KeyMatchFunction<SourceValue, TargetValue>) matchFunction : null;
+
+        if (moveDetection && keyMatchFunction != null && sourceList != null)
+        {
+            sourceKeys = new Object[sourceList.size()];
+            moveCounts = new HashMap<>();
+            moved = new BitSet();
+
+            for (int i = 0; i < sourceKeys.length; i++)
+            {
+                sourceKeys[i] = MapperUtils.sourceKeyOf(keyMatchFunction, sourceList.get(i));
+
+                // the number of pending source values and the number of moved target values with the key
+                moveCounts.computeIfAbsent(sourceKeys[i], key -> new int[2])[0]++;
+            }
+        }
+    }
+
+    /**
+     * Adds a removed value.
+     *
+     * @param value the value, may be null
+     */
+    void add(TargetValue value)
+    {
+        if (keyMatchFunction != null)
+        {
+            if (index == null)
+            {
+                index = new KeyIndex<>(16);
+                rescued = new BitSet();
+            }
+
+            index.add(MapperUtils.targetKeyOf(keyMatchFunction, value), values.size());
+        }
+
+        values.add(value);
+    }
+
+    /**
+     * Adds the target value without mapping it, if it matches a pending source value (the source values starting at
+     * the specified index), that has not been claimed by another moved value yet.
+     *
+     * @param sourceIndex the index of the current source value
+     * @param value the target value
+     * @return true if the value has been added, false if it is not moved (or move detection is disabled)
+     */
+    boolean addMoved(int sourceIndex, TargetValue value)
+    {
+        if (sourceKeys == null)
+        {
+            return false;
+        }
+
+        while (processedSourceIndex < sourceIndex)
+        {
+            moveCounts.get(sourceKeys[processedSourceIndex++])[0]--;
+        }
+
+        int[] moveCount = moveCounts.get(MapperUtils.targetKeyOf(keyMatchFunction, value));
+
+        if (moveCount == null || moveCount[0] <= moveCount[1])
+        {
+            return false;
+        }
+
+        moveCount[1]++;
+        moved.set(values.size());
+
+        add(value);
+
+        return true;
+    }
+
+    /**
+     * Maps all moved values, that have not been rescued, with the specified function.
+     *
+     * @param removeFunction the function mapping a target value as removed value
+     */
+    void resolveMoved(UnaryOperator<TargetValue> removeFunction)
+    {
+        if (moved == null)
+        {
+            return;
+        }
+
+        for (int i = moved.nextSetBit(0); i >= 0; i = moved.nextSetBit(i + 1))
+        {
+            if (!rescued.get(i))
+            {
+                values.set(i, removeFunction.apply(values.get(i)));
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the first removed value, that matches the source value.
+     *
+     * @param sourceValue the source value, may be null
+     * @return the value, null if there is no match (or the match is null)
+     */
+    TargetValue rescue(SourceValue sourceValue)
+    {
+        if (keyMatchFunction != null)
+        {
+            if (index == null)
+            {
+                return null;
+            }
+
+            Integer position = index.poll(MapperUtils.sourceKeyOf(keyMatchFunction, sourceValue));
+
+            if (position == null)
+            {
+                return null;
+            }
+
+            rescued.set(position);
+
+            if (moved != null && moved.get(position))
+            {
+                moveCounts.get(MapperUtils.targetKeyOf(keyMatchFunction, values.get(position)))[1]--;
+            }
+
+            return values.get(position);
+        }
+
+        Iterator<TargetValue> iterator = values.iterator();
+
+        while (iterator.hasNext())
+        {
+            TargetValue currentTargetValue = iterator.next();
+
+            if (sourceValue == currentTargetValue
+                || (sourceValue != null
+                    && currentTargetValue != null
+                    && matchFunction.matches(sourceValue, currentTargetValue)))
+            {
+                iterator.remove();
+
+                return currentTargetValue;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Performs the action for each removed value, that has not been rescued, in the order they have been removed.
+     *
+     * @param action the action
+     */
+    void forEach(Consumer<? super TargetValue> action)
+    {
+        for (int i = 0; i < values.size(); i++)
+        {
+            if (rescued == null || !rescued.get(i))
+            {
+                action.accept(values.get(i));
+            }
+        }
+    }
+
+}
@@ -3,13 +3,17 @@ package at.porscheinformatik.antimapper;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 /**
  * A merger working on the items of a stream
@@ -50,6 +54,62 @@ public interface StreamMerger<DTO, Entity>
     <EntityCollection extends Collection<Entity>> EntityCollection intoOrderedCollection(EntityCollection entities,
         Supplier<EntityCollection> entityCollectionFactory);
 
+    /**
+     * Maps a collection to a list. Orders the list by the position of the merged entities, instead of comparing the order of the DTOs
+     * and the entities (the merge usually copies the position from the DTO to the entity). Entities with the same
+     * position keep the order of the DTOs. If the entities parameter is null, it creates a {@link List} if necessary.
+     * Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance
+     * if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if
+     * the {@link Hint#OR_EMPTY} is set.
+     *
+     * @param <EntityList> the type of the list
+     * @param entities the entities, may be null
+     * @param entityListFactory a factory for the needed list
+     * @param positionFunction the function returning the position of a merged entity
+     * @return a list
+     */
+    <EntityList extends List<Entity>> EntityList intoPositionedList(EntityList entities,
+        Supplier<EntityList> entityListFactory, ToIntFunction<? super Entity> positionFunction);
+
+    /**
+     * Maps a collection to a list, both being sorted by the unique keys of the merger (see {@link UniqueKeyFunction}).
+     * The DTOs and the entities are walked once, like a merge join, in O(n + m) time, without collecting the DTOs.
+     * The entities are checked to be sorted before any entity is merged, the DTOs while they are merged (see
+     * {@link MapperUtils} mapSorted for the state of the entities, if the DTOs are not sorted). Entities missing in the
+     * DTOs are merged with null and stay at their position. The merger must provide a
+     * {@link UniqueKeyFunction}. If the entities parameter is null, it creates a {@link List} if necessary. Ignores
+     * DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance if the
+     * {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if the
+     * {@link Hint#OR_EMPTY} is set.
+     *
+     * @param <Key> the type of the unique keys
+     * @param <EntityList> the type of the list
+     * @param entities the entities, sorted by their keys, may be null
+     * @param entityListFactory a factory for the needed list
+     * @param keyComparator the comparator, the DTOs and the entities are sorted with
+     * @return a list
+     */
+    <Key, EntityList extends List<Entity>> EntityList intoSortedList(EntityList entities,
+        Supplier<EntityList> entityListFactory, Comparator<? super Key> keyComparator);
+
+    /**
+     * Maps a collection to a map. Ignores the order. The key of each entity is taken from the merged entity. Existing
+     * entities are matched by the merger (by hash lookups, if it provides a {@link UniqueKeyFunction}) and the map is
+     * updated in place. Missing entities are merged with null. If the entities parameter is null, it creates a
+     * {@link Map} if necessary. Ignores DTOs that merge to null (they have no key). Returns an unmodifiable instance if
+     * the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if the
+     * {@link Hint#OR_EMPTY} is set.
+     *
+     * @param <Key> the type of the keys
+     * @param <EntityMap> the type of the map
+     * @param entities the entities, may be null
+     * @param entityMapFactory a factory for the needed map
+     * @param keyFunction the function returning the key of a merged entity
+     * @return a map
+     */
+    <Key, EntityMap extends Map<Key, Entity>> EntityMap intoMap(EntityMap entities,
+        Supplier<EntityMap> entityMapFactory, Function<? super Entity, ? extends Key> keyFunction);
+
     /**
      * Maps a collection to a collection. If the entities parameter is null, it creates a {@link HashSet} if necessary.
      * Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance
@@ -122,4 +182,54 @@ public interface StreamMerger<DTO, Entity>
         return intoOrderedCollection(entities, ArrayList::new);
     }
 
-}
\ No newline at end of file
+    /**
+     * Maps a collection to a list. Orders the list by the position of the merged entities (see
+     * {@link #intoPositionedList(List, Supplier, ToIntFunction)}). If the entities parameter is null, it creates an
+     * {@link ArrayList} if necessary. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set.
+     * Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in
+     * this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     *
+     * @param entities the entities, may be null
+     * @param positionFunction the function returning the position of a merged entity
+     * @return a list
+     */
+    default List<Entity> intoArrayListByPosition(List<Entity> entities, ToIntFunction<? super Entity> positionFunction)
+    {
+        return intoPositionedList(entities, ArrayList::new, positionFunction);
+    }
+
+    /**
+     * Maps a collection to a list, both being sorted by the unique keys of the merger (see
+     * {@link #intoSortedList(List, Supplier, Comparator)}). If the entities parameter is null, it creates an
+     * {@link ArrayList} if necessary. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set.
+     * Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in
+     * this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     *
+     * @param <Key> the type of the unique keys
+     * @param entities the entities, sorted by their keys, may be null
+     * @param keyComparator the comparator, the DTOs and the entities are sorted with
+     * @return a list
+     */
+    default <Key> List<Entity> intoSortedArrayList(List<Entity> entities, Comparator<? super Key> keyComparator)
+    {
+        return intoSortedList(entities, ArrayList::new, keyComparator);
+    }
+
+    /**
+     * Maps a collection to a map. The key of each entity is taken from the merged entity (see
+     * {@link #intoMap(Map, Supplier, Function)}). If the entities parameter is null, it creates a {@link HashMap} if
+     * necessary. Ignores DTOs that merge to null. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is
+     * set (always creates a new result object in this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     *
+     * @param <Key> the type of the keys
+     * @param entities the entities, may be null
+     * @param keyFunction the function returning the key of a merged entity
+     * @return a map
+     */
+    default <Key> Map<Key, Entity> intoHashMap(Map<Key, Entity> entities,
+        Function<? super Entity, ? extends Key> keyFunction)
+    {
+        return intoMap(entities, HashMap::new, keyFunction);
+    }
+
+}
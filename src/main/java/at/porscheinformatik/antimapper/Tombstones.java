@@ -0,0 +1,146 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The deleted target values (tombstones) of a mixed merge. The tombstones stay in the target collection at their
+ * position, but they are skipped when matching and mapping the missing values. A source value, that does not match any
+ * other target value, looks up a tombstone to revive it. If the match function is a {@link KeyMatchFunction}, the
+ * tombstones are looked up in a hash index of their keys.
+ *
+ * @author ham
+ * @param <SourceValue> the type of the source values
+ * @param <TargetValue> the type of the target values
+ */
+final class Tombstones<SourceValue, TargetValue>
+{
+
+    /**
+     * Collects the tombstones of the target collection.
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     * @param targetCollection the target collection, may not be null
+     * @param matchFunction the match function
+     * @param deletedPredicate the predicate, that tests if a target value has been deleted
+     * @return the tombstones, null if there are none
+     */
+    @SuppressWarnings("unchecked")
+    static <SourceValue, TargetValue> Tombstones<SourceValue, TargetValue> of(Collection<TargetValue> targetCollection,
+        MatchFunction<SourceValue, TargetValue> matchFunction, Predicate<? super TargetValue> deletedPredicate)
+    {
+        List<TargetValue> values = new ArrayList<>();
+
+        for (TargetValue targetValue : targetCollection)
+        {
+            if (targetValue != null && deletedPredicate.test(targetValue))
+            {
+                values.add(targetValue);
+            }
+        }
+
+        if (values.isEmpty())
+        {
+            return null;
+        }
+
+        if (!(matchFunction instanceof KeyMatchFunction<?, ?>))
+        {
+            return new Tombstones<>(values, matchFunction, null, null);
+        }
+
+        KeyMatchFunction<SourceValue, TargetValue> keyMatchFunction =
+            (KeyMatchFunction<SourceValue, TargetValue>) matchFunction;
+        KeyIndex<TargetValue> index = new KeyIndex<>(values.size());
+
+        for (TargetValue value : values)
+        {
+            index.add(keyMatchFunction.rightKey(value), value);
+        }
+
+        return new Tombstones<>(values, matchFunction, keyMatchFunction, index);
+    }
+
+    private final List<TargetValue> values;
+    private final MatchFunction<SourceValue, TargetValue> matchFunction;
+    private final KeyMatchFunction<SourceValue, TargetValue> keyMatchFunction;
+    private final KeyIndex<TargetValue> index;
+    private final Map<TargetValue, Void> revivedValues = new IdentityHashMap<>();
+
+    private Tombstones(List<TargetValue> values, MatchFunction<SourceValue, TargetValue> matchFunction,
+        KeyMatchFunction<SourceValue, TargetValue> keyMatchFunction, KeyIndex<TargetValue> index)
+    {
+        super();
+
+        this.values = values;
+        this.matchFunction = matchFunction;
+        this.keyMatchFunction = keyMatchFunction;
+        this.index = index;
+    }
+
+    /**
+     * Marks all tombstones as mapped, thus they are skipped when matching and mapping the missing values.
+     *
+     * @param mappedTargetValues the mapped target values
+     */
+    void skip(Map<TargetValue, Void> mappedTargetValues)
+    {
+        for (TargetValue value : values)
+        {
+            mappedTargetValues.put(value, null);
+        }
+    }
+
+    /**
+     * Returns the tombstone, that matches the source value and has not been revived, yet.
+     *
+     * @param sourceValue the source value, may be null
+     * @return the tombstone, null if there is none
+     */
+    TargetValue find(SourceValue sourceValue)
+    {
+        if (sourceValue == null)
+        {
+            return null;
+        }
+
+        if (index != null)
+        {
+            return index.peek(keyMatchFunction.leftKey(sourceValue));
+        }
+
+        for (TargetValue value : values)
+        {
+            if (!revivedValues.containsKey(value) && matchFunction.matches(sourceValue, value))
+            {
+                return value;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Marks the tombstone, that has been found for the source value, as revived. It cannot be revived again.
+     *
+     * @param sourceValue the source value
+     * @param value the tombstone
+     */
+    void revive(SourceValue sourceValue, TargetValue value)
+    {
+        if (index != null)
+        {
+            index.poll(keyMatchFunction.leftKey(sourceValue));
+        }
+        else
+        {
+            revivedValues.put(value, null);
+        }
+    }
+
+}
@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -90,6 +91,12 @@ public interface Transformer<DTO, Entity> extends HintsProvider
                 return Transformer.this.transform(container, hints);
             }
 
+            @Override
+            DTO transformWithContext(Entity container, HintContext context)
+            {
+                return AbstractTransformer.transformWithContext(Transformer.this, container, context);
+            }
+
             @Override
             protected <Key> Key toKey(Function<Entity, Key> keyFunction, Entity container)
             {
@@ -121,7 +128,14 @@ public interface Transformer<DTO, Entity> extends HintsProvider
             @Override
             protected DTO transform(Entry<?, ? extends Entity> container, Object[] hints)
             {
-                return Transformer.this.transform(container.getValue(), Hints.join(hints, container.getKey()));
+                return transformWithContext(container, HintContext.of(hints));
+            }
+
+            @Override
+            DTO transformWithContext(Entry<?, ? extends Entity> container, HintContext context)
+            {
+                return AbstractTransformer
+                    .transformWithContext(Transformer.this, container.getValue(), context.with(container.getKey()));
             }
 
             @Override
@@ -159,7 +173,15 @@ public interface Transformer<DTO, Entity> extends HintsProvider
             @Override
             protected DTO transform(Pair<? extends GroupKey, ? extends Entity> container, Object[] hints)
             {
-                return Transformer.this.transform(Pair.rightOf(container), Hints.join(hints, Pair.leftOf(container)));
+                return transformWithContext(container, HintContext.of(hints));
+            }
+
+            @Override
+            DTO transformWithContext(Pair<? extends GroupKey, ? extends Entity> container, HintContext context)
+            {
+                return AbstractTransformer
+                    .transformWithContext(Transformer.this, Pair.rightOf(container),
+                        context.with(Pair.leftOf(container)));
             }
 
             @Override
@@ -249,37 +271,76 @@ public interface Transformer<DTO, Entity> extends HintsProvider
         Supplier<Stream<? extends ParentEntity>> parentsStreamSupplier,
         Function<? super ParentEntity, ? extends Stream<? extends Entity>> mapper, Object... hints)
     {
-        // This awfully complex line flattens the parents by using the mapper
-        // and returns a supplier for a stream with Entity/ParentEntity pairs.
-        @SuppressWarnings("resource")
-        Supplier<Stream<? extends Pair<ParentEntity, Entity>>> streamSupplier = () -> {
+        Supplier<Stream<? extends Entity>> streamSupplier = () -> {
             Stream<? extends ParentEntity> parentStream = parentsStreamSupplier.get();
 
-            if (parentStream == null)
+            return parentStream != null ? parentStream
+                .filter(parentEntity -> parentEntity != null)
+                .flatMap(parentEntity -> MapperUtils.streamOrEmpty(mapper.apply(parentEntity))) : null;
+        };
+
+        return new AbstractStreamTransformer<DTO, Entity, Entity>(streamSupplier, hints)
+        {
+
+            // the parent is added to the context once and shared by its entities, the entities are transformed
+            // directly, without a container for each entity
+
+            @Override
+            Stream<DTO> transformAll()
             {
-                return null;
+                Stream<? extends ParentEntity> parentStream = parentsStreamSupplier.get();
+
+                if (parentStream == null)
+                {
+                    return null;
+                }
+
+                return parentStream.filter(parentEntity -> parentEntity != null).flatMap(parentEntity -> {
+                    HintContext parentContext = context.with(parentEntity);
+
+                    return MapperUtils
+                        .streamOrEmpty(mapper.apply(parentEntity))
+                        .map(entity -> AbstractTransformer
+                            .transformWithContext(Transformer.this, entity, parentContext));
+                });
             }
 
-            return parentStream.filter(parentEntity -> parentEntity != null).flatMap(parentEntity -> {
-                Stream<? extends Entity> stream = mapper.apply(parentEntity);
+            @Override
+            boolean forEach(BiConsumer<? super Entity, HintContext> consumer)
+            {
+                Stream<? extends ParentEntity> parentStream = parentsStreamSupplier.get();
 
-                return MapperUtils.streamOrEmpty(stream).map(entity -> Pair.of(parentEntity, entity));
-            });
-        };
+                if (parentStream == null)
+                {
+                    return false;
+                }
 
-        return new AbstractStreamTransformer<DTO, Entity, Pair<ParentEntity, Entity>>(streamSupplier, hints)
-        {
+                parentStream.filter(parentEntity -> parentEntity != null).forEach(parentEntity -> {
+                    HintContext parentContext = context.with(parentEntity);
+
+                    MapperUtils.streamOrEmpty(mapper.apply(parentEntity)).forEach(
+                        entity -> consumer.accept(entity, parentContext));
+                });
+
+                return true;
+            }
 
             @Override
-            protected DTO transform(Pair<ParentEntity, Entity> container, Object[] hints)
+            protected DTO transform(Entity entity, Object[] hints)
             {
-                return Transformer.this.transform(Pair.rightOf(container), Hints.join(hints, Pair.leftOf(container)));
+                return Transformer.this.transform(entity, hints);
             }
 
             @Override
-            protected <Key> Key toKey(Function<Entity, Key> keyFunction, Pair<ParentEntity, Entity> container)
+            DTO transformWithContext(Entity entity, HintContext context)
             {
-                return keyFunction.apply(Pair.rightOf(container));
+                return AbstractTransformer.transformWithContext(Transformer.this, entity, context);
+            }
+
+            @Override
+            protected <Key> Key toKey(Function<Entity, Key> keyFunction, Entity entity)
+            {
+                return keyFunction.apply(entity);
             }
 
             @Override
@@ -0,0 +1,345 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Maps a tree of source values into a tree of target values, level by level. If the match function is a
+ * {@link KeyMatchFunction}, all target nodes are indexed by key once. A target node, whose source node has been moved
+ * to another parent, is detached from its old parent and attached to its new parent, before the children of the
+ * parents get merged. Thus it gets merged once, instead of being merged as missing node and created again.
+ *
+ * @author ham
+ * @param <SourceValue> the type of the source nodes
+ * @param <TargetValue> the type of the target nodes
+ */
+final class TreeMapping<SourceValue, TargetValue>
+{
+
+    /**
+     * The source children and the target children of a parent, that have to be merged.
+     */
+    private final class Level
+    {
+        private final Iterable<? extends SourceValue> sourceChildren;
+        private final Collection<TargetValue> targetChildren;
+
+        Level(Iterable<? extends SourceValue> sourceChildren, Collection<TargetValue> targetChildren)
+        {
+            super();
+
+            this.sourceChildren = sourceChildren != null ? sourceChildren : Collections.emptyList();
+            this.targetChildren = targetChildren;
+        }
+    }
+
+    private final Function<? super SourceValue, ? extends Iterable<? extends SourceValue>> sourceChildrenFunction;
+    private final Function<? super TargetValue, ? extends Collection<TargetValue>> targetChildrenFunction;
+    private final MatchFunction<SourceValue, TargetValue> matchFunction;
+    private final KeyMatchFunction<SourceValue, TargetValue> keyMatchFunction;
+    private final BiFunction<SourceValue, TargetValue, TargetValue> mapFunction;
+    private final boolean keepMissing;
+    private final Predicate<TargetValue> filter;
+    private final Consumer<List<TargetValue>> afterMapConsumer;
+    private final OrderedMergeOptions options;
+
+    // the following fields are only used with a key match function
+    private KeyIndex<TargetValue> targetIndex = null;
+    private Map<TargetValue, Collection<TargetValue>> parents = null;
+    private Map<TargetValue, Collection<TargetValue>> detachedTargetValues = null;
+    private Set<TargetValue> claimedTargetValues = null;
+    private Map<Object, int[]> pendingSourceKeyCounts = null;
+
+    @SuppressWarnings("unchecked")
+    TreeMapping(Function<? super SourceValue, ? extends Iterable<? extends SourceValue>> sourceChildrenFunction,
+        Function<? super TargetValue, ? extends Collection<TargetValue>> targetChildrenFunction,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer, OrderedMergeOptions options)
+    {
+        super();
+
+        this.sourceChildrenFunction = sourceChildrenFunction;
+        this.targetChildrenFunction = targetChildrenFunction;
+        this.matchFunction = matchFunction;
+        this.mapFunction = mapFunction;
+        this.keepMissing = keepMissing;
+        this.filter = filter;
+        this.afterMapConsumer = afterMapConsumer;
+        this.options = options;
+
+        // missing target nodes are kept at their parent
+        keyMatchFunction = matchFunction instanceof KeyMatchFunction<?, ?> && !keepMissing
+            ? (KeyMatchFunction<SourceValue, TargetValue>) matchFunction : null;
+    }
+
+    /**
+     * Maps the source roots into the target roots and all their children.
+     *
+     * @param sourceRoots the source roots, never null
+     * @param targetRoots the target roots, never null
+     */
+    void map(Iterable<? extends SourceValue> sourceRoots, Collection<TargetValue> targetRoots)
+    {
+        if (keyMatchFunction != null)
+        {
+            index(sourceRoots, targetRoots);
+        }
+
+        // the tree is processed breadth first, deep trees must not overflow the stack
+        Deque<Level> levels = new ArrayDeque<>();
+
+        levels.add(new Level(sourceRoots, targetRoots));
+
+        while (!levels.isEmpty())
+        {
+            mapLevel(levels.poll(), levels);
+        }
+
+        if (keyMatchFunction != null)
+        {
+            resolveDetached();
+        }
+    }
+
+    private void index(Iterable<? extends SourceValue> sourceRoots, Collection<TargetValue> targetRoots)
+    {
+        targetIndex = new KeyIndex<>(16);
+        parents = new IdentityHashMap<>();
+        detachedTargetValues = new IdentityHashMap<>();
+        claimedTargetValues = Collections.newSetFromMap(new IdentityHashMap<>());
+        pendingSourceKeyCounts = new HashMap<>();
+
+        Deque<Iterable<? extends SourceValue>> sourceLevels = new ArrayDeque<>();
+
+        sourceLevels.add(sourceRoots);
+
+        while (!sourceLevels.isEmpty())
+        {
+            for (SourceValue sourceValue : sourceLevels.poll())
+            {
+                if (sourceValue == null)
+                {
+                    continue;
+                }
+
+                pendingSourceKeyCounts.computeIfAbsent(keyMatchFunction.leftKey(sourceValue), key -> new int[1])[0]++;
+
+                Iterable<? extends SourceValue> sourceChildren = sourceChildrenFunction.apply(sourceValue);
+
+                if (sourceChildren != null)
+                {
+                    sourceLevels.add(sourceChildren);
+                }
+            }
+        }
+
+        Deque<Collection<TargetValue>> targetLevels = new ArrayDeque<>();
+
+        targetLevels.add(targetRoots);
+
+        while (!targetLevels.isEmpty())
+        {
+            Collection<TargetValue> targetChildren = targetLevels.poll();
+
+            for (TargetValue targetValue : targetChildren)
+            {
+                // a node, that is contained in the tree more than once, gets indexed only once
+                if (targetValue == null || parents.putIfAbsent(targetValue, targetChildren) != null)
+                {
+                    continue;
+                }
+
+                targetIndex.add(keyMatchFunction.rightKey(targetValue), targetValue);
+
+                Collection<TargetValue> children = targetChildrenFunction.apply(targetValue);
+
+                if (children != null)
+                {
+                    targetLevels.add(children);
+                }
+            }
+        }
+    }
+
+    private void mapLevel(Level level, Deque<Level> levels)
+    {
+        boolean attached = keyMatchFunction != null && relocate(level);
+        List<SourceValue> mappedSourceValues = new ArrayList<>();
+        List<TargetValue> mappedTargetValues = new ArrayList<>();
+
+        BiFunction<SourceValue, TargetValue, TargetValue> levelMapFunction = (sourceValue, targetValue) -> {
+            TargetValue mappedTargetValue = mapFunction.apply(sourceValue, targetValue);
+
+            if (sourceValue != null && mappedTargetValue != null)
+            {
+                mappedSourceValues.add(sourceValue);
+                mappedTargetValues.add(mappedTargetValue);
+            }
+
+            return mappedTargetValue;
+        };
+
+        // attached nodes are appended, the move detection keeps them from being mapped as removed nodes
+        MapperUtils
+            .mapOrdered(level.sourceChildren, level.targetChildren, matchFunction, levelMapFunction, keepMissing,
+                filter, afterMapConsumer, attached ? options.withMoveDetection(true) : options);
+
+        if (keyMatchFunction != null)
+        {
+            claimedTargetValues.addAll(level.targetChildren);
+        }
+
+        for (int i = 0; i < mappedSourceValues.size(); i++)
+        {
+            TargetValue targetValue = mappedTargetValues.get(i);
+
+            if (filter != null && !filter.test(targetValue))
+            {
+                continue;
+            }
+
+            Iterable<? extends SourceValue> sourceChildren = sourceChildrenFunction.apply(mappedSourceValues.get(i));
+            Collection<TargetValue> targetChildren = targetChildrenFunction.apply(targetValue);
+
+            if (targetChildren != null)
+            {
+                levels.add(new Level(sourceChildren, targetChildren));
+            }
+            else if (sourceChildren != null && sourceChildren.iterator().hasNext())
+            {
+                throw new IllegalArgumentException("No children collection available for: " + targetValue);
+            }
+        }
+    }
+
+    /**
+     * Detaches the target nodes of the level, that are needed by another level, and attaches the target nodes, that
+     * are needed by this level, but are located at another level.
+     *
+     * @param level the level
+     * @return true if target nodes have been attached
+     */
+    private boolean relocate(Level level)
+    {
+        Map<Object, int[]> sourceKeyCounts = new HashMap<>();
+
+        for (SourceValue sourceValue : level.sourceChildren)
+        {
+            if (sourceValue != null)
+            {
+                Object key = keyMatchFunction.leftKey(sourceValue);
+
+                sourceKeyCounts.computeIfAbsent(key, k -> new int[1])[0]++;
+                pendingSourceKeyCounts.get(key)[0]--;
+            }
+        }
+
+        Iterator<TargetValue> targetIterator = level.targetChildren.iterator();
+
+        while (targetIterator.hasNext())
+        {
+            TargetValue targetValue = targetIterator.next();
+
+            if (targetValue == null)
+            {
+                continue;
+            }
+
+            Object key = keyMatchFunction.rightKey(targetValue);
+            int[] sourceKeyCount = sourceKeyCounts.get(key);
+
+            if (sourceKeyCount != null && sourceKeyCount[0] > 0)
+            {
+                // the node stays at this level
+                sourceKeyCount[0]--;
+
+                continue;
+            }
+
+            int[] pendingSourceKeyCount = pendingSourceKeyCounts.get(key);
+
+            if (pendingSourceKeyCount != null && pendingSourceKeyCount[0] > 0 && parents.get(targetValue) != null)
+            {
+                // the node is needed by a level, that has not been processed yet
+                targetIterator.remove();
+                detachedTargetValues.put(targetValue, level.targetChildren);
+                parents.put(targetValue, null);
+            }
+        }
+
+        boolean attached = false;
+
+        for (Entry<Object, int[]> entry : sourceKeyCounts.entrySet())
+        {
+            for (int i = 0; i < entry.getValue()[0]; i++)
+            {
+                TargetValue targetValue = pollUnclaimed(entry.getKey(), level.targetChildren);
+
+                if (targetValue == null)
+                {
+                    break;
+                }
+
+                Collection<TargetValue> parent = parents.get(targetValue);
+
+                if (parent != null)
+                {
+                    MapperUtils.removeIdentical(parent, targetValue);
+                }
+
+                level.targetChildren.add(targetValue);
+                parents.put(targetValue, level.targetChildren);
+                detachedTargetValues.remove(targetValue);
+                attached = true;
+            }
+        }
+
+        return attached;
+    }
+
+    private TargetValue pollUnclaimed(Object key, Collection<TargetValue> targetChildren)
+    {
+        TargetValue targetValue;
+
+        do
+        {
+            targetValue = targetIndex.poll(key);
+        }
+        while (targetValue != null && (claimedTargetValues.contains(targetValue)
+            || parents.get(targetValue) == targetChildren));
+
+        return targetValue;
+    }
+
+    /**
+     * Maps the detached target nodes, that have not been attached to another parent, as removed nodes. Nodes, that are
+     * mapped to a value, are added to their old parent again.
+     */
+    private void resolveDetached()
+    {
+        detachedTargetValues.forEach((targetValue, parent) -> {
+            TargetValue mappedTargetValue = mapFunction.apply(null, targetValue);
+
+            if (mappedTargetValue != null && (filter == null || filter.test(mappedTargetValue)))
+            {
+                parent.add(mappedTargetValue);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,58 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A merger working on the nodes of a tree
+ *
+ * @author ham
+ *
+ * @param <DTO> the type of DTO
+ * @param <Entity> the type of Entity
+ */
+public interface TreeMerger<DTO, Entity>
+{
+
+    /**
+     * Maps a tree of DTOs to a tree of entities. Keeps the order of the roots and the children. The children of the
+     * entities are updated in place. If the entities parameter is null, it creates a {@link Collection} if necessary.
+     * Entities, whose DTOs have been moved to another parent, are moved to the new parent and reused, if the merger
+     * provides a {@link UniqueKeyFunction} and the {@link Hint#KEEP_MISSING} hint is not set. Ignores DTOs that merge
+     * to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance of the roots if the
+     * {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if the
+     * {@link Hint#OR_EMPTY} is set.
+     *
+     * @param <EntityCollection> the type of the collection
+     * @param entities the root entities, may be null
+     * @param entityCollectionFactory a factory for the needed collection
+     * @param entityChildrenFunction the function returning the modifiable children of an entity
+     * @return a collection
+     */
+    <EntityCollection extends Collection<Entity>> EntityCollection intoCollection(EntityCollection entities,
+        Supplier<EntityCollection> entityCollectionFactory,
+        Function<? super Entity, ? extends Collection<Entity>> entityChildrenFunction);
+
+    /**
+     * Maps a tree of DTOs to a tree of entities, the roots are kept in an {@link ArrayList}. Keeps the order of the
+     * roots and the children. The children of the entities are updated in place. If the entities parameter is null,
+     * it creates a {@link ArrayList} if necessary. Entities, whose DTOs have been moved to another parent, are moved
+     * to the new parent and reused, if the merger provides a {@link UniqueKeyFunction} and the
+     * {@link Hint#KEEP_MISSING} hint is not set. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL}
+     * hint is set. Returns an unmodifiable instance of the roots if the {@link Hint#UNMODIFIABLE} is set (always
+     * creates a new result object in this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     *
+     * @param entities the root entities, may be null
+     * @param entityChildrenFunction the function returning the modifiable children of an entity
+     * @return a list
+     */
+    default List<Entity> intoArrayList(List<Entity> entities,
+        Function<? super Entity, ? extends Collection<Entity>> entityChildrenFunction)
+    {
+        return intoCollection(entities, ArrayList::new, entityChildrenFunction);
+    }
+
+}
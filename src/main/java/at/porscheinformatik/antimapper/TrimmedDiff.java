@@ -0,0 +1,95 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@link OrderedDiff} of two lists with a common prefix and/or a common suffix. The difference is only computed for
+ * the values between the prefix and the suffix. It answers exactly like the difference of the whole lists.
+ * <ul>
+ * <li>The prefix is never asked, because the ordered merge matches it value by value.</li>
+ * <li>If only the source index is within the suffix, the target value has to be removed (the suffix is longer than
+ * any subsequence of the source values left).</li>
+ * <li>If only the target index is within the suffix, the source value has to be added.</li>
+ * <li>If both indices are within the suffix (only possible if values have been rescued from the suffix), the difference
+ * of the suffixes is computed on demand.</li>
+ * </ul>
+ *
+ * @author ham
+ * @param <SourceValue> the type of the source values
+ * @param <TargetValue> the type of the target values
+ */
+final class TrimmedDiff<SourceValue, TargetValue> implements OrderedDiff
+{
+
+    private final List<? extends SourceValue> sourceList;
+    private final List<TargetValue> targetSuffix;
+    private final MatchFunction<SourceValue, TargetValue> matchFunction;
+    private final OrderedMergeOptions options;
+    private final int prefixLength;
+    private final int sourceSuffixIndex;
+    private final int targetSuffixIndex;
+    private final OrderedDiff middleDiff;
+
+    private OrderedDiff suffixDiff;
+
+    TrimmedDiff(List<? extends SourceValue> sourceList, List<TargetValue> targetList,
+        MatchFunction<SourceValue, TargetValue> matchFunction, OrderedMergeOptions options, int prefixLength,
+        int sourceSuffixIndex, int targetSuffixIndex)
+    {
+        super();
+
+        this.sourceList = sourceList;
+        // the target list will be modified by the merge, the suffix is needed in its original state
+        this.targetSuffix = new ArrayList<>(targetList.subList(targetSuffixIndex, targetList.size()));
+        this.matchFunction = matchFunction;
+        this.options = options;
+        this.prefixLength = prefixLength;
+        this.sourceSuffixIndex = sourceSuffixIndex;
+        this.targetSuffixIndex = targetSuffixIndex;
+
+        if (prefixLength < sourceSuffixIndex && prefixLength < targetSuffixIndex)
+        {
+            middleDiff = OrderedDiff
+                .createUntrimmed(sourceList.subList(prefixLength, sourceSuffixIndex),
+                    targetList.subList(prefixLength, targetSuffixIndex), matchFunction, options);
+        }
+        else
+        {
+            // pure append or pure truncation
+            middleDiff = null;
+        }
+    }
+
+    @Override
+    public boolean isAddition(int sourceIndex, int targetIndex)
+    {
+        boolean sourceInSuffix = sourceIndex >= sourceSuffixIndex;
+        boolean targetInSuffix = targetIndex >= targetSuffixIndex;
+
+        if (!sourceInSuffix && !targetInSuffix)
+        {
+            return middleDiff.isAddition(sourceIndex - prefixLength, targetIndex - prefixLength);
+        }
+
+        if (!sourceInSuffix)
+        {
+            return true;
+        }
+
+        if (!targetInSuffix)
+        {
+            return false;
+        }
+
+        if (suffixDiff == null)
+        {
+            suffixDiff = OrderedDiff
+                .createUntrimmed(sourceList.subList(sourceSuffixIndex, sourceList.size()), targetSuffix, matchFunction,
+                    options);
+        }
+
+        return suffixDiff.isAddition(sourceIndex - sourceSuffixIndex, targetIndex - targetSuffixIndex);
+    }
+
+}
@@ -0,0 +1,70 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Extracts the unique keys of DTOs and entities. A DTO and an entity match, if their unique keys are equal. Mergers
+ * providing such a function (see {@link Merger#getUniqueKeyFunction()}) will be merged into collections by using hash
+ * lookups instead of calling {@link #isUniqueKeyMatching(Object, Object, Object...)} for each pair of DTO and entity.
+ *
+ * @author ham
+ * @param <DTO> the type of the DTO
+ * @param <Entity> the type of the entity
+ */
+public interface UniqueKeyFunction<DTO, Entity> extends UniqueKeyMatchingFunction<DTO, Entity>
+{
+
+    /**
+     * Creates a {@link UniqueKeyFunction} using the specified getters.
+     *
+     * @param <DTO> the type of the DTO
+     * @param <Entity> the type of the entity
+     * @param dtoGetter the getter for the unique key of the DTO
+     * @param entityGetter the getter for the unique key of the entity
+     * @return the function
+     */
+    static <DTO, Entity> UniqueKeyFunction<DTO, Entity> of(Function<? super DTO, ?> dtoGetter,
+        Function<? super Entity, ?> entityGetter)
+    {
+        return new UniqueKeyFunction<DTO, Entity>()
+        {
+            @Override
+            public Object uniqueKeyOfDTO(DTO dto, Object... hints)
+            {
+                return dtoGetter.apply(dto);
+            }
+
+            @Override
+            public Object uniqueKeyOfEntity(Entity entity, Object... hints)
+            {
+                return entityGetter.apply(entity);
+            }
+        };
+    }
+
+    /**
+     * Returns the unique key of the DTO. The key may be null, e.g. if the DTO has not been persisted yet.
+     *
+     * @param dto the DTO, never null
+     * @param hints optional hints
+     * @return the unique key
+     */
+    Object uniqueKeyOfDTO(DTO dto, Object... hints);
+
+    /**
+     * Returns the unique key of the entity. The key may be null, e.g. if the entity has not been persisted yet.
+     *
+     * @param entity the entity, never null
+     * @param hints optional hints
+     * @return the unique key
+     */
+    Object uniqueKeyOfEntity(Entity entity, Object... hints);
+
+    @Override
+    default boolean isUniqueKeyMatching(DTO dto, Entity entity, Object... hints)
+    {
+        return Objects.equals(uniqueKeyOfDTO(dto, hints), uniqueKeyOfEntity(entity, hints));
+    }
+
+}
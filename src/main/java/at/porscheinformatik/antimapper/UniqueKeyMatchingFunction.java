@@ -1,6 +1,5 @@
 package at.porscheinformatik.antimapper;
 
-import java.util.Objects;
 import java.util.function.Function;
 
 /**
@@ -21,10 +20,20 @@ public interface UniqueKeyMatchingFunction<DTO, Entity>
         };
     }
 
+    /**
+     * Creates a function comparing the values of the specified getters. The returned function is a
+     * {@link UniqueKeyFunction}, thus collection merges can use hash lookups.
+     *
+     * @param <DTO> the type of the DTO
+     * @param <Entity> the type of the entity
+     * @param dtoGetter the getter for the unique key of the DTO
+     * @param entityGetter the getter for the unique key of the entity
+     * @return the function
+     */
     static <DTO, Entity> UniqueKeyMatchingFunction<DTO, Entity> equalityOf(Function<DTO, Object> dtoGetter,
         Function<Entity, Object> entityGetter)
     {
-        return (dto, entity, hints) -> Objects.equals(dtoGetter.apply(dto), entityGetter.apply(entity));
+        return UniqueKeyFunction.of(dtoGetter, entityGetter);
     }
 
     /**
@@ -48,6 +48,41 @@ public class FlatMapAndTransformToArrayList extends AbstractMapperTest
         assertThat(dtos, hasItem(is("Z")));
     }
 
+    @Test
+    public void testToHashMap()
+    {
+        Map<Character, List<char[]>> entities = toMap('A', toList("A1".toCharArray()), 'B', toList("!B".toCharArray()),
+            'C', toList("C1".toCharArray(), "C2".toCharArray()), null, null);
+        Map<String, String> dtos =
+            this.flatMapAndTransformAll(entities, BOARDING_PASS).toHashMap(entity -> String.valueOf(entity));
+
+        assertThat(dtos, is(toMap("A1", "A1", "C1", "C1", "C2", "C2")));
+    }
+
+    @Test
+    public void testStreamToArrayList()
+    {
+        List<List<char[]>> entities = toList(toList("A1".toCharArray(), "A2".toCharArray()), null,
+            toList("!B".toCharArray()), toList("C1".toCharArray()));
+        // the stream of the parents can only be consumed once
+        List<String> dtos = this
+            .flatMapAndTransformAll(entities.stream(), (List<char[]> parent) -> parent.stream(), BOARDING_PASS)
+            .toArrayList();
+
+        assertThat(dtos, is(toList("A1", "A2", "C1")));
+    }
+
+    @Test
+    public void testToGroupedArrayLists()
+    {
+        Map<Character, List<char[]>> entities = toMap('A', toList("A1".toCharArray(), "A2".toCharArray()), 'B',
+            toList("!B".toCharArray()), 'C', toList("C1".toCharArray()), null, null);
+        Map<Character, List<String>> dtos =
+            this.flatMapAndTransformAll(entities, BOARDING_PASS).toGroupedArrayLists(entity -> entity[0]);
+
+        assertThat(dtos, is(toMap('A', toList("A1", "A2"), 'C', toList("C1"))));
+    }
+
     @Test
     public void testToArrayListsKeepNullAndUnmodifiable()
     {
@@ -1,5 +1,13 @@
 package at.porscheinformatik.antimapper;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -22,4 +30,273 @@ public class HintsTest
         Assert.assertFalse(Hints.containsHint(hints, Flag.B));
         Assert.assertTrue(Hints.containsHint(hints, Flag.C));
     }
+
+    @Test
+    public void joinTest()
+    {
+        Object[] hints = Hints.join(new Object[]{Flag.A, "a"}, Flag.B);
+
+        hints = Hints.join(hints, 1, "b");
+        hints = Hints.join(hints, Hints.join(new Object[]{Flag.C}, 2L));
+
+        Assert.assertEquals("b", Hints.hintOrNull(hints, String.class));
+        Assert.assertEquals(Integer.valueOf(1), Hints.hintOrNull(hints, Integer.class));
+        Assert.assertEquals(Long.valueOf(2L), Hints.hintOrNull(hints, Long.class));
+        Assert.assertEquals(Flag.C, Hints.hintOrNull(hints, Flag.class));
+        Assert.assertNull(Hints.hintOrNull(hints, Double.class));
+
+        Assert.assertTrue(Hints.containsHint(hints, Flag.A));
+        Assert.assertTrue(Hints.containsHint(hints, Flag.C));
+        Assert.assertTrue(Hints.containsHint(hints, "a"));
+        Assert.assertFalse(Hints.containsHint(hints, "c"));
+        Assert.assertTrue(Hints.containsHint(hints, Long.class));
+        Assert.assertFalse(Hints.containsHint(hints, Double.class));
+
+        Assert.assertArrayEquals(new Object[]{Flag.A, "a", Flag.B, 1, "b", Flag.C, 2L}, hints);
+    }
+
+    @Test
+    public void joinIterateTest()
+    {
+        Object[] left = {Flag.A, "a"};
+        Object[] right = {Flag.B};
+        Object[] hints = Hints.join(Hints.join(left, right), 1);
+
+        // joined hints are plain arrays
+        Assert.assertEquals(4, hints.length);
+        Assert.assertEquals("[A, a, B, 1]", Arrays.toString(hints));
+        Assert.assertEquals(Arrays.asList(Flag.A, "a", Flag.B, 1), Arrays.asList(hints));
+
+        int count = 0;
+
+        for (Object hint : hints)
+        {
+            Assert.assertNotNull(hint);
+            count++;
+        }
+
+        Assert.assertEquals(hints.length, count);
+
+        // changing the joined arrays does not change the result
+        left[0] = Flag.C;
+        right[0] = Flag.C;
+
+        Assert.assertFalse(Hints.containsHint(hints, Flag.C));
+    }
+
+    @Test
+    public void flagsTest()
+    {
+        OrderedMergeOptions transformerOptions = OrderedMergeOptions.DEFAULT.withMoveDetection(true);
+        OrderedMergeOptions options = OrderedMergeOptions.DEFAULT.withParallel(true);
+        HintFlags flags = HintFlags.of(new Object[]{Hint.KEEP_NULL, transformerOptions},
+            Hints.join(new Object[]{Hint.UNMODIFIABLE, options}, "a"));
+
+        Assert.assertFalse(flags.isOrEmpty());
+        Assert.assertTrue(flags.isKeepNull());
+        Assert.assertFalse(flags.isKeepMissing());
+        Assert.assertTrue(flags.isUnmodifiable());
+        Assert.assertTrue(flags.contains(Hint.UNMODIFIABLE));
+        Assert.assertSame(options, flags.getOrderedMergeOptions());
+
+        flags = HintFlags.of(null, null);
+
+        Assert.assertFalse(flags.isKeepNull());
+        Assert.assertSame(OrderedMergeOptions.DEFAULT, flags.getOrderedMergeOptions());
+    }
+
+    @Test
+    public void lazyTest()
+    {
+        AtomicInteger count = new AtomicInteger();
+        LazyHint<String> lazyHint = LazyHint.of(String.class, () -> "lazy" + count.incrementAndGet());
+        Object[] hints = Hints.join(new Object[]{"a", lazyHint, LazyHint.of(Long.class, () -> null)}, Flag.A);
+
+        Assert.assertEquals(Flag.A, Hints.hintOrNull(hints, Flag.class));
+        Assert.assertFalse(lazyHint.isComputed());
+
+        Assert.assertEquals("lazy1", Hints.hintOrNull(hints, String.class));
+        Assert.assertEquals("lazy1", Hints.hintOrNull(hints, CharSequence.class));
+        Assert.assertEquals("lazy1", Hints.hint(Hints.join(hints, 1), String.class));
+        Assert.assertEquals(1, count.get());
+
+        // a null value is skipped, a later hint wins
+        Assert.assertNull(Hints.hintOrNull(hints, Long.class));
+        Assert.assertEquals("b", Hints.hintOrNull(Hints.join(hints, "b"), String.class));
+    }
+
+    @Test
+    public void lazyContainsTest()
+    {
+        AtomicInteger count = new AtomicInteger();
+        LazyHint<String> lazyHint = LazyHint.of(String.class, () -> "lazy" + count.incrementAndGet());
+        Object[] hints = Hints.join(new Object[]{Flag.A}, lazyHint);
+
+        Assert.assertTrue(Hints.containsHint(hints, String.class));
+        Assert.assertTrue(Hints.containsHint(hints, CharSequence.class));
+        Assert.assertFalse(Hints.containsHint(hints, Long.class));
+        Assert.assertFalse(lazyHint.isComputed());
+        Assert.assertEquals(0, count.get());
+    }
+
+    @Test
+    public void joinEmptyTest()
+    {
+        Object[] hints = {Flag.A};
+
+        Assert.assertSame(hints, Hints.join(null, hints));
+        Assert.assertSame(hints, Hints.join(hints));
+    }
+
+
+    @Test
+    public void contextTest()
+    {
+        Object[] defaultHints = {Flag.A, "a"};
+        HintContext context = HintContext.of(defaultHints);
+
+        // the array of the root is not copied
+        Assert.assertSame(defaultHints, context.toArray());
+        Assert.assertSame(context, context.with());
+        Assert.assertSame(context, HintContext.EMPTY.with(context));
+
+        HintContext joined = context.with(Flag.B).with(HintContext.of(new Object[]{1, "b"}).with(Flag.C));
+
+        Assert.assertArrayEquals(new Object[]{Flag.A, "a", Flag.B, 1, "b", Flag.C}, joined.toArray());
+        Assert.assertSame(joined.toArray(), joined.toArray());
+        Assert.assertArrayEquals(new Object[]{Flag.A, "a", Flag.B, 1, "b", Flag.C, 2L}, joined.with(2L).toArray());
+
+        // the last hint wins, subtypes match
+        Assert.assertEquals("b", joined.hintOrNull(String.class));
+        Assert.assertEquals("b", joined.hintOrNull(CharSequence.class));
+        Assert.assertEquals(Flag.C, joined.hintOrNull(Flag.class));
+        Assert.assertEquals(Integer.valueOf(1), joined.hintOrNull(Number.class));
+        Assert.assertNull(joined.hintOrNull(Double.class));
+
+        Assert.assertTrue(joined.containsHint(Flag.A));
+        Assert.assertTrue(joined.containsHint(Flag.C));
+        Assert.assertTrue(joined.containsHint(Integer.class));
+        Assert.assertFalse(joined.containsHint(Double.class));
+        Assert.assertFalse(context.containsHint(Flag.B));
+    }
+
+    @Test
+    public void contextSlotTest()
+    {
+        AtomicInteger count = new AtomicInteger();
+        LazyHint<String> lazyHint = LazyHint.of(String.class, () -> "lazy" + count.incrementAndGet());
+        Object[] hints = {Flag.A, "a", null, 1, new String[]{"b"}, new int[]{1}, lazyHint,
+            LazyHint.of(CharSequence.class, () -> null), LazyHint.of(Long.class, () -> null), Flag.B};
+        HintContext context = HintContext.of(hints);
+        Class<?>[] types = {Flag.class, Enum.class, Comparable.class, CharSequence.class, String.class, Number.class,
+            Integer.class, Long.class, Double.class, Object[].class, String[].class, CharSequence[].class,
+            int[].class, Cloneable.class, LazyHint.class, Object.class, int.class};
+
+        Assert.assertFalse(lazyHint.isComputed());
+
+        // the slot table resolves the same hints as the scan
+        for (Class<?> type : types)
+        {
+            Assert.assertEquals(type.getName(), Hints.containsHint(hints, type), context.containsHint(type));
+            Assert.assertEquals(type.getName(), Hints.hintOrNull(hints, type), context.hintOrNull(type));
+        }
+
+        Assert.assertEquals("lazy1", context.hintOrNull(String.class));
+        Assert.assertEquals(Flag.B, context.hintOrNull(Flag.class));
+        Assert.assertEquals(Integer.valueOf(1), context.hintOrNull(Number.class));
+        Assert.assertNull(context.hintOrNull(Long.class));
+        Assert.assertTrue(context.containsHint(Long.class));
+        Assert.assertEquals(1, count.get());
+
+        // the last segment wins
+        Assert.assertEquals("c", context.with("c").hintOrNull(CharSequence.class));
+        Assert.assertEquals("lazy1", HintContext.of(new Object[]{"c"}).with(context).hintOrNull(CharSequence.class));
+    }
+
+    @Test
+    public void contextMergeTest()
+    {
+        List<List<Object>> mergeHints = new ArrayList<>();
+        Merger<String, String> merger = new AbstractMerger<String, String>(Flag.A)
+        {
+            @Override
+            public boolean isUniqueKeyMatching(String dto, String entity, Object... hints)
+            {
+                return false;
+            }
+
+            @Override
+            protected String create(String dto, Object[] hints)
+            {
+                return "";
+            }
+
+            @Override
+            protected String mergeNonNull(String dto, String entity, Object[] hints)
+            {
+                mergeHints.add(Arrays.asList(hints));
+
+                return dto;
+            }
+        };
+        Map<Integer, String> dtos = new LinkedHashMap<>();
+
+        dtos.put(1, "a");
+        dtos.put(2, "b");
+
+        Assert.assertEquals(Arrays.asList("a", "b"), merger.mergeAll(dtos, Flag.B).intoArrayList(null));
+        Assert.assertEquals(Arrays.asList(Arrays.asList(Flag.A, Flag.B, 1, ""), Arrays.asList(Flag.A, Flag.B, 2, "")),
+            mergeHints);
+
+        mergeHints.clear();
+
+        Map<Integer, Iterable<? extends String>> groupedDtos = new LinkedHashMap<>();
+
+        groupedDtos.put(1, Arrays.asList("a", "b"));
+        groupedDtos.put(2, Collections.singletonList("c"));
+
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), merger.mergeGrouped(groupedDtos).intoArrayList(null));
+        Assert.assertEquals(Arrays.asList(Arrays.asList(Flag.A, 1, ""), Arrays.asList(Flag.A, 1, ""),
+            Arrays.asList(Flag.A, 2, "")), mergeHints);
+
+        mergeHints.clear();
+
+        Assert.assertEquals(Arrays.asList("a", "b", "c"),
+            merger.flatMapAndMergeAll(groupedDtos.values(), dto -> dto, Flag.B).intoArrayList(null));
+        Assert.assertEquals(Arrays.asList(Flag.A, Flag.B, groupedDtos.get(2), ""), mergeHints.get(2));
+    }
+
+    @Test
+    public void contextTransformTest()
+    {
+        List<List<Object>> transformHints = new ArrayList<>();
+        Transformer<String, String> transformer = new AbstractTransformer<String, String>(Flag.A)
+        {
+            @Override
+            protected String transformNonNull(String entity, Object[] hints)
+            {
+                transformHints.add(Arrays.asList(hints));
+
+                return entity;
+            }
+        };
+        Map<Integer, String> entities = new LinkedHashMap<>();
+
+        entities.put(1, "a");
+        entities.put(2, "b");
+
+        Assert.assertEquals(Arrays.asList("a", "b"), transformer.transformAll(entities, Flag.B).toArrayList());
+        Assert.assertEquals(Arrays.asList(Arrays.asList(Flag.A, Flag.B, 1), Arrays.asList(Flag.A, Flag.B, 2)),
+            transformHints);
+
+        transformHints.clear();
+
+        List<List<String>> parents = Arrays.asList(Arrays.asList("a", "b"), Collections.singletonList("c"));
+
+        Assert.assertEquals(Arrays.asList("a", "b", "c"),
+            transformer.flatMapAndTransformAll(parents, List::stream, Flag.B).toArrayList());
+        Assert.assertEquals(Arrays.asList(Flag.A, Flag.B, parents.get(0)), transformHints.get(1));
+        Assert.assertEquals(Arrays.asList(Flag.A, Flag.B, parents.get(1)), transformHints.get(2));
+    }
+
 }
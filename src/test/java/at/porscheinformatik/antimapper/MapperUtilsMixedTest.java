@@ -4,9 +4,14 @@ import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
 import java.util.stream.IntStream;
 
@@ -86,6 +91,97 @@ public class MapperUtilsMixedTest extends AbstractMapperUtilsTest
         assertAny(targetList, Change.SAME, "C");
     }
 
+    @Test
+    public void testGroupsMovedByKey()
+    {
+        Collection<SourceItem> sourceList = createSourceList("A1", "B2", "C2");
+        Map<String, Collection<TargetItem>> targetMap = new HashMap<>();
+
+        targetMap.put("1", createTargetList("A1", "B1"));
+        targetMap.put("2", createTargetList("C2"));
+
+        TargetItem movedItem = targetMap.get("1").stream().filter(item -> "B".equals(item.getKey())).findAny().get();
+
+        MapperUtils
+            .mapMixedGroups(sourceList, targetMap, item -> item.getText().substring(1), ArrayList::new,
+                KeyMatchFunction.of(SourceItem::getKey, TargetItem::getKey), MapperUtilsMixedTest::map,
+                MapperUtilsMixedTest::nullFilter, null);
+
+        assertThat(targetMap.get("1").size(), equalTo(1));
+        assertThat(targetMap.get("2").size(), equalTo(2));
+
+        assertAny(targetMap.get("1"), Change.SAME, "A1");
+        assertThat(assertAny(targetMap.get("2"), Change.UPDATED, "B2"), sameInstance(movedItem));
+        assertAny(targetMap.get("2"), Change.SAME, "C2");
+    }
+
+    @Test
+    public void testReplacedByKey()
+    {
+        testReplacedByKey(new ArrayList<>(createTargetList("A1", "B1", "C1")));
+        testReplacedByKey(new LinkedList<>(createTargetList("A1", "B1", "C1")));
+    }
+
+    private void testReplacedByKey(List<TargetItem> targetList)
+    {
+        Collection<SourceItem> sourceList = createSourceList("C2", "D2", "A1");
+        TargetItem sameItem = targetList.get(0);
+
+        // the map function replaces updated items by new instances
+        MapperUtils
+            .mapMixed(sourceList, targetList, KeyMatchFunction.of(SourceItem::getKey, TargetItem::getKey),
+                (sourceItem, targetItem) -> sourceItem == null || targetItem == null
+                    || Objects.equals(sourceItem.getText(), targetItem.getText()) ? map(sourceItem, targetItem)
+                        : new TargetItem(Change.UPDATED, sourceItem.getText()),
+                false, MapperUtilsMixedTest::nullFilter, null);
+
+        assertThat(targetList.toString(), targetList.size(), equalTo(3));
+        assertThat(targetList.get(0), sameInstance(sameItem));
+        assertThat(targetList.get(1).getText(), equalTo("C2"));
+        assertThat(targetList.get(2).getText(), equalTo("D2"));
+    }
+
+    @Test
+    public void testDeleted()
+    {
+        testDeleted(MapperUtilsMixedTest::matches);
+    }
+
+    @Test
+    public void testDeletedByKey()
+    {
+        testDeleted(KeyMatchFunction.of(SourceItem::getKey, TargetItem::getKey));
+    }
+
+    private void testDeleted(MatchFunction<SourceItem, TargetItem> matchFunction)
+    {
+        Collection<SourceItem> sourceList = createSourceList("A2", "B2", "D2");
+        List<TargetItem> targetList = new ArrayList<>(createTargetList("C-", "A1", "B-", "E1"));
+        TargetItem deletedItem = targetList.get(2);
+        TargetItem untouchedItem = targetList.get(0);
+        List<String> consumedItems = new ArrayList<>();
+
+        MapperUtils
+            .mapMixed(sourceList, targetList, matchFunction, MapperUtilsMixedTest::map, false,
+                MapperUtilsMixedTest::nullFilter,
+                collection -> collection.forEach(item -> consumedItems.add(item.getText())),
+                item -> item.getText().endsWith("-"));
+
+        assertThat(targetList.size(), equalTo(4));
+
+        // the deleted items stay at their position, the revived item is merged in place
+        assertThat(targetList.get(0), sameInstance(untouchedItem));
+        assertThat(targetList.get(0).getText(), equalTo("C-"));
+        assertThat(targetList.get(1).getText(), equalTo("A2"));
+        assertThat(targetList.get(2), sameInstance(deletedItem));
+        assertThat(targetList.get(2).getText(), equalTo("B2"));
+        assertThat(targetList.get(3).getText(), equalTo("D2"));
+
+        // the deleted item has not been mapped as missing item
+        assertAny(targetList, Change.SAME, "C-");
+        assertThat(consumedItems, equalTo(Arrays.asList("C-", "A2", "B2", "D2")));
+    }
+
     @Test
     public void testRandom()
     {
@@ -94,6 +190,46 @@ public class MapperUtilsMixedTest extends AbstractMapperUtilsTest
         IntStream.range(0, 65536).parallel().forEach(i -> testSample(i));
     }
 
+    @Test
+    public void testRandomByKey()
+    {
+        System.out.println("Performing random mixed test by key ...");
+
+        IntStream.range(0, 65536).parallel().forEach(i -> testSampleByKey(i));
+    }
+
+    private void testSampleByKey(int sample)
+    {
+        try
+        {
+            Random rnd = new Random(sample);
+            int count = rnd.nextInt(16);
+            List<String> sourceItems = new ArrayList<>();
+            List<String> targetItems = new ArrayList<>();
+
+            createRandomItems(rnd, sourceItems, targetItems, count);
+
+            Collection<SourceItem> sourceList = createSourceList(sourceItems.toArray(new String[sourceItems.size()]));
+            Collection<TargetItem> expectedTargetList =
+                createTargetList(targetItems.toArray(new String[targetItems.size()]));
+            Collection<TargetItem> targetList = createTargetList(targetItems.toArray(new String[targetItems.size()]));
+
+            MapperUtils
+                .mapMixed(sourceList, expectedTargetList, MapperUtilsMixedTest::matches, MapperUtilsMixedTest::map,
+                    false, MapperUtilsMixedTest::nullFilter, null);
+
+            MapperUtils
+                .mapMixed(sourceList, targetList, KeyMatchFunction.of(SourceItem::getKey, TargetItem::getKey),
+                    MapperUtilsMixedTest::map, false, MapperUtilsMixedTest::nullFilter, null);
+
+            assertThat(targetList.toString(), equalTo(expectedTargetList.toString()));
+        }
+        catch (Exception e)
+        {
+            throw new AssertionError("Sample #" + sample + " has failed", e);
+        }
+    }
+
     private void testSample(int sample)
     {
         try
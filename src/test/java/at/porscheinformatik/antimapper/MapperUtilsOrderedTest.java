@@ -4,10 +4,22 @@ import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ManagedBlocker;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 import org.junit.Test;
@@ -747,15 +759,779 @@ public class MapperUtilsOrderedTest extends AbstractMapperUtilsTest
         assertNoNext(iterator);
     }
 
+    @Test
+    public void testAppend()
+    {
+        Collection<SourceItem> sourceList = createSourceList("A", "B", "C", "D1", "E");
+        Collection<TargetItem> targetList = createTargetList("A", "B", "C", "D");
+
+        MapperUtils
+            .mapOrdered(sourceList, targetList, MapperUtilsOrderedTest::matches, MapperUtilsOrderedTest::map, false,
+                MapperUtilsOrderedTest::nullFilter, null);
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "A", Change.SAME);
+        assertNext(iterator, "B", Change.SAME);
+        assertNext(iterator, "C", Change.SAME);
+        assertNext(iterator, "D1", Change.UPDATED);
+        assertNext(iterator, "E", Change.ADDED);
+        assertNoNext(iterator);
+    }
+
+    @Test
+    public void testTruncate()
+    {
+        Collection<SourceItem> sourceList = createSourceList("A", "B");
+        Collection<TargetItem> targetList = createTargetList("A", "B", "C", "D");
+
+        MapperUtils
+            .mapOrdered(sourceList, targetList, MapperUtilsOrderedTest::matches, MapperUtilsOrderedTest::map, false,
+                MapperUtilsOrderedTest::nullFilter, null);
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "A", Change.SAME);
+        assertNext(iterator, "B", Change.SAME);
+        assertNoNext(iterator);
+    }
+
+    @Test
+    public void testTruncateKeepMissing()
+    {
+        Collection<SourceItem> sourceList = createSourceList("A", "B");
+        Collection<TargetItem> targetList = createTargetList("A", "B", "C", "D");
+
+        MapperUtils
+            .mapOrdered(sourceList, targetList, MapperUtilsOrderedTest::matches, MapperUtilsOrderedTest::map, true,
+                MapperUtilsOrderedTest::nullFilter, null);
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "A", Change.SAME);
+        assertNext(iterator, "B", Change.SAME);
+        assertNext(iterator, "C", Change.SAME);
+        assertNext(iterator, "D", Change.SAME);
+        assertNoNext(iterator);
+    }
+
+    @Test
+    public void testCommonPrefixAndSuffixMatchCount()
+    {
+        List<SourceItem> sourceList = new ArrayList<>();
+        List<TargetItem> targetList = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++)
+        {
+            sourceList.add(new SourceItem(String.valueOf(i)));
+            targetList.add(new TargetItem(String.valueOf(i == 500 ? -1 : i)));
+        }
+
+        AtomicInteger count = new AtomicInteger();
+
+        MapperUtils.mapOrdered(sourceList, targetList, (sourceItem, targetItem) -> {
+            count.incrementAndGet();
+
+            return Objects.equals(sourceItem.getText(), targetItem.getText());
+        }, MapperUtilsOrderedTest::map, false, MapperUtilsOrderedTest::nullFilter, null);
+
+        assertThat(targetList.get(500).getText(), equalTo("500"));
+        assertThat(targetList.get(500).getChange(), equalTo(Change.ADDED));
+        assertThat(targetList.size(), equalTo(1000));
+        assertThat(count.get() < 5000, is(true));
+    }
+
+    @Test
+    public void testMoveDetection()
+    {
+        Collection<SourceItem> sourceList = createSourceList("B", "C1", "D", "A1", "E");
+        Collection<TargetItem> targetList = createTargetList("A", "B", "C", "D", "E");
+        AtomicInteger count = new AtomicInteger();
+
+        MapperUtils
+            .mapOrdered(sourceList, targetList,
+                KeyMatchFunction.of(MapperUtilsOrderedTest::matches, SourceItem::getKey, TargetItem::getKey),
+                (sourceItem, targetItem) -> {
+                    count.incrementAndGet();
+
+                    return map(sourceItem, targetItem);
+                }, false, MapperUtilsOrderedTest::nullFilter, null,
+                OrderedMergeOptions.DEFAULT.withMoveDetection(true));
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "B", Change.SAME);
+        assertNext(iterator, "C1", Change.UPDATED);
+        assertNext(iterator, "D", Change.SAME);
+        assertNext(iterator, "A1", Change.UPDATED);
+        assertNext(iterator, "E", Change.SAME);
+        assertNoNext(iterator);
+        assertThat(count.get(), equalTo(5));
+    }
+
+    @Test
+    public void testMoveDetectionWithoutKeys()
+    {
+        Collection<SourceItem> sourceList = createSourceList("B", "C", "A1");
+        Collection<TargetItem> targetList = createTargetList("A", "B", "C");
+
+        MapperUtils
+            .mapOrdered(sourceList, targetList, MapperUtilsOrderedTest::matches, MapperUtilsOrderedTest::map, false,
+                MapperUtilsOrderedTest::nullFilter, null, OrderedMergeOptions.DEFAULT.withMoveDetection(true));
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "B", Change.SAME);
+        assertNext(iterator, "C", Change.SAME);
+        assertNext(iterator, "A1", Change.ADDED);
+        assertNoNext(iterator);
+    }
+
     @Test
     public void testRandom()
     {
         System.out.println("Performing random ordered test ...");
 
-        IntStream.range(0, 65536).parallel().forEach(i -> testSample(i));
+        IntStream
+            .range(0, 65536)
+            .parallel()
+            .forEach(i -> testSample(i, OrderedMergeOptions.DEFAULT, MapperUtilsOrderedTest::matches));
+    }
+
+    @Test
+    public void testRandomLinearSpace()
+    {
+        System.out.println("Performing random ordered test with linear space diff ...");
+
+        OrderedMergeOptions options = OrderedMergeOptions.DEFAULT.withDiffAlgorithm(DiffAlgorithm.LINEAR_SPACE);
+
+        IntStream
+            .range(0, 65536)
+            .parallel()
+            .forEach(i -> testSample(i, options, MapperUtilsOrderedTest::matches));
+    }
+
+    @Test
+    public void testRandomInPlace()
+    {
+        System.out.println("Performing random ordered test with in-place updates ...");
+
+        OrderedMergeOptions options = OrderedMergeOptions.DEFAULT.withListUpdateStrategy(ListUpdateStrategy.IN_PLACE);
+
+        IntStream
+            .range(0, 65536)
+            .parallel()
+            .forEach(i -> testSample(i, options, MapperUtilsOrderedTest::matches));
+    }
+
+    @Test
+    public void testRandomByKey()
+    {
+        System.out.println("Performing random ordered test by key ...");
+
+        IntStream.range(0, 65536).parallel().forEach(i -> {
+            testSampleByKey(i, OrderedMergeOptions.DEFAULT);
+            testSampleByKey(i, OrderedMergeOptions.DEFAULT.withListUpdateStrategy(ListUpdateStrategy.IN_PLACE));
+        });
+    }
+
+    private void testSampleByKey(int sample, OrderedMergeOptions options)
+    {
+        try
+        {
+            Random rnd = new Random(sample);
+            int count = rnd.nextInt(16);
+            List<String> sourceLines = new ArrayList<>();
+            List<String> targetLines = new ArrayList<>();
+
+            createRandomItems(rnd, sourceLines, targetLines, count);
+
+            Collection<SourceItem> sourceList = createSourceList(sourceLines.toArray(new String[sourceLines.size()]));
+            Collection<TargetItem> expectedTargetList =
+                createTargetList(targetLines.toArray(new String[targetLines.size()]));
+            Collection<TargetItem> targetList = createTargetList(targetLines.toArray(new String[targetLines.size()]));
+
+            MapperUtils
+                .mapOrdered(sourceList, expectedTargetList, MapperUtilsOrderedTest::matches,
+                    MapperUtilsOrderedTest::map, false, MapperUtilsOrderedTest::nullFilter, null, options);
+
+            MapperUtils
+                .mapOrdered(sourceList, targetList,
+                    KeyMatchFunction.of(MapperUtilsOrderedTest::matches, SourceItem::getKey, TargetItem::getKey),
+                    MapperUtilsOrderedTest::map, false, MapperUtilsOrderedTest::nullFilter, null, options);
+
+            assertThat(targetList.toString(), equalTo(expectedTargetList.toString()));
+        }
+        catch (Exception e)
+        {
+            throw new AssertionError("Sample #" + sample + " has failed", e);
+        }
+    }
+
+    @Test
+    public void testRandomMoveDetection()
+    {
+        System.out.println("Performing random ordered test with move detection ...");
+
+        OrderedMergeOptions options = OrderedMergeOptions.DEFAULT.withMoveDetection(true);
+        MatchFunction<SourceItem, TargetItem> matchFunction =
+            KeyMatchFunction.of(MapperUtilsOrderedTest::matches, SourceItem::getKey, TargetItem::getKey);
+
+        IntStream.range(0, 65536).parallel().forEach(i -> {
+            testSample(i, options, matchFunction);
+            testSample(i, options.withListUpdateStrategy(ListUpdateStrategy.IN_PLACE), matchFunction);
+        });
+    }
+
+    @Test
+    public void testRandomLinkedList()
+    {
+        System.out.println("Performing random ordered test with linked lists ...");
+
+        MatchFunction<SourceItem, TargetItem> keyMatchFunction =
+            KeyMatchFunction.of(MapperUtilsOrderedTest::matches, SourceItem::getKey, TargetItem::getKey);
+
+        IntStream.range(0, 65536).parallel().forEach(i -> {
+            testSampleLinkedList(i, OrderedMergeOptions.DEFAULT, MapperUtilsOrderedTest::matches);
+            testSampleLinkedList(i, OrderedMergeOptions.DEFAULT, keyMatchFunction);
+            testSampleLinkedList(i, OrderedMergeOptions.DEFAULT.withMoveDetection(true), keyMatchFunction);
+            testSampleLinkedList(i, OrderedMergeOptions.DEFAULT.withListUpdateStrategy(ListUpdateStrategy.REBUILD),
+                keyMatchFunction);
+        });
+    }
+
+    private void testSampleLinkedList(int sample, OrderedMergeOptions options,
+        MatchFunction<SourceItem, TargetItem> matchFunction)
+    {
+        try
+        {
+            Random rnd = new Random(sample);
+            int count = rnd.nextInt(16);
+            List<String> sourceLines = new ArrayList<>();
+            List<String> targetLines = new ArrayList<>();
+
+            createRandomItems(rnd, sourceLines, targetLines, count);
+
+            List<SourceItem> sourceList =
+                new LinkedList<>(createSourceList(sourceLines.toArray(new String[sourceLines.size()])));
+            List<TargetItem> expectedTargetList =
+                new ArrayList<>(createTargetList(targetLines.toArray(new String[targetLines.size()])));
+            List<TargetItem> targetList =
+                new LinkedList<>(createTargetList(targetLines.toArray(new String[targetLines.size()])));
+
+            MapperUtils
+                .mapOrdered(new ArrayList<>(sourceList), expectedTargetList, matchFunction,
+                    MapperUtilsOrderedTest::map, false, MapperUtilsOrderedTest::nullFilter, null,
+                    options.withListUpdateStrategy(ListUpdateStrategy.IN_PLACE));
+
+            MapperUtils
+                .mapOrdered(sourceList, targetList, matchFunction, MapperUtilsOrderedTest::map, false,
+                    MapperUtilsOrderedTest::nullFilter, null, options);
+
+            assertThat(targetList.toString(), equalTo(expectedTargetList.toString()));
+        }
+        catch (Exception e)
+        {
+            throw new AssertionError("Sample #" + sample + " has failed", e);
+        }
+    }
+
+    @Test
+    public void testLinkedListStealsInOnePass()
+    {
+        String[] lines = IntStream.range(0, 2000).mapToObj(String::valueOf).toArray(String[]::new);
+        List<SourceItem> sourceList = new ArrayList<>(createSourceList(lines));
+        List<TargetItem> expectedTargetList = new ArrayList<>(createTargetList(lines));
+        AtomicInteger steps = new AtomicInteger();
+        List<TargetItem> targetList = new LinkedList<TargetItem>(createTargetList(lines))
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public ListIterator<TargetItem> listIterator(int index)
+            {
+                return new CountingListIterator<>(super.listIterator(index), steps);
+            }
+        };
+        MatchFunction<SourceItem, TargetItem> matchFunction =
+            KeyMatchFunction.of(MapperUtilsOrderedTest::matches, SourceItem::getKey, TargetItem::getKey);
+
+        // the last 500 values move to the front, they are stolen from the end of the target list
+        Collections.rotate(sourceList, 500);
+
+        MapperUtils
+            .mapOrdered(sourceList, expectedTargetList, matchFunction, MapperUtilsOrderedTest::map, false,
+                MapperUtilsOrderedTest::nullFilter, null, OrderedMergeOptions.DEFAULT);
+
+        MapperUtils
+            .mapOrdered(sourceList, targetList, matchFunction, MapperUtilsOrderedTest::map, false,
+                MapperUtilsOrderedTest::nullFilter, null, OrderedMergeOptions.DEFAULT);
+
+        assertThat(targetList.toString(), equalTo(expectedTargetList.toString()));
+
+        // a few passes (the merge, the snapshot, the string), instead of walking the list for each steal
+        assertThat(String.valueOf(steps.get()), steps.get() <= 8 * lines.length, is(true));
+    }
+
+    private static final class CountingListIterator<Value> implements ListIterator<Value>
+    {
+        private final ListIterator<Value> iterator;
+        private final AtomicInteger steps;
+
+        CountingListIterator(ListIterator<Value> iterator, AtomicInteger steps)
+        {
+            super();
+
+            this.iterator = iterator;
+            this.steps = steps;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Value next()
+        {
+            steps.incrementAndGet();
+
+            return iterator.next();
+        }
+
+        @Override
+        public boolean hasPrevious()
+        {
+            return iterator.hasPrevious();
+        }
+
+        @Override
+        public Value previous()
+        {
+            steps.incrementAndGet();
+
+            return iterator.previous();
+        }
+
+        @Override
+        public int nextIndex()
+        {
+            return iterator.nextIndex();
+        }
+
+        @Override
+        public int previousIndex()
+        {
+            return iterator.previousIndex();
+        }
+
+        @Override
+        public void remove()
+        {
+            iterator.remove();
+        }
+
+        @Override
+        public void set(Value e)
+        {
+            iterator.set(e);
+        }
+
+        @Override
+        public void add(Value e)
+        {
+            iterator.add(e);
+        }
+    }
+
+    @Test
+    public void testDefaultDiffAlgorithmByKey()
+    {
+        assertThat(OrderedMergeOptions.DEFAULT.resolveDiffAlgorithm(10, 10, true), equalTo(DiffAlgorithm.LCS_TABLE));
+        assertThat(OrderedMergeOptions.DEFAULT.resolveDiffAlgorithm(10_000, 10_000, true),
+            equalTo(DiffAlgorithm.LINEAR_SPACE));
+
+        IntStream.range(0, 4096).parallel().forEach(i -> {
+            testSampleByKey(i, OrderedMergeOptions.DEFAULT, DiffAlgorithm.LCS_TABLE);
+            testSampleByKey(i, OrderedMergeOptions.DEFAULT.withLcsTableThreshold(0), DiffAlgorithm.LINEAR_SPACE);
+        });
+    }
+
+    private void testSampleByKey(int sample, OrderedMergeOptions options, DiffAlgorithm baselineDiffAlgorithm)
+    {
+        try
+        {
+            Random rnd = new Random(sample);
+            int count = rnd.nextInt(16);
+            List<String> sourceLines = new ArrayList<>();
+            List<String> targetLines = new ArrayList<>();
+
+            createRandomItems(rnd, sourceLines, targetLines, count);
+
+            Collection<SourceItem> sourceList = createSourceList(sourceLines.toArray(new String[sourceLines.size()]));
+            Collection<TargetItem> expectedTargetList =
+                createTargetList(targetLines.toArray(new String[targetLines.size()]));
+            Collection<TargetItem> targetList = createTargetList(targetLines.toArray(new String[targetLines.size()]));
+            KeyMatchFunction<SourceItem, TargetItem> matchFunction =
+                KeyMatchFunction.of(MapperUtilsOrderedTest::matches, SourceItem::getKey, TargetItem::getKey);
+
+            MapperUtils
+                .mapOrdered(sourceList, expectedTargetList, matchFunction, MapperUtilsOrderedTest::map, false,
+                    MapperUtilsOrderedTest::nullFilter, null, options.withDiffAlgorithm(baselineDiffAlgorithm));
+
+            MapperUtils
+                .mapOrdered(sourceList, targetList, matchFunction, MapperUtilsOrderedTest::map, false,
+                    MapperUtilsOrderedTest::nullFilter, null, options);
+
+            assertThat(targetList.toString(), equalTo(expectedTargetList.toString()));
+        }
+        catch (Exception e)
+        {
+            throw new AssertionError("Sample #" + sample + " has failed", e);
+        }
+    }
+
+    @Test
+    public void testRandomPatience()
+    {
+        System.out.println("Performing random ordered test with patience diff ...");
+
+        OrderedMergeOptions options = OrderedMergeOptions.DEFAULT.withDiffAlgorithm(DiffAlgorithm.PATIENCE);
+
+        IntStream
+            .range(0, 65536)
+            .parallel()
+            .forEach(i -> testSample(i, options,
+                KeyMatchFunction.of(MapperUtilsOrderedTest::matches, SourceItem::getKey, TargetItem::getKey)));
+    }
+
+    @Test
+    public void testRandomPatienceParallel()
+    {
+        OrderedMergeOptions options =
+            OrderedMergeOptions.DEFAULT.withDiffAlgorithm(DiffAlgorithm.PATIENCE).withParallel(true);
+
+        IntStream
+            .range(0, 65536)
+            .parallel()
+            .forEach(i -> testSample(i, options,
+                KeyMatchFunction.of(MapperUtilsOrderedTest::matches, SourceItem::getKey, TargetItem::getKey)));
+    }
+
+    @Test
+    public void testRandomParallel()
+    {
+        MatchFunction<SourceItem, TargetItem> matchFunction =
+            KeyMatchFunction.of(MapperUtilsOrderedTest::matches, SourceItem::getKey, TargetItem::getKey);
+        OrderedMergeOptions options = OrderedMergeOptions.DEFAULT.withParallel(true);
+
+        IntStream.range(0, 65536).parallel().forEach(i -> {
+            testSample(i, options, matchFunction);
+            testSample(i, options.withMoveDetection(true), matchFunction);
+            testSample(i, options.withListUpdateStrategy(ListUpdateStrategy.IN_PLACE), matchFunction);
+            testSample(i, options.withDiffAlgorithm(DiffAlgorithm.BIT_PARALLEL), matchFunction);
+        });
+    }
+
+    @Test
+    public void testParallelRegions() throws InterruptedException
+    {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch concurrentComparisons = new CountDownLatch(2);
+        ManagedBlocker blocker = new ManagedBlocker()
+        {
+            @Override
+            public boolean block() throws InterruptedException
+            {
+                concurrentComparisons.await(10, TimeUnit.SECONDS);
+
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable()
+            {
+                return concurrentComparisons.getCount() == 0;
+            }
+        };
+
+        /**
+         * The first comparison of a key of an inner region waits for a comparison in another thread.
+         */
+        class Key
+        {
+            private final String value;
+            private final boolean blocking;
+
+            Key(String value, boolean blocking)
+            {
+                super();
+
+                this.value = value;
+                this.blocking = blocking;
+            }
+
+            @Override
+            public int hashCode()
+            {
+                return value.hashCode();
+            }
+
+            @Override
+            public boolean equals(Object obj)
+            {
+                if (blocking && threads.add(Thread.currentThread()))
+                {
+                    concurrentComparisons.countDown();
+
+                    try
+                    {
+                        ForkJoinPool.managedBlock(blocker);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                return obj instanceof Key && value.equals(((Key) obj).value);
+            }
+        }
+
+        List<String> sourceList = new ArrayList<>();
+        List<String> targetList = new ArrayList<>();
+
+        for (int block = 0; block < 64; block++)
+        {
+            // an anchor and a region with different values
+            sourceList.add("a" + block);
+            targetList.add("a" + block);
+
+            for (int i = 0; i < 40; i++)
+            {
+                sourceList.add("s" + block + "_" + i);
+                targetList.add("t" + block + "_" + i);
+            }
+        }
+
+        MapperUtils
+            .mapOrdered(sourceList, targetList,
+                KeyMatchFunction.of(
+                    (String source) -> new Key(source,
+                        source.startsWith("s") && !source.startsWith("s0_") && !source.startsWith("s63_")),
+                    (String target) -> new Key(target, false)),
+                (source, target) -> source, false, Objects::nonNull, null,
+                OrderedMergeOptions.DEFAULT.withParallel(true));
+
+        assertThat(targetList, equalTo(sourceList));
+        assertThat("Regions compared at the same time", concurrentComparisons.getCount(), equalTo(0L));
+    }
+
+    @Test
+    public void testRandomPatienceParallelMatching()
+    {
+        KeyMatchFunction<String, String> keyMatchFunction = KeyMatchFunction.of(key -> key, key -> key);
+
+        for (int sample = 0; sample < 16; sample++)
+        {
+            Random rnd = new Random(sample);
+            List<String> sourceKeys = new ArrayList<>();
+
+            for (int i = 0; i < 50000; i++)
+            {
+                // mostly unique keys, some duplicates
+                sourceKeys.add(String.valueOf(rnd.nextInt(10) == 0 ? rnd.nextInt(100) : i));
+            }
+
+            List<String> targetKeys = new ArrayList<>(sourceKeys);
+
+            for (int i = 0; i < 2000; i++)
+            {
+                targetKeys.add(rnd.nextInt(targetKeys.size()), targetKeys.remove(rnd.nextInt(targetKeys.size())));
+                targetKeys.set(rnd.nextInt(targetKeys.size()), String.valueOf(rnd.nextInt(100)));
+            }
+
+            int[] expected = PatienceDiff.match(sourceKeys, targetKeys, keyMatchFunction, false);
+            int[] actual = PatienceDiff.match(sourceKeys, targetKeys, keyMatchFunction, true);
+
+            assertThat("Sample #" + sample, Arrays.equals(actual, expected), is(true));
+        }
+    }
+
+    @Test
+    public void testRandomPatienceMatching()
+    {
+        IntStream.range(0, 65536).parallel().forEach(sample -> {
+            Random rnd = new Random(sample);
+            List<String> sourceKeys = createRandomKeys(rnd, rnd.nextInt(24));
+            List<String> targetKeys = createRandomKeys(rnd, rnd.nextInt(24));
+            int[] sourceToTarget =
+                PatienceDiff.match(sourceKeys, targetKeys, KeyMatchFunction.of(key -> key, key -> key));
+            int lastTargetIndex = -1;
+
+            for (int sourceIndex = 0; sourceIndex < sourceToTarget.length; sourceIndex++)
+            {
+                int targetIndex = sourceToTarget[sourceIndex];
+
+                if (targetIndex >= 0)
+                {
+                    assertThat("Sample #" + sample, targetIndex > lastTargetIndex, is(true));
+                    assertThat("Sample #" + sample, targetKeys.get(targetIndex), equalTo(sourceKeys.get(sourceIndex)));
+
+                    lastTargetIndex = targetIndex;
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testRandomLinearSpaceMatching()
+    {
+        IntStream.range(0, 65536).parallel().forEach(sample -> {
+            Random rnd = new Random(sample);
+            List<String> sourceKeys = createRandomKeys(rnd, rnd.nextInt(24));
+            List<String> targetKeys = createRandomKeys(rnd, rnd.nextInt(24));
+            int[] sourceToTarget = MyersDiff.match(sourceKeys, targetKeys, String::equals);
+            int lastTargetIndex = -1;
+            int length = 0;
+
+            for (int sourceIndex = 0; sourceIndex < sourceToTarget.length; sourceIndex++)
+            {
+                int targetIndex = sourceToTarget[sourceIndex];
+
+                if (targetIndex >= 0)
+                {
+                    assertThat("Sample #" + sample, targetIndex > lastTargetIndex, is(true));
+                    assertThat("Sample #" + sample, targetKeys.get(targetIndex), equalTo(sourceKeys.get(sourceIndex)));
+
+                    lastTargetIndex = targetIndex;
+                    length++;
+                }
+            }
+
+            assertThat("Sample #" + sample, length, equalTo(lcsLength(sourceKeys, targetKeys)));
+        });
+    }
+
+    @Test
+    public void testRandomBounded()
+    {
+        System.out.println("Performing random ordered test with bounded diff ...");
+
+        IntStream.range(0, 65536).parallel().forEach(i -> {
+            testSample(i, OrderedMergeOptions.DEFAULT.withMaxEditDistance(1 + i % 8), MapperUtilsOrderedTest::matches);
+        });
+    }
+
+    @Test
+    public void testRandomBoundedMatching()
+    {
+        IntStream.range(0, 65536).parallel().forEach(sample -> {
+            Random rnd = new Random(sample);
+            List<String> sourceKeys = createRandomKeys(rnd, rnd.nextInt(24));
+            List<String> targetKeys = new ArrayList<>(sourceKeys);
+
+            for (int i = rnd.nextInt(6); i > 0; i--)
+            {
+                if (rnd.nextBoolean() && !targetKeys.isEmpty())
+                {
+                    targetKeys.remove(rnd.nextInt(targetKeys.size()));
+                }
+                else
+                {
+                    targetKeys.add(rnd.nextInt(targetKeys.size() + 1), createRandomKeys(rnd, 1).get(0));
+                }
+            }
+
+            int maxEditDistance = rnd.nextInt(8);
+            int lcsLength = lcsLength(sourceKeys, targetKeys);
+            int[] sourceToTarget = BoundedDiff.match(sourceKeys, targetKeys, String::equals, maxEditDistance);
+
+            if (sourceKeys.size() + targetKeys.size() - 2 * lcsLength > maxEditDistance)
+            {
+                assertThat("Sample #" + sample, sourceToTarget, nullValue());
+
+                return;
+            }
+
+            assertThat("Sample #" + sample, sourceToTarget, notNullValue());
+
+            int lastTargetIndex = -1;
+            int length = 0;
+
+            for (int sourceIndex = 0; sourceIndex < sourceToTarget.length; sourceIndex++)
+            {
+                int targetIndex = sourceToTarget[sourceIndex];
+
+                if (targetIndex >= 0)
+                {
+                    assertThat("Sample #" + sample, targetIndex > lastTargetIndex, is(true));
+                    assertThat("Sample #" + sample, targetKeys.get(targetIndex), equalTo(sourceKeys.get(sourceIndex)));
+
+                    lastTargetIndex = targetIndex;
+                    length++;
+                }
+            }
+
+            assertThat("Sample #" + sample, length, equalTo(lcsLength));
+        });
+    }
+
+    @Test
+    public void testRandomBitParallelMatching()
+    {
+        KeyMatchFunction<String, String> keyMatchFunction = KeyMatchFunction.of(key -> key, key -> key);
+
+        IntStream.range(0, 4096).parallel().forEach(sample -> {
+            Random rnd = new Random(sample);
+            List<String> sourceKeys = createRandomKeys(rnd, rnd.nextInt(150));
+            List<String> targetKeys = createRandomKeys(rnd, rnd.nextInt(150));
+            OrderedDiff expectedDiff = LCSTableDiff.create(sourceKeys, targetKeys, String::equals);
+            OrderedDiff diff = BitParallelDiff.create(sourceKeys, targetKeys, keyMatchFunction);
+
+            for (int sourceIndex = 0; sourceIndex < sourceKeys.size(); sourceIndex++)
+            {
+                for (int targetIndex = 0; targetIndex < targetKeys.size(); targetIndex++)
+                {
+                    assertThat("Sample #" + sample + " at " + sourceIndex + "/" + targetIndex,
+                        diff.isAddition(sourceIndex, targetIndex),
+                        is(expectedDiff.isAddition(sourceIndex, targetIndex)));
+                }
+            }
+        });
+    }
+
+    private static List<String> createRandomKeys(Random rnd, int count)
+    {
+        List<String> keys = new ArrayList<>();
+
+        for (int i = 0; i < count; i++)
+        {
+            keys.add(String.valueOf((char) ('A' + rnd.nextInt(6))));
+        }
+
+        return keys;
+    }
+
+    private static int lcsLength(List<String> sourceKeys, List<String> targetKeys)
+    {
+        int[][] table = new int[sourceKeys.size() + 1][targetKeys.size() + 1];
+
+        for (int i = sourceKeys.size() - 1; i >= 0; i--)
+        {
+            for (int j = targetKeys.size() - 1; j >= 0; j--)
+            {
+                table[i][j] = sourceKeys.get(i).equals(targetKeys.get(j)) ? table[i + 1][j + 1] + 1
+                    : Math.max(table[i + 1][j], table[i][j + 1]);
+            }
+        }
+
+        return table[0][0];
     }
 
-    private void testSample(int sample)
+    private void testSample(int sample, OrderedMergeOptions options,
+        MatchFunction<SourceItem, TargetItem> matchFunction)
     {
         try
         {
@@ -772,8 +1548,8 @@ public class MapperUtilsOrderedTest extends AbstractMapperUtilsTest
             Collection<TargetItem> targetList = createTargetList(targetLines.toArray(new String[targetLines.size()]));
 
             MapperUtils
-                .mapOrdered(sourceList, targetList, MapperUtilsOrderedTest::matches, MapperUtilsOrderedTest::map, false,
-                    MapperUtilsOrderedTest::nullFilter, null);
+                .mapOrdered(sourceList, targetList, matchFunction, MapperUtilsOrderedTest::map, false,
+                    MapperUtilsOrderedTest::nullFilter, null, options);
 
             assertThat(targetList.size(), equalTo(countNotNull(sourceLines)));
 
@@ -0,0 +1,167 @@
+package at.porscheinformatik.antimapper;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class MapperUtilsPositionTest extends AbstractMapperUtilsTest
+{
+
+    private static final MatchFunction<SourceItem, TargetItem> KEY_MATCH_FUNCTION =
+        KeyMatchFunction.of(MapperUtilsPositionTest::matches, SourceItem::getKey, TargetItem::getKey);
+
+    @Test
+    public void testByPosition()
+    {
+        List<SourceItem> sourceList = toList(createSourceList("B2", "A1", "C3"));
+        List<TargetItem> targetList = toList(createTargetList("A1", "B", "C"));
+        TargetItem a = targetList.get(0);
+
+        MapperUtils
+            .mapByPosition(sourceList, targetList, KEY_MATCH_FUNCTION, MapperUtilsPositionTest::map, false,
+                MapperUtilsPositionTest::nullFilter, null, MapperUtilsPositionTest::positionOf);
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "A1", Change.SAME);
+        assertNext(iterator, "B2", Change.UPDATED);
+        assertNext(iterator, "C3", Change.UPDATED);
+        assertNoNext(iterator);
+        assertThat(targetList.get(0), sameInstance(a));
+    }
+
+    @Test
+    public void testByPositionRemoves()
+    {
+        List<SourceItem> sourceList = toList(createSourceList("C1", "A2"));
+        List<TargetItem> targetList = toList(createTargetList("A1", "B2", "C3"));
+
+        MapperUtils
+            .mapByPosition(sourceList, targetList, MapperUtilsPositionTest::matches, MapperUtilsPositionTest::map,
+                false, MapperUtilsPositionTest::nullFilter, null, MapperUtilsPositionTest::positionOf);
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "C1", Change.UPDATED);
+        assertNext(iterator, "A2", Change.UPDATED);
+        assertNoNext(iterator);
+    }
+
+    @Test
+    public void testByPositionKeepMissing()
+    {
+        List<SourceItem> sourceList = toList(createSourceList("D3", "A1"));
+        List<TargetItem> targetList = toList(createTargetList("C4", "B2", "A1"));
+
+        MapperUtils
+            .mapByPosition(sourceList, targetList, KEY_MATCH_FUNCTION, MapperUtilsPositionTest::map, true,
+                MapperUtilsPositionTest::nullFilter, null, MapperUtilsPositionTest::positionOf);
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "A1", Change.SAME);
+        assertNext(iterator, "B2", Change.SAME);
+        assertNext(iterator, "D3", Change.ADDED);
+        assertNext(iterator, "C4", Change.SAME);
+        assertNoNext(iterator);
+    }
+
+    @Test
+    public void testByPositionUnchanged()
+    {
+        List<SourceItem> sourceList = toList(createSourceList("A1", "B2", "C3"));
+        List<TargetItem> targetList = new ArrayList<TargetItem>(createTargetList("A1", "B2", "C3"))
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public TargetItem set(int index, TargetItem element)
+            {
+                throw new UnsupportedOperationException("Unchanged list has been modified");
+            }
+
+            @Override
+            public TargetItem remove(int index)
+            {
+                throw new UnsupportedOperationException("Unchanged list has been modified");
+            }
+
+            @Override
+            public void add(int index, TargetItem element)
+            {
+                throw new UnsupportedOperationException("Unchanged list has been modified");
+            }
+        };
+
+        MapperUtils
+            .mapByPosition(sourceList, targetList, KEY_MATCH_FUNCTION, MapperUtilsPositionTest::map, false,
+                MapperUtilsPositionTest::nullFilter, null, MapperUtilsPositionTest::positionOf);
+
+        assertThat(targetList.size(), is(3));
+    }
+
+    @Test
+    public void testRandom()
+    {
+        System.out.println("Performing random positioned test ...");
+
+        IntStream.range(0, 65536).parallel().forEach(i -> {
+            testSample(i, MapperUtilsPositionTest::matches);
+            testSample(i, KEY_MATCH_FUNCTION);
+        });
+    }
+
+    private void testSample(int sample, MatchFunction<SourceItem, TargetItem> matchFunction)
+    {
+        try
+        {
+            Random rnd = new Random(sample);
+            int count = rnd.nextInt(16);
+            List<String> sourceLines = new ArrayList<>();
+            List<String> targetLines = new ArrayList<>();
+
+            createRandomItems(rnd, sourceLines, targetLines, count);
+
+            Collection<SourceItem> sourceList = createSourceList(sourceLines.toArray(new String[sourceLines.size()]));
+            List<TargetItem> targetList = toList(createTargetList(targetLines.toArray(new String[targetLines.size()])));
+
+            // all values have the same position, the result keeps the order of the source
+            MapperUtils
+                .mapByPosition(sourceList, targetList, matchFunction, MapperUtilsPositionTest::map, false,
+                    MapperUtilsPositionTest::nullFilter, null, targetItem -> 0);
+
+            assertThat(targetList.stream().map(TargetItem::getText).collect(Collectors.toList()),
+                equalTo(sourceList
+                    .stream()
+                    .map(SourceItem::getText)
+                    .filter(text -> !"!".equals(text))
+                    .collect(Collectors.toList())));
+        }
+        catch (Exception e)
+        {
+            throw new AssertionError("Sample #" + sample + " has failed", e);
+        }
+    }
+
+    private static int positionOf(TargetItem targetItem)
+    {
+        String text = targetItem.getText();
+
+        return text.length() > 1 ? Integer.parseInt(text.substring(1)) : 0;
+    }
+
+    private static <Any> List<Any> toList(Collection<Any> collection)
+    {
+        return new ArrayList<>(collection);
+    }
+
+}
@@ -0,0 +1,76 @@
+package at.porscheinformatik.antimapper;
+
+import static at.porscheinformatik.antimapper.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class MergeGroupedMapIntoGroupedArrayListsTest extends AbstractMapperTest
+{
+
+    @Test
+    public void testNullGroupedMapIntoNullGroupedArrayLists()
+    {
+        Map<Character, List<String>> dtos = null;
+        Map<Character, List<char[]>> entities = null;
+        Map<Character, List<char[]>> result = mergeGrouped(dtos, BOARDING_PASS).intoGroupedArrayLists(entities);
+
+        assertThat(String.valueOf(result), result, nullValue());
+    }
+
+    @Test
+    public void testGroupedMapIntoGroupedArrayLists()
+    {
+        Map<Character, List<String>> dtos = toMap('a', toList("A", "A"), 'c', toList("C2", "C1"));
+        char[] a = "a".toCharArray();
+        List<char[]> groupA = toList(a, "!x".toCharArray());
+        List<char[]> groupC = toList("c1".toCharArray(), "c2".toCharArray());
+        Map<Character, List<char[]>> entities = toMap('a', groupA, 'b', toList("b".toCharArray()), 'c', groupC);
+        Map<Character, List<char[]>> result = mergeGrouped(dtos, BOARDING_PASS).intoGroupedArrayLists(entities);
+
+        assertThat(String.valueOf(result), result, matchesMap(toMap('a',
+            matchesList(toList(is("A".toCharArray()), is("A".toCharArray()), is("!x".toCharArray()))), 'b',
+            matchesList(toList(is("!b".toCharArray()))), 'c',
+            matchesList(toList(is("C2".toCharArray()), is("C1".toCharArray()))))));
+        assertThat(String.valueOf(result), result, sameInstance(entities));
+        assertThat(describeResult(result.get('a')), result.get('a'), sameInstance(groupA));
+        assertThat(describeResult(result.get('a')), result.get('a').get(0), sameInstance(a));
+        assertThat(describeResult(result.get('c')), result.get('c'), sameInstance(groupC));
+    }
+
+    @Test
+    public void testMovedGroupedMapIntoGroupedArrayLists()
+    {
+        Map<Character, List<String>> dtos = toMap('a', toList("A", "B"), 'c', toList("C1"));
+        char[] b = "b".toCharArray();
+        Map<Character, List<char[]>> entities =
+            toMap('a', toList("a".toCharArray()), 'b', toList(b), 'c', toList("c1".toCharArray()));
+        Map<Character, List<char[]>> result = mergeGrouped(dtos, BOARDING_PASS).intoGroupedArrayLists(entities);
+
+        // the entity has been moved with its DTO instead of being merged as missing entity
+        assertThat(String.valueOf(result), result,
+            matchesMap(toMap('a', matchesList(toList(is("A".toCharArray()), is("B".toCharArray()))), 'c',
+                matchesList(toList(is("C1".toCharArray()))))));
+        assertThat(describeResult(result.get('a')), result.get('a').get(1), sameInstance(b));
+    }
+
+    @Override
+    public UniqueKeyFunction<String, char[]> getUniqueKeyFunction()
+    {
+        return UniqueKeyFunction.of(dto -> dto.toLowerCase(), entity -> {
+            String entityString = String.valueOf(entity);
+
+            if (entityString.startsWith("!"))
+            {
+                entityString = entityString.substring(1);
+            }
+
+            return entityString.toLowerCase();
+        });
+    }
+
+}
@@ -0,0 +1,121 @@
+package at.porscheinformatik.antimapper;
+
+import static at.porscheinformatik.antimapper.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class MergeGroupedMapIntoGroupedHashSetsTest extends AbstractMapperTest
+{
+
+    @Test
+    public void testNullGroupedMapIntoNullGroupedHashSets()
+    {
+        Map<Character, List<String>> dtos = null;
+        Map<Character, Set<char[]>> entities = null;
+        Map<Character, Set<char[]>> result = mergeGrouped(dtos, BOARDING_PASS).intoGroupedHashSets(entities);
+
+        assertThat(String.valueOf(result), result, nullValue());
+    }
+
+    @Test
+    public void testNullGroupedMapIntoNullGroupedHashSetsOrEmpty()
+    {
+        Map<Character, List<String>> dtos = null;
+        Map<Character, Set<char[]>> entities = null;
+        Map<Character, Set<char[]>> result =
+            mergeGrouped(dtos, BOARDING_PASS, Hint.OR_EMPTY).intoGroupedHashSets(entities);
+
+        assertThat(String.valueOf(result), result, is(Collections.emptyMap()));
+    }
+
+    @Test
+    public void testGroupedMapIntoNullGroupedHashSets()
+    {
+        Map<Character, List<String>> dtos = toMap('a', toList("A", "A"), 'c', toList("C2", "C1"));
+        Map<Character, Set<char[]>> entities = null;
+        Map<Character, Set<char[]>> result = mergeGrouped(dtos, BOARDING_PASS).intoGroupedHashSets(entities);
+
+        assertThat(String.valueOf(result), result,
+            matchesMap(toMap('a', matchesCollection(toList(is("A".toCharArray()), is("A".toCharArray()))), 'c',
+                matchesCollection(toList(is("C2".toCharArray()), is("C1".toCharArray()))))));
+    }
+
+    @Test
+    public void testGroupedMapIntoGroupedHashSets()
+    {
+        Map<Character, List<String>> dtos = toMap('a', toList("A", "A"), 'c', toList("C2", "C1"), 'd', toList());
+        char[] a = "a".toCharArray();
+        Set<char[]> groupA = toSet(a, "!x".toCharArray());
+        Set<char[]> groupC = toSet("c1".toCharArray(), "c2".toCharArray());
+        Map<Character, Set<char[]>> entities =
+            toMap('a', groupA, 'b', toSet("b".toCharArray()), 'c', groupC, 'd', toSet("d".toCharArray()));
+        Map<Character, Set<char[]>> result = mergeGrouped(dtos, BOARDING_PASS).intoGroupedHashSets(entities);
+
+        assertThat(String.valueOf(result), result, matchesMap(toMap('a',
+            matchesCollection(toList(is("A".toCharArray()), is("A".toCharArray()), is("!x".toCharArray()))), 'b',
+            matchesCollection(toList(is("!b".toCharArray()))), 'c',
+            matchesCollection(toList(is("C2".toCharArray()), is("C1".toCharArray()))), 'd',
+            matchesCollection(toList(is("!d".toCharArray()))))));
+        assertThat(String.valueOf(result), result, sameInstance(entities));
+        assertThat(describeResult(result.get('a')), result.get('a'), sameInstance(groupA));
+        assertThat(describeResult(result.get('a')), result.get('a'), hasItem(sameInstance(a)));
+        assertThat(describeResult(result.get('c')), result.get('c'), sameInstance(groupC));
+    }
+
+    @Test
+    public void testGroupedMapIntoGroupedHashSetsKeepMissing()
+    {
+        Map<Character, List<String>> dtos = toMap('a', toList("A"));
+        Map<Character, Set<char[]>> entities = toMap('a', toSet("a".toCharArray(), "!x".toCharArray()), 'b',
+            toSet("b".toCharArray()));
+        Map<Character, Set<char[]>> result =
+            mergeGrouped(dtos, Hint.KEEP_MISSING, BOARDING_PASS).intoGroupedHashSets(entities);
+
+        assertThat(String.valueOf(result), result,
+            matchesMap(toMap('a', matchesCollection(toList(is("A".toCharArray()), is("!x".toCharArray()))), 'b',
+                matchesCollection(toList(is("b".toCharArray()))))));
+    }
+
+    @Test
+    public void testGroupedMapIntoGroupedHashSetsUnmodifiable()
+    {
+        Map<Character, List<String>> dtos = toMap('a', toList("A"));
+        Set<char[]> groupA = toSet("a".toCharArray(), "!x".toCharArray());
+        Map<Character, Set<char[]>> entities = toMap('a', groupA);
+        Map<Character, Set<char[]>> result =
+            mergeGrouped(dtos, Hint.UNMODIFIABLE, BOARDING_PASS).intoGroupedHashSets(entities);
+
+        assertThat(String.valueOf(result), result,
+            matchesMap(toMap('a', matchesCollection(toList(is("A".toCharArray()), is("!x".toCharArray()))))));
+        assertThat(describeResult(result.get('a')), result.get('a'), not(sameInstance(groupA)));
+
+        try
+        {
+            result.get('a').add("Z".toCharArray());
+            fail();
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            result.put('z', toSet());
+            fail();
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
+}
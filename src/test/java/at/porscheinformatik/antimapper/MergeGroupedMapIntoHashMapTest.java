@@ -0,0 +1,55 @@
+package at.porscheinformatik.antimapper;
+
+import static at.porscheinformatik.antimapper.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+public class MergeGroupedMapIntoHashMapTest extends AbstractMapperTest
+{
+
+    private static final Function<char[], String> KEY = entity -> String.valueOf(entity).toLowerCase();
+
+    @Test
+    public void testNullGroupedMapIntoNullHashMap()
+    {
+        Map<Character, List<String>> dtos = null;
+        Map<String, char[]> entities = null;
+        Map<String, char[]> result = mergeGrouped(dtos, BOARDING_PASS).intoHashMap(entities, KEY);
+
+        assertThat(String.valueOf(result), result, nullValue());
+    }
+
+    @Test
+    public void testNullGroupedMapIntoNullHashMapOrEmpty()
+    {
+        Map<Character, List<String>> dtos = null;
+        Map<String, char[]> entities = null;
+        Map<String, char[]> result = mergeGrouped(dtos, BOARDING_PASS, Hint.OR_EMPTY).intoHashMap(entities, KEY);
+
+        assertThat(describeResult(result.values()), result, is(Collections.emptyMap()));
+    }
+
+    @Test
+    public void testGroupedMapIntoHashMap()
+    {
+        Map<Character, List<String>> dtos =
+            toMap('a', toList("A"), 'c', toList("C2", "C1"), null, toList((String) null));
+        char[] c1 = "c1".toCharArray();
+        Map<String, char[]> entities =
+            toMap("a", "a".toCharArray(), "b", "b".toCharArray(), "c1", c1, "c2", "c2".toCharArray(), "x", null);
+        Map<String, char[]> result = mergeGrouped(dtos, BOARDING_PASS).intoHashMap(entities, KEY);
+
+        assertThat(describeResult(result.values()), result, matchesMap(toMap("a", is("A".toCharArray()), "!b",
+            is("!b".toCharArray()), "c1", is("C1".toCharArray()), "c2", is("C2".toCharArray()))));
+        assertThat(describeResult(result.values()), result, sameInstance(entities));
+        assertThat(describeResult(result.values()), result.get("c1"), sameInstance(c1));
+    }
+
+}
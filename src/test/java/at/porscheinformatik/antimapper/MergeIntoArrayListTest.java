@@ -188,4 +188,19 @@ public class MergeIntoArrayListTest extends AbstractMapperTest
         }
     }
 
+    @Test
+    public void testIntoArrayListByPosition()
+    {
+        Collection<String> dtos = toList("C", "A", "B");
+        char[] a = "a".toCharArray();
+        List<char[]> entities = toList(a, "x".toCharArray());
+        List<char[]> result =
+            mergeAll(dtos, BOARDING_PASS).intoArrayListByPosition(entities, entity -> entity[entity.length - 1]);
+
+        assertThat(describeResult(result), result, matchesList(toList(is("A".toCharArray()), is("B".toCharArray()),
+            is("C".toCharArray()), is("!x".toCharArray()))));
+        assertThat(describeResult(result), result, sameInstance(entities));
+        assertThat(describeResult(result), result.get(0), sameInstance(a));
+    }
+
 }
@@ -0,0 +1,121 @@
+package at.porscheinformatik.antimapper;
+
+import static at.porscheinformatik.antimapper.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+public class MergeIntoHashMapTest extends AbstractMapperTest
+{
+
+    private static final Function<char[], String> KEY = entity -> String.valueOf(entity).toLowerCase();
+
+    @Test
+    public void testNullIntoNullHashMap()
+    {
+        Collection<String> dtos = null;
+        Map<String, char[]> entities = null;
+        Map<String, char[]> result = mergeAll(dtos, BOARDING_PASS).intoHashMap(entities, KEY);
+
+        assertThat(String.valueOf(result), result, nullValue());
+    }
+
+    @Test
+    public void testNullIntoNullHashMapOrEmpty()
+    {
+        Collection<String> dtos = null;
+        Map<String, char[]> entities = null;
+        Map<String, char[]> result = mergeAll(dtos, BOARDING_PASS, Hint.OR_EMPTY).intoHashMap(entities, KEY);
+
+        assertThat(describeResult(result.values()), result, is(Collections.emptyMap()));
+
+        // check modifiable
+        result.put("z", "Z".toCharArray());
+        assertThat(describeResult(result.values()), result.values(), hasItem(is("Z".toCharArray())));
+    }
+
+    @Test
+    public void testNullIntoHashMap()
+    {
+        Collection<String> dtos = null;
+        Map<String, char[]> entities = toMap("a", "a".toCharArray(), "!b", "!b".toCharArray(), "x", null);
+        Map<String, char[]> result = mergeAll(dtos, BOARDING_PASS).intoHashMap(entities, KEY);
+
+        assertThat(describeResult(result.values()), result,
+            matchesMap(toMap("!a", is("!a".toCharArray()), "!b", is("!b".toCharArray()))));
+        assertThat(describeResult(result.values()), result, sameInstance(entities));
+    }
+
+    @Test
+    public void testIntoNullHashMap()
+    {
+        Collection<String> dtos = toList("A", "C2", "C1", null);
+        Map<String, char[]> entities = null;
+        Map<String, char[]> result = mergeAll(dtos, BOARDING_PASS).intoHashMap(entities, KEY);
+
+        assertThat(describeResult(result.values()), result, matchesMap(
+            toMap("a", is("A".toCharArray()), "c2", is("C2".toCharArray()), "c1", is("C1".toCharArray()))));
+        assertThat(result, instanceOf(HashMap.class));
+    }
+
+    @Test
+    public void testIntoHashMap()
+    {
+        Collection<String> dtos = toList("A", "C2", "C1", null, "E");
+        char[] a = "a".toCharArray();
+        char[] c1 = "c1".toCharArray();
+        // the "c1" entity is stored with an outdated key
+        Map<String, char[]> entities = toMap("a", a, "!b", "!b".toCharArray(), "old", c1, "c2", "c2".toCharArray(),
+            "d", "d".toCharArray(), "x", null);
+        Map<String, char[]> result = mergeAll(dtos, BOARDING_PASS).intoHashMap(entities, KEY);
+
+        assertThat(describeResult(result.values()), result,
+            matchesMap(toMap("a", is("A".toCharArray()), "!b", is("!b".toCharArray()), "c1", is("C1".toCharArray()),
+                "c2", is("C2".toCharArray()), "!d", is("!d".toCharArray()), "e", is("E".toCharArray()))));
+        assertThat(describeResult(result.values()), result, sameInstance(entities));
+        assertThat(describeResult(result.values()), result.get("a"), sameInstance(a));
+        assertThat(describeResult(result.values()), result.get("c1"), sameInstance(c1));
+    }
+
+    @Test
+    public void testIntoHashMapKeepMissing()
+    {
+        Collection<String> dtos = toList("A");
+        Map<String, char[]> entities = toMap("a", "a".toCharArray(), "b", "b".toCharArray());
+        Map<String, char[]> result = mergeAll(dtos, Hint.KEEP_MISSING, BOARDING_PASS).intoHashMap(entities, KEY);
+
+        assertThat(describeResult(result.values()), result,
+            matchesMap(toMap("a", is("A".toCharArray()), "b", is("b".toCharArray()))));
+    }
+
+    @Test
+    public void testIntoHashMapUnmodifiable()
+    {
+        Collection<String> dtos = toList("A", "C2");
+        Map<String, char[]> entities =
+            Collections.unmodifiableMap(toMap("a", "a".toCharArray(), "b", "b".toCharArray()));
+        Map<String, char[]> result = mergeAll(dtos, Hint.UNMODIFIABLE, BOARDING_PASS).intoHashMap(entities, KEY);
+
+        assertThat(describeResult(result.values()), result, matchesMap(
+            toMap("a", is("A".toCharArray()), "!b", is("!b".toCharArray()), "c2", is("C2".toCharArray()))));
+
+        try
+        {
+            result.put("z", "Z".toCharArray());
+            fail();
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+package at.porscheinformatik.antimapper;
+
+import static at.porscheinformatik.antimapper.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class MergeIntoSortedArrayListTest extends AbstractMapperTest
+{
+
+    private static final Comparator<String> KEY_COMPARATOR = Comparator.naturalOrder();
+
+    @Test
+    public void testNullIntoNullSortedArrayList()
+    {
+        Collection<String> dtos = null;
+        List<char[]> entities = null;
+        List<char[]> result = mergeAll(dtos, BOARDING_PASS).intoSortedArrayList(entities, KEY_COMPARATOR);
+
+        assertThat(describeResult(result), result, nullValue());
+    }
+
+    @Test
+    public void testNullIntoSortedArrayList()
+    {
+        Collection<String> dtos = null;
+        List<char[]> entities = toList("a".toCharArray(), "!b".toCharArray(), null, "c".toCharArray());
+        List<char[]> result = mergeAll(dtos, BOARDING_PASS).intoSortedArrayList(entities, KEY_COMPARATOR);
+
+        assertThat(describeResult(result), result,
+            matchesList(toList(is("!a".toCharArray()), is("!b".toCharArray()), is("!c".toCharArray()))));
+        assertThat(describeResult(result), result, sameInstance(entities));
+    }
+
+    @Test
+    public void testIntoNullSortedArrayList()
+    {
+        Collection<String> dtos = toList("A", null, "B", "C");
+        List<char[]> entities = null;
+        List<char[]> result = mergeAll(dtos, BOARDING_PASS).intoSortedArrayList(entities, KEY_COMPARATOR);
+
+        assertThat(describeResult(result), result,
+            matchesList(toList(is("A".toCharArray()), is("B".toCharArray()), is("C".toCharArray()))));
+    }
+
+    @Test
+    public void testIntoSortedArrayList()
+    {
+        Collection<String> dtos = toList("A", "C1", "C2", "E");
+        char[] c1 = "c1".toCharArray();
+        List<char[]> entities =
+            toList("a".toCharArray(), "b".toCharArray(), c1, "c2".toCharArray(), "d".toCharArray());
+        List<char[]> result = mergeAll(dtos.stream(), BOARDING_PASS).intoSortedArrayList(entities, KEY_COMPARATOR);
+
+        // missing entities keep their position
+        assertThat(describeResult(result), result,
+            matchesList(toList(is("A".toCharArray()), is("!b".toCharArray()), is("C1".toCharArray()),
+                is("C2".toCharArray()), is("!d".toCharArray()), is("E".toCharArray()))));
+        assertThat(describeResult(result), result, sameInstance(entities));
+        assertThat(describeResult(result), result.get(2), sameInstance(c1));
+    }
+
+    @Test
+    public void testIntoSortedArrayListKeepMissing()
+    {
+        Collection<String> dtos = toList("A", "C");
+        List<char[]> entities = toList("a".toCharArray(), "b".toCharArray());
+        List<char[]> result =
+            mergeAll(dtos, Hint.KEEP_MISSING, BOARDING_PASS).intoSortedArrayList(entities, KEY_COMPARATOR);
+
+        assertThat(describeResult(result), result,
+            matchesList(toList(is("A".toCharArray()), is("b".toCharArray()), is("C".toCharArray()))));
+    }
+
+    @Test
+    public void testUnsortedIntoSortedArrayList()
+    {
+        Collection<String> dtos = toList("B", "A");
+        List<char[]> entities = toList("a".toCharArray(), "b".toCharArray());
+
+        try
+        {
+            mergeAll(dtos, BOARDING_PASS).intoSortedArrayList(entities, KEY_COMPARATOR);
+            fail();
+        }
+        catch (MapperException e)
+        {
+            assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+        }
+    }
+
+    @Test
+    public void testMapWithNullValueIntoSortedArrayList()
+    {
+        Map<String, String> dtos = new LinkedHashMap<>();
+
+        dtos.put("1", "A");
+        dtos.put("2", null);
+        dtos.put("3", "B");
+
+        List<char[]> entities = toList("a".toCharArray(), "b".toCharArray());
+        List<char[]> result = mergeAll(dtos, BOARDING_PASS).intoSortedArrayList(entities, KEY_COMPARATOR);
+
+        // the null value has no key, it is ignored instead of being passed to the comparator
+        assertThat(describeResult(result), result,
+            matchesCollection(toList(is("A".toCharArray()), is("B".toCharArray()))));
+    }
+
+    @Test
+    public void testIntoUnsortedArrayListUnchanged()
+    {
+        char[] a = "a".toCharArray();
+        char[] b = "b".toCharArray();
+        char[] c = "c".toCharArray();
+        List<char[]> entities = toList(a, c, b);
+
+        try
+        {
+            // the first DTO matches and would be merged, before the unsorted entity is reached
+            mergeAll(toList("A", "B"), BOARDING_PASS).intoSortedArrayList(entities, KEY_COMPARATOR);
+            fail();
+        }
+        catch (MapperException e)
+        {
+            assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+        }
+
+        assertThat(entities.size(), equalTo(3));
+        assertThat(entities.get(0), sameInstance(a));
+        assertThat(entities.get(1), sameInstance(c));
+        assertThat(entities.get(2), sameInstance(b));
+        assertThat(String.valueOf(a), equalTo("a"));
+    }
+
+    @Test
+    public void testUnsortedIntoSortedArrayListPartiallyMerged()
+    {
+        char[] c = "c".toCharArray();
+        char[] d = "d".toCharArray();
+        List<char[]> entities = toList("a".toCharArray(), "b".toCharArray(), c, d);
+
+        try
+        {
+            mergeAll(toList("A", "C", "B"), BOARDING_PASS).intoSortedArrayList(entities, KEY_COMPARATOR);
+            fail();
+        }
+        catch (MapperException e)
+        {
+            assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+        }
+
+        // the DTOs in front of the unsorted DTO have been merged, the remaining entities are unchanged
+        assertThat(describeResult(entities), entities, matchesCollection(
+            toList(is("A".toCharArray()), is("!b".toCharArray()), is("C".toCharArray()), is("d".toCharArray()))));
+        assertThat(entities.get(2), sameInstance(c));
+        assertThat(entities.get(3), sameInstance(d));
+    }
+
+    @Override
+    public UniqueKeyFunction<String, char[]> getUniqueKeyFunction()
+    {
+        return UniqueKeyFunction.of(dto -> dto.toLowerCase(), entity -> {
+            String entityString = String.valueOf(entity);
+
+            if (entityString.startsWith("!"))
+            {
+                entityString = entityString.substring(1);
+            }
+
+            return entityString.toLowerCase();
+        });
+    }
+
+}
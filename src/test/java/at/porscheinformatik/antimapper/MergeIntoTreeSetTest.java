@@ -5,8 +5,10 @@ import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -178,6 +180,41 @@ public class MergeIntoTreeSetTest extends AbstractMapperTest
         assertThat(describeResult(result), result, hasItem(is("Z".toCharArray())));
     }
 
+    @Test
+    public void testIntoTreeSetChangedSortKey()
+    {
+        Collection<String> dtos = toList("A", "b", "c");
+        char[] a = "a".toCharArray();
+        // upper case letters are sorted before lower case letters, the merge changes the sort keys of "a" and "B"
+        SortedSet<char[]> entities =
+            toSortedSet(Comparator.comparing(String::valueOf), a, "B".toCharArray(), "c".toCharArray());
+        SortedSet<char[]> result = this.mergeAll(dtos, BOARDING_PASS).intoTreeSet(entities);
+
+        assertThat(describeResult(result), new ArrayList<>(result),
+            matchesList(toList(is("A".toCharArray()), is("b".toCharArray()), is("c".toCharArray()))));
+        assertThat(describeResult(result), result.first(), sameInstance(a));
+        assertThat(describeResult(result), result.contains("b".toCharArray()), is(true));
+    }
+
+    @Test
+    public void testIntoTreeSetSortKeyCollision()
+    {
+        Collection<String> dtos = toList("A", "A");
+        // both entities match "A", the merge changes the sort key of "a" to the one of "A"
+        SortedSet<char[]> entities =
+            toSortedSet(Comparator.comparing(String::valueOf), "A".toCharArray(), "a".toCharArray());
+
+        try
+        {
+            this.mergeAll(dtos, BOARDING_PASS).intoTreeSet(entities);
+            fail();
+        }
+        catch (MapperException e)
+        {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+    }
+
     @Test
     public void testIntoTreeSetKeepNullAndUnmodifiable()
     {
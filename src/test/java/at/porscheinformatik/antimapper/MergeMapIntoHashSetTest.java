@@ -7,6 +7,7 @@ import static org.junit.Assert.*;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -193,6 +194,25 @@ public class MergeMapIntoHashSetTest extends AbstractMapperTest
         }
     }
 
+    @Test
+    public void testMapByKeyIntoHashSet()
+    {
+        // the key of an entity is the index of its id
+        List<String> ids = toList("a", "b", "c1", "d", "e");
+        Map<Integer, String> dtos = toMap(0, "A", 1, "B", 2, "C1", 3, null, 4, "E");
+        char[] a = "a".toCharArray();
+        char[] c1 = "c1".toCharArray();
+        Set<char[]> entities = toSet(a, "!b".toCharArray(), c1, "c2".toCharArray(), null);
+        Set<char[]> result = mergeAllByKey(dtos, entity -> ids.indexOf(String.valueOf(entity)), BOARDING_PASS)
+            .intoHashSet(entities);
+
+        assertThat(describeResult(result), result, matchesCollection(toList(is("A".toCharArray()),
+            is("B".toCharArray()), is("C1".toCharArray()), is("E".toCharArray()), is("!b".toCharArray()), is("!c2".toCharArray()))));
+        assertThat(describeResult(result), result, sameInstance(entities));
+        assertThat(describeResult(result), result, hasItem(sameInstance(a)));
+        assertThat(describeResult(result), result, hasItem(sameInstance(c1)));
+    }
+
     @Override
     public boolean isUniqueKeyMatching(String dto, char[] entity, Object... hints)
     {
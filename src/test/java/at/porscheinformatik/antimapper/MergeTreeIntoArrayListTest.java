@@ -0,0 +1,199 @@
+package at.porscheinformatik.antimapper;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class MergeTreeIntoArrayListTest
+{
+
+    private static class NodeDTO
+    {
+        private final String name;
+        private final List<NodeDTO> children;
+
+        NodeDTO(String name, NodeDTO... children)
+        {
+            super();
+
+            this.name = name;
+            this.children = Arrays.asList(children);
+        }
+    }
+
+    private static class NodeEntity
+    {
+        private final String name;
+        private final List<NodeEntity> children = new ArrayList<>();
+        private boolean deleted = false;
+        private int mergeCount = 0;
+
+        NodeEntity(String name, NodeEntity... children)
+        {
+            super();
+
+            this.name = name;
+            this.children.addAll(Arrays.asList(children));
+        }
+
+        @Override
+        public String toString()
+        {
+            String value = deleted ? "!" + name : name;
+
+            if (children.isEmpty())
+            {
+                return value;
+            }
+
+            return value + children.stream().map(String::valueOf).collect(Collectors.joining(", ", "(", ")"));
+        }
+    }
+
+    private static class NodeMerger extends AbstractMerger<NodeDTO, NodeEntity>
+    {
+        private final boolean keyed;
+
+        NodeMerger(boolean keyed)
+        {
+            super();
+
+            this.keyed = keyed;
+        }
+
+        @Override
+        public boolean isUniqueKeyMatching(NodeDTO dto, NodeEntity entity, Object... hints)
+        {
+            return dto.name.equals(entity.name);
+        }
+
+        @Override
+        public UniqueKeyFunction<NodeDTO, NodeEntity> getUniqueKeyFunction()
+        {
+            return keyed ? UniqueKeyFunction.of(dto -> dto.name, entity -> entity.name) : null;
+        }
+
+        @Override
+        protected NodeEntity mergeNull(NodeEntity entity, Object[] hints)
+        {
+            entity.deleted = true;
+
+            return entity;
+        }
+
+        @Override
+        protected NodeEntity mergeNonNull(NodeDTO dto, NodeEntity entity, Object[] hints)
+        {
+            entity.mergeCount++;
+
+            return entity;
+        }
+
+        @Override
+        protected NodeEntity create(NodeDTO dto, Object[] hints)
+        {
+            return new NodeEntity(dto.name);
+        }
+    }
+
+    @Test
+    public void testNullTreeIntoNullArrayList()
+    {
+        List<NodeEntity> result = new NodeMerger(true).mergeTree(null, dto -> dto.children).intoArrayList(null,
+            entity -> entity.children);
+
+        assertThat(String.valueOf(result), result, nullValue());
+    }
+
+    @Test
+    public void testTreeIntoNullArrayList()
+    {
+        List<NodeDTO> dtos = Arrays.asList(new NodeDTO("a", new NodeDTO("b"), new NodeDTO("c", new NodeDTO("d"))));
+        List<NodeEntity> result = new NodeMerger(true).mergeTree(dtos, dto -> dto.children).intoArrayList(null,
+            entity -> entity.children);
+
+        assertThat(String.valueOf(result), String.valueOf(result), equalTo("[a(b, c(d))]"));
+    }
+
+    @Test
+    public void testTreeIntoArrayList()
+    {
+        NodeEntity b = new NodeEntity("b");
+        List<NodeEntity> entities = new ArrayList<>(Arrays.asList(new NodeEntity("a", b, new NodeEntity("c"))));
+        List<NodeDTO> dtos = Arrays.asList(new NodeDTO("a", new NodeDTO("b", new NodeDTO("e"))), new NodeDTO("f"));
+        List<NodeEntity> result = new NodeMerger(true).mergeTree(dtos, dto -> dto.children).intoArrayList(entities,
+            entity -> entity.children);
+
+        assertThat(String.valueOf(result), String.valueOf(result), equalTo("[a(b(e), !c), f]"));
+        assertThat(String.valueOf(result), result, sameInstance(entities));
+        assertThat(String.valueOf(result), result.get(0).children.get(0), sameInstance(b));
+    }
+
+    @Test
+    public void testMovedTreeIntoArrayList()
+    {
+        NodeEntity d = new NodeEntity("d", new NodeEntity("e"));
+        List<NodeEntity> entities = new ArrayList<>(
+            Arrays.asList(new NodeEntity("a", new NodeEntity("b", d)), new NodeEntity("c", new NodeEntity("f"))));
+        // "d" has been moved from "b" to "c", its child "e" moves along
+        List<NodeDTO> dtos = Arrays.asList(new NodeDTO("a", new NodeDTO("b")),
+            new NodeDTO("c", new NodeDTO("f"), new NodeDTO("d", new NodeDTO("e"))));
+        List<NodeEntity> result = new NodeMerger(true).mergeTree(dtos, dto -> dto.children).intoArrayList(entities,
+            entity -> entity.children);
+
+        assertThat(String.valueOf(result), String.valueOf(result), equalTo("[a(b), c(f, d(e))]"));
+        assertThat(String.valueOf(result), result.get(1).children.get(1), sameInstance(d));
+        assertThat(String.valueOf(result), d.deleted, is(false));
+        assertThat(String.valueOf(result), d.mergeCount, is(1));
+    }
+
+    @Test
+    public void testMovedUpTreeIntoArrayList()
+    {
+        NodeEntity c = new NodeEntity("c");
+        List<NodeEntity> entities = new ArrayList<>(Arrays.asList(new NodeEntity("a", new NodeEntity("b", c))));
+        // "c" has been moved from "b" to the roots, "b" has been removed
+        List<NodeDTO> dtos = Arrays.asList(new NodeDTO("a"), new NodeDTO("c"));
+        List<NodeEntity> result = new NodeMerger(true).mergeTree(dtos, dto -> dto.children).intoArrayList(entities,
+            entity -> entity.children);
+
+        assertThat(String.valueOf(result), String.valueOf(result), equalTo("[a(!b), c]"));
+        assertThat(String.valueOf(result), result.get(1), sameInstance(c));
+        assertThat(String.valueOf(result), c.mergeCount, is(1));
+    }
+
+    @Test
+    public void testMovedTreeIntoArrayListWithoutKeys()
+    {
+        NodeEntity c = new NodeEntity("c");
+        List<NodeEntity> entities = new ArrayList<>(Arrays.asList(new NodeEntity("a", c), new NodeEntity("b")));
+        List<NodeDTO> dtos = Arrays.asList(new NodeDTO("a"), new NodeDTO("b", new NodeDTO("c")));
+        List<NodeEntity> result = new NodeMerger(false).mergeTree(dtos, dto -> dto.children).intoArrayList(entities,
+            entity -> entity.children);
+
+        // without unique keys, the moved node gets removed and created again
+        assertThat(String.valueOf(result), String.valueOf(result), equalTo("[a(!c), b(c)]"));
+        assertThat(String.valueOf(result), result.get(1).children.get(0), not(sameInstance(c)));
+    }
+
+    @Test
+    public void testMovedTreeIntoArrayListKeepMissing()
+    {
+        List<NodeEntity> entities =
+            new ArrayList<>(Arrays.asList(new NodeEntity("a", new NodeEntity("c")), new NodeEntity("b")));
+        List<NodeDTO> dtos = Arrays.asList(new NodeDTO("a"), new NodeDTO("b", new NodeDTO("c")));
+        List<NodeEntity> result = new NodeMerger(true)
+            .mergeTree(dtos, dto -> dto.children, Hint.KEEP_MISSING)
+            .intoArrayList(entities, entity -> entity.children);
+
+        // missing nodes are kept at their parent
+        assertThat(String.valueOf(result), String.valueOf(result), equalTo("[a(c), b(c)]"));
+    }
+
+}
@@ -2,6 +2,7 @@ package at.porscheinformatik.antimapper.sample.deletedflag;
 
 import java.util.Collection;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 import at.porscheinformatik.antimapper.AbstractMapper;
 import at.porscheinformatik.antimapper.Hints;
@@ -67,6 +68,13 @@ public class ChildMapper extends AbstractMapper<ChildDTO, ChildEntity>
         }
     }
 
+    @Override
+    public Predicate<ChildEntity> getDeletedPredicate()
+    {
+        // deleted entities are only revived, if a DTO with the same id reappears
+        return ChildEntity::isDeleted;
+    }
+
     @Override
     public boolean isUniqueKeyMatching(ChildDTO dto, ChildEntity entity, Object... hints)
     {
@@ -140,4 +140,26 @@ public class DeletedFlagTest
 
     }
 
+    @Test
+    public void testRevive()
+    {
+        ChildEntity child1 = new ChildEntity(1, "Child#1", ChildType.A, 0);
+        ChildEntity child2 = new ChildEntity(2, "Child#2", ChildType.B, 1);
+
+        child2.setDeleted(true);
+
+        ParentEntity entity = new ParentEntity(1, "Parent#1", child1, child2);
+        ParentDTO dto = new ParentDTO(1, "Parent#1", new ChildDTO(1, "Child#1", "A"), new ChildDTO(2, "Child#2", "B"),
+            new ChildDTO(3, "Child#3", "C"));
+
+        entity = parentMapper.merge(dto, entity);
+
+        assertThat(entity.getChilds().size(), equalTo(3));
+
+        // the deleted entity has been revived instead of creating a new one
+        assertThat(entity.getChilds(), hasItem(sameInstance(child2)));
+        assertThat(child2.isDeleted(), equalTo(false));
+        assertThat(entity.getChilds().stream().filter(ChildEntity::isDeleted).count(), equalTo(0L));
+    }
+
 }